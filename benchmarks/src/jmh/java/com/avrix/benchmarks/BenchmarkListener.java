@@ -0,0 +1,138 @@
+package com.avrix.benchmarks;
+
+import com.avrix.events.Event;
+
+/**
+ * Benchmark listener accepting from 0 to 8 arguments, like the Lua events raised through {@code triggerEvent}.
+ * Each call only increments a counter, so the benchmarks measure the cost of the dispatch itself.
+ */
+public class BenchmarkListener extends Event {
+    private final String eventName; // Name of the event the listener is registered for
+    public long calls; // Number of received calls
+
+    /**
+     * Constructs a listener for the specified event.
+     *
+     * @param eventName name of the event
+     */
+    public BenchmarkListener(String eventName) {
+        this.eventName = eventName;
+    }
+
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return eventName;
+    }
+
+    /**
+     * Called Event Handling Method
+     */
+    public void handleEvent() {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     */
+    public void handleEvent(Object a1) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     */
+    public void handleEvent(Object a1, Object a2) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     */
+    public void handleEvent(Object a1, Object a2, Object a3) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     * @param a4 argument 4
+     */
+    public void handleEvent(Object a1, Object a2, Object a3, Object a4) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     * @param a4 argument 4
+     * @param a5 argument 5
+     */
+    public void handleEvent(Object a1, Object a2, Object a3, Object a4, Object a5) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     * @param a4 argument 4
+     * @param a5 argument 5
+     * @param a6 argument 6
+     */
+    public void handleEvent(Object a1, Object a2, Object a3, Object a4, Object a5, Object a6) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     * @param a4 argument 4
+     * @param a5 argument 5
+     * @param a6 argument 6
+     * @param a7 argument 7
+     */
+    public void handleEvent(Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7) {
+        calls++;
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param a1 argument 1
+     * @param a2 argument 2
+     * @param a3 argument 3
+     * @param a4 argument 4
+     * @param a5 argument 5
+     * @param a6 argument 6
+     * @param a7 argument 7
+     * @param a8 argument 8
+     */
+    public void handleEvent(Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8) {
+        calls++;
+    }
+}
@@ -0,0 +1,101 @@
+package com.avrix.benchmarks;
+
+import com.avrix.enums.Priority;
+import com.avrix.events.EventManager;
+import com.avrix.events.EventRegistry;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of raising events from the render thread and the game thread at the same time.
+ * <p>
+ * The {@code separateEvents} group models the usual case, where each thread raises its own events
+ * (e.g. {@code onPreWidgetRender} and {@code OnTick}), the {@code sameEvent} group models both threads raising the same event.
+ */
+@State(Scope.Group)
+public class ConcurrentEventBenchmark {
+    /**
+     * Name of the event raised by the render thread
+     */
+    private static final String RENDER_EVENT_NAME = "OnBenchmarkRender";
+
+    /**
+     * Name of the event raised by the game thread
+     */
+    private static final String GAME_EVENT_NAME = "OnBenchmarkTick";
+
+    /**
+     * Number of registered listeners of each event
+     */
+    @Param({"1", "10", "50"})
+    public int listeners;
+
+    private int renderEventId; // Identifier of the event raised by the render thread
+    private int gameEventId; // Identifier of the event raised by the game thread
+    private final Object[] renderArgs = new Object[0]; // Arguments of the render event
+    private final Object[] gameArgs = new Object[]{1.0}; // Arguments of the game event
+
+    /**
+     * Registers the listeners of both events with mixed priorities.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        EventManager.clearAllListeners();
+
+        Priority[] priorities = Priority.values();
+        for (int i = 0; i < listeners; i++) {
+            EventManager.addListener(new BenchmarkListener(RENDER_EVENT_NAME), priorities[i % priorities.length]);
+            EventManager.addListener(new BenchmarkListener(GAME_EVENT_NAME), priorities[i % priorities.length]);
+        }
+
+        renderEventId = EventRegistry.getId(RENDER_EVENT_NAME);
+        gameEventId = EventRegistry.getId(GAME_EVENT_NAME);
+    }
+
+    /**
+     * Removes the listeners.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventManager.clearAllListeners();
+    }
+
+    /**
+     * Render thread raising its own event.
+     */
+    @Benchmark
+    @Group("separateEvents")
+    @GroupThreads(1)
+    public void renderThread() {
+        EventManager.invokeEvent(renderEventId, renderArgs);
+    }
+
+    /**
+     * Game thread raising its own event.
+     */
+    @Benchmark
+    @Group("separateEvents")
+    @GroupThreads(1)
+    public void gameThread() {
+        EventManager.invokeEvent(gameEventId, gameArgs);
+    }
+
+    /**
+     * Render thread raising the event of the game thread.
+     */
+    @Benchmark
+    @Group("sameEvent")
+    @GroupThreads(1)
+    public void renderThreadSameEvent() {
+        EventManager.invokeEvent(gameEventId, gameArgs);
+    }
+
+    /**
+     * Game thread raising its own event.
+     */
+    @Benchmark
+    @Group("sameEvent")
+    @GroupThreads(1)
+    public void gameThreadSameEvent() {
+        EventManager.invokeEvent(gameEventId, gameArgs);
+    }
+}
@@ -0,0 +1,93 @@
+package com.avrix.benchmarks;
+
+import com.avrix.enums.Priority;
+import com.avrix.events.EventManager;
+import com.avrix.events.EventMetrics;
+import com.avrix.events.EventRegistry;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of raising an event on a single thread, by the number of listeners, the number of arguments
+ * and the priorities of the listeners.
+ * <p>
+ * Run with {@code gradlew :benchmarks:jmh}, the {@code gc} profiler reports the allocations per raised event.
+ */
+@State(Scope.Benchmark)
+public class EventManagerBenchmark {
+    /**
+     * Name of the benchmarked event
+     */
+    private static final String EVENT_NAME = "OnBenchmarkEvent";
+
+    /**
+     * Number of registered listeners
+     */
+    @Param({"0", "1", "10", "50"})
+    public int listeners;
+
+    /**
+     * Number of event arguments
+     */
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8"})
+    public int arguments;
+
+    /**
+     * Whether listeners are registered with different priorities or all with NORMAL priority
+     */
+    @Param({"false", "true"})
+    public boolean mixedPriorities;
+
+    /**
+     * Whether dispatch metrics are collected, see {@code benchmarks/build.gradle}
+     */
+    @Param({"false"})
+    public boolean metrics;
+
+    private int eventId; // Identifier of the benchmarked event
+    private Object[] args; // Arguments of the event
+
+    /**
+     * Registers the listeners and prepares the arguments.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        EventManager.clearAllListeners();
+        EventMetrics.setEnabled(metrics);
+
+        Priority[] priorities = Priority.values();
+        for (int i = 0; i < listeners; i++) {
+            Priority priority = mixedPriorities ? priorities[i % priorities.length] : Priority.NORMAL;
+            EventManager.addListener(new BenchmarkListener(EVENT_NAME), priority);
+        }
+
+        eventId = EventRegistry.getId(EVENT_NAME);
+        args = new Object[arguments];
+        for (int i = 0; i < arguments; i++) {
+            args[i] = "argument" + i;
+        }
+    }
+
+    /**
+     * Removes the listeners.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventManager.clearAllListeners();
+    }
+
+    /**
+     * Raises the event by its name, as plugins do.
+     */
+    @Benchmark
+    public void invokeByName() {
+        EventManager.invokeEvent(EVENT_NAME, args);
+    }
+
+    /**
+     * Raises the event by its identifier, as the injected hooks do.
+     */
+    @Benchmark
+    public void invokeById() {
+        EventManager.invokeEvent(eventId, args);
+    }
+}
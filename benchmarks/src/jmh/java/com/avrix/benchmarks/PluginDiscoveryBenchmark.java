@@ -0,0 +1,124 @@
+package com.avrix.benchmarks;
+
+import com.avrix.plugin.Metadata;
+import com.avrix.utils.Constants;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of reading the metadata of the plugin jars at startup, on the calling thread and concurrently.
+ * <p>
+ * Run with {@code gradlew :benchmarks:jmh -Pjmh.includes=PluginDiscoveryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PluginDiscoveryBenchmark {
+    /**
+     * Number of plugin jars
+     */
+    @Param({"35"})
+    public int plugins;
+
+    /**
+     * Maximum number of jars read at the same time, {@code 1} reads them on the calling thread
+     */
+    @Param({"1", "4", "8"})
+    public int parallelism;
+
+    private Path pluginsFolder; // Temporary folder with the plugin jars
+    private List<File> pluginFiles; // Plugin jars
+
+    /**
+     * Creates the plugin jars, each with a metadata file and some classes.
+     *
+     * @throws IOException if a jar cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pluginsFolder = Files.createTempDirectory("avrix-plugins");
+        pluginFiles = new ArrayList<>();
+
+        for (int i = 0; i < plugins; i++) {
+            File pluginFile = pluginsFolder.resolve("plugin-" + i + ".jar").toFile();
+
+            try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(pluginFile.toPath()))) {
+                for (int j = 0; j < 200; j++) {
+                    writeEntry(output, "com/example/plugin" + i + "/Class" + j + ".class", new byte[1024]);
+                }
+                writeEntry(output, Constants.PLUGINS_METADATA_NAME, getMetadata(i).getBytes(StandardCharsets.UTF_8));
+            }
+
+            pluginFiles.add(pluginFile);
+        }
+    }
+
+    /**
+     * Deletes the plugin jars.
+     *
+     * @throws IOException if a jar cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(pluginsFolder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Reads the metadata of all plugin jars.
+     *
+     * @return the metadata of the plugins
+     */
+    @Benchmark
+    public List<Metadata> readMetadata() {
+        return Metadata.createFromJars(pluginFiles, Constants.PLUGINS_METADATA_NAME, parallelism);
+    }
+
+    /**
+     * Writes an entry of the jar.
+     *
+     * @param output the jar being written
+     * @param name   the name of the entry
+     * @param data   the content of the entry
+     * @throws IOException if the entry cannot be written
+     */
+    private static void writeEntry(JarOutputStream output, String name, byte[] data) throws IOException {
+        output.putNextEntry(new JarEntry(name));
+        output.write(data);
+        output.closeEntry();
+    }
+
+    /**
+     * Creates the metadata file of a plugin.
+     *
+     * @param index the number of the plugin
+     * @return the content of the metadata file
+     */
+    private static String getMetadata(int index) {
+        return "name: \"Benchmark Plugin " + index + "\"\n"
+                + "id: \"benchmark-plugin-" + index + "\"\n"
+                + "description: \"Benchmark plugin\"\n"
+                + "author: \"Avrix\"\n"
+                + "version: \"1.0.0\"\n"
+                + "environment: \"both\"\n"
+                + "license: \"MIT\"\n"
+                + "entrypoints:\n"
+                + "  - \"com.example.plugin" + index + ".Main\"\n"
+                + "dependencies:\n"
+                + "  avrix-loader: \">=1.0.0\"\n";
+    }
+}
@@ -0,0 +1,170 @@
+package com.avrix.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that writes the class index of Avrix and plugins at build time.
+ * <p>
+ * The index lists the compiled patches (descendants of {@code com.avrix.agent.ClassTransformer}),
+ * event listeners (descendants of {@code com.avrix.events.Event}) and commands (descendants of {@code com.avrix.commands.Command}),
+ * so that they can be found at startup by reading one small file instead of scanning the jar and loading every class.
+ * The index is written to {@value #INDEX_PATH}, one class per line in the form {@code <type> <binary class name>}.
+ * <p>
+ * An incremental compilation processes only the recompiled classes, so the classes of the previous index in the class output
+ * are kept if they still exist and are still indexed. The processor is declared to Gradle as an aggregating processor,
+ * so Gradle compiles incrementally and passes the classes to be processed again.
+ * <p>
+ * Plugins enable the index by adding the processor to their build, e.g. {@code annotationProcessor files('Avrix-Core.jar')}.
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+    /**
+     * Path of the index in the class output, must match {@code com.avrix.utils.ClassIndex}
+     */
+    public static final String INDEX_PATH = "META-INF/avrix/index.list";
+
+    private final Map<String, String> baseClasses = new LinkedHashMap<>(); // Base class names by index type
+    private final Map<String, Set<String>> indexedClasses = new LinkedHashMap<>(); // Indexed class names by index type
+
+    /**
+     * Constructor for creating a {@link ClassIndexProcessor} object.
+     */
+    public ClassIndexProcessor() {
+        baseClasses.put("patch", "com.avrix.agent.ClassTransformer");
+        baseClasses.put("listener", "com.avrix.events.Event");
+        baseClasses.put("command", "com.avrix.commands.Command");
+
+        for (String type : baseClasses.keySet()) {
+            indexedClasses.put(type, new TreeSet<>());
+        }
+    }
+
+    /**
+     * Getting the latest supported source version, the processor does not depend on language features.
+     *
+     * @return the latest source version
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Collects the indexed classes of the round and writes the index after the last round.
+     *
+     * @param annotations the annotation types requested to be processed
+     * @param roundEnv    environment for information about the current and prior round
+     * @return {@code false}, the annotations are not claimed
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            collect(element);
+        }
+        return false;
+    }
+
+    /**
+     * Adds the class and its nested classes to the index if they are concrete descendants of an indexed base class.
+     *
+     * @param element the element of the class
+     */
+    private void collect(Element element) {
+        if (!(element instanceof TypeElement typeElement)) return;
+
+        for (String type : baseClasses.keySet()) {
+            if (isIndexed(typeElement, type)) {
+                indexedClasses.get(type).add(processingEnv.getElementUtils().getBinaryName(typeElement).toString());
+            }
+        }
+
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            collect(enclosed);
+        }
+    }
+
+    /**
+     * Checks whether the class is a concrete descendant of the base class of the index type.
+     *
+     * @param typeElement the element of the class
+     * @param type        the index type
+     * @return true if the class belongs to the index type
+     */
+    private boolean isIndexed(TypeElement typeElement, String type) {
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) return false;
+
+        TypeElement baseClass = processingEnv.getElementUtils().getTypeElement(baseClasses.get(type));
+        if (baseClass == null) return false;
+
+        TypeMirror classType = processingEnv.getTypeUtils().erasure(typeElement.asType());
+        return processingEnv.getTypeUtils().isSubtype(classType, processingEnv.getTypeUtils().erasure(baseClass.asType()));
+    }
+
+    /**
+     * Adds the classes of the index left in the class output by the previous compilation, if they still exist and are still indexed.
+     * A full build starts without an index, so nothing is added.
+     */
+    private void readPreviousIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_PATH);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split("\\s+");
+                    if (line.startsWith("#") || parts.length != 2 || !indexedClasses.containsKey(parts[0])) continue;
+
+                    // The binary name of a nested class is 'Outer$Inner', its canonical name 'Outer.Inner'
+                    TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(parts[1].replace('$', '.'));
+                    if (typeElement != null && isIndexed(typeElement, parts[0])) {
+                        indexedClasses.get(parts[0]).add(parts[1]);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index
+        }
+    }
+
+    /**
+     * Writes the collected classes to the index file.
+     */
+    private void writeIndex() {
+        readPreviousIndex();
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_PATH);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# Avrix class index, generated at build time\n");
+                for (Map.Entry<String, Set<String>> entry : indexedClasses.entrySet()) {
+                    for (String className : entry.getValue()) {
+                        writer.write(entry.getKey() + " " + className + "\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Failed to write the Avrix class index: " + e.getMessage());
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.avrix;
 
 import com.avrix.agent.AgentLoader;
+import com.avrix.api.server.ChatUtils;
+import com.avrix.commands.CommandsManager;
+import com.avrix.commands.EventMetricsCommand;
+import com.avrix.commands.EventWatchdogCommand;
+import com.avrix.commands.MethodProbesCommand;
+import com.avrix.commands.PatchesCommand;
+import com.avrix.commands.ReloadPluginCommand;
+import com.avrix.events.EventManager;
+import com.avrix.events.EventMetrics;
+import com.avrix.events.OnListenerThrottledEvent;
 import com.avrix.logs.LineReadingOutputStream;
 import com.avrix.plugin.PluginManager;
 import com.avrix.plugin.ResourceManager;
+import com.avrix.utils.Constants;
 import com.avrix.utils.PatchUtils;
 import com.avrix.utils.ReleaseUtils;
+import com.avrix.utils.StartupTracer;
 import org.tinylog.Logger;
 import zombie.gameStates.MainScreenState;
 import zombie.network.GameServer;
 
 import java.io.PrintStream;
+import java.nio.file.Paths;
 
 /**
  * The Launcher class serves as the entry point for the application.
@@ -26,19 +39,48 @@ public class Launcher {
         System.setOut(new PrintStream(new LineReadingOutputStream(Logger::info), true));
         System.setErr(new PrintStream(new LineReadingOutputStream(Logger::error), true));
 
-        ReleaseUtils.checkLatestVersion();
-        
-        AgentLoader.loadAgent();
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "checkLatestVersion")) {
+            ReleaseUtils.checkLatestVersion();
+        }
+
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "loadAgent")) {
+            AgentLoader.loadAgent();
+        }
+
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "applyDefaultPatches")) {
+            PatchUtils.applyDefaultPatches();
+        }
 
-        PatchUtils.applyDefaultPatches();
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "initResources")) {
+            ResourceManager.init();
+        }
+
+        CommandsManager.addCommand(new EventMetricsCommand());
+        CommandsManager.addCommand(new EventWatchdogCommand());
+        CommandsManager.addCommand(new MethodProbesCommand());
+        CommandsManager.addCommand(new PatchesCommand());
+        CommandsManager.addCommand(new ReloadPluginCommand());
+
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "loadPlugins")) {
+            PluginManager.loadPlugins();
+        }
 
-        ResourceManager.init();
+        EventMetrics.startDumping(Paths.get(Constants.METRICS_DIR_NAME, "event-metrics.txt"), EventMetricsCommand.DEFAULT_LIMIT);
 
-        PluginManager.loadPlugins();
+        StartupTracer.finish(Paths.get(Constants.METRICS_DIR_NAME, "startup-trace.json"));
 
         switch (System.getProperty("avrix.mode")) {
             case "client" -> MainScreenState.main(args);
-            case "server" -> GameServer.main(args);
+            case "server" -> {
+                EventManager.addListener(new OnListenerThrottledEvent() {
+                    @Override
+                    public void handleEvent(String eventName, String pluginId, String listenerClass, String action) {
+                        ChatUtils.sendMessageToAdmins(String.format("[Avrix] Listener %s (%s) exceeded the budget of %s: %s",
+                                listenerClass, pluginId, eventName, action));
+                    }
+                });
+                GameServer.main(args);
+            }
         }
     }
 }
\ No newline at end of file
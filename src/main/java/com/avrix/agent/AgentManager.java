@@ -4,63 +4,280 @@ import javassist.ByteArrayClassPath;
 import javassist.ClassPool;
 
 import java.lang.instrument.Instrumentation;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class for managing agents designed to modify classes at runtime.
+ * <p>
+ * Modified classes can be collected in a batch (see {@link #beginBatch()} and {@link #commitBatch()}) and retransformed
+ * by a single {@link Instrumentation#retransformClasses(Class[])} call, so that the JVM reaches a safepoint and
+ * deoptimizes dependent code once for all patches instead of once per class. Outside a batch, each class is retransformed immediately.
+ * Batching can be disabled with the {@code avrix.agent.batchRetransform=false} system property to compare startup times.
+ * <p>
+ * Classes that are not loaded yet are not retransformed at all: a persistent {@link AgentTransformer} installs the
+ * modified class when the class is defined, so the class is loaded once, already patched, and only when the game uses it.
+ * Define-time patching can be disabled with the {@code avrix.agent.defineTimePatching=false} system property,
+ * in which case every modified class is loaded and retransformed.
+ * <p>
+ * A modification can be undone with {@link #revertClass(String)}: the modified class is forgotten and the loaded class
+ * is retransformed, so the JVM restores the original class file it has kept since the class was defined.
  */
 public class AgentManager {
-    private static final Map<String, byte[]> modifyMap = new HashMap<>(); // Repository of modified classes
+    /**
+     * Whether modified classes are retransformed in batches
+     */
+    private static final boolean BATCH_RETRANSFORM = Boolean.parseBoolean(System.getProperty("avrix.agent.batchRetransform", "true"));
+
+    /**
+     * Whether classes that are not loaded yet are patched when they are defined
+     */
+    private static final boolean DEFINE_TIME_PATCHING = Boolean.parseBoolean(System.getProperty("avrix.agent.defineTimePatching", "true"));
+
+    private static final Map<String, byte[]> modifyMap = new ConcurrentHashMap<>(); // Repository of modified classes
+    private static final Map<String, byte[]> defineMap = new ConcurrentHashMap<>(); // Modified classes installed when they are defined
+    private static final Map<String, byte[]> installedMap = new ConcurrentHashMap<>(); // Modified classes installed in the JVM
+    private static final Map<String, byte[]> pendingMap = new LinkedHashMap<>(); // Modified classes waiting for retransformation
+    private static final Map<String, ByteArrayClassPath> classPaths = new HashMap<>(); // Class paths with the modified classes in the ClassPool
     private static final AgentTransformer agentTransformer = new AgentTransformer(); // Transformer for agent
+    private static int batchDepth; // Number of nested batches being collected
+    private static boolean transformerInstalled; // Whether the agent transformer is registered
 
     /**
-     * Method for getting a modified class by its name.
+     * Getting a modified class when it is being defined.
+     * Called by the agent transformer without locking, since classes may be defined on any thread.
      *
      * @param className Class name
-     * @return Modified class as a byte array
+     * @return Modified class as a byte array, or {@code null} if the class has not been modified
      */
-    public synchronized static byte[] getModifyClass(String className) {
-        try {
-            return modifyMap.remove(className);
-        } catch (Exception e) {
-            return null;
+    static byte[] getDefineClass(String className) {
+        byte[] bytecode = defineMap.remove(className);
+        if (bytecode != null) {
+            installedMap.put(className, bytecode);
+        }
+        return bytecode;
+    }
+
+    /**
+     * Getting a modified class when it is being retransformed. If there is no new modification of the class,
+     * the installed modification is returned, so that retransformations made by other agents keep the patches.
+     *
+     * @param className Class name
+     * @return Modified class as a byte array, or {@code null} if the class has not been modified
+     */
+    static byte[] getRetransformClass(String className) {
+        byte[] bytecode = modifyMap.remove(className);
+        if (bytecode != null) {
+            installedMap.put(className, bytecode);
+            return bytecode;
+        }
+        return installedMap.get(className);
+    }
+
+    /**
+     * Starts collecting modified classes into a batch. Batches can be nested, the classes are retransformed
+     * when the outermost batch is committed.
+     */
+    public synchronized static void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Finishes the current batch. If it is the outermost batch, all collected classes are retransformed in a single pass.
+     */
+    public synchronized static void commitBatch() {
+        if (batchDepth > 0) {
+            batchDepth--;
+        }
+
+        if (batchDepth == 0) {
+            retransformPending();
         }
     }
 
     /**
      * Transforming a class by its name using a new class as a byte array.
+     * Inside a batch, the class is retransformed when the batch is committed.
      *
      * @param className Name of the class to modify
      * @param newClass  Modified class file as a byte array
      */
     public synchronized static void transformClass(String className, byte[] newClass) {
+        // Subsequent patches of the same class are applied on top of the modified class
+        ClassPool pool = ClassPool.getDefault();
+        ByteArrayClassPath classPath = new ByteArrayClassPath(className, newClass);
+        ByteArrayClassPath previous = classPaths.put(className, classPath);
+        if (previous != null) {
+            pool.removeClassPath(previous);
+        }
+        pool.insertClassPath(classPath);
+
+        pendingMap.put(className, newClass);
+
+        if (batchDepth == 0 || !BATCH_RETRANSFORM) {
+            retransformPending();
+        }
+    }
+
+    /**
+     * Reverts the modifications of the class. A loaded class is retransformed to its original bytecode,
+     * a class that is not loaded yet will be loaded unmodified.
+     *
+     * @param className Name of the class to revert
+     * @return true if the modifications have been removed from the loaded class
+     */
+    public synchronized static boolean revertClass(String className) {
+        pendingMap.remove(className);
+        defineMap.remove(className);
+        modifyMap.remove(className);
+
+        ByteArrayClassPath classPath = classPaths.remove(className);
+        if (classPath != null) {
+            ClassPool.getDefault().removeClassPath(classPath);
+        }
+
+        byte[] installedClass = installedMap.remove(className);
+        Instrumentation instrumentation = Agent.instrumentation;
+        if (installedClass == null || instrumentation == null) return false;
+
+        Class<?> clazz = getLoadedClasses(instrumentation, Set.of(className)).get(className);
+        if (clazz == null) return false;
+
         try {
-            ClassPool pool = ClassPool.getDefault();
-            pool.removeClassPath(new ByteArrayClassPath(className, pool.get(className).toBytecode()));
-            pool.insertClassPath(new ByteArrayClassPath(className, newClass));
+            // Without an installed modification the agent transformer keeps the original class file
+            instrumentation.retransformClasses(clazz);
+            return true;
+        } catch (Throwable e) {
+            installedMap.put(className, installedClass);
+            System.err.printf("[!] Failed to revert class '%s'. Reason: %s%n", className, e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
 
-            Class<?> clazz = Class.forName(className);
+    /**
+     * Retransforms all collected classes, using a single {@link Instrumentation#retransformClasses(Class[])} call.
+     * Classes that are not loaded yet are left to the agent transformer, which installs them when they are defined.
+     * If the batch fails, the classes are retransformed one by one, so that only the faulty class is skipped.
+     */
+    private static void retransformPending() {
+        if (pendingMap.isEmpty()) return;
 
-            Instrumentation instrumentation = Agent.instrumentation;
+        long startTime = System.nanoTime();
+        Instrumentation instrumentation = Agent.instrumentation;
+        Map<Class<?>, byte[]> classes = new LinkedHashMap<>();
+        Map<String, Class<?>> loadedClasses = null;
 
-            if (instrumentation != null && instrumentation.isModifiableClass(clazz)) {
-                modifyMap.put(clazz.getCanonicalName(), newClass);
-                instrumentation.addTransformer(agentTransformer, true);
-                instrumentation.retransformClasses(clazz);
-                instrumentation.removeTransformer(agentTransformer);
-            } else {
-                if (instrumentation == null) {
-                    System.err.println("[!] Failed to modify class: " + clazz.getCanonicalName() + " because instrumentation is null.");
-                } else if (!instrumentation.isModifiableClass(clazz)) {
-                    System.err.println("[!] Failed to modify class: " + clazz.getCanonicalName() + " because the class is not modifiable.");
+        if (instrumentation != null && DEFINE_TIME_PATCHING) {
+            installTransformer(instrumentation);
+
+            // The classes are published before looking for loaded ones, so a class defined in between is patched by the transformer
+            defineMap.putAll(pendingMap);
+            loadedClasses = getLoadedClasses(instrumentation, pendingMap.keySet());
+        }
+
+        int deferredCount = 0;
+        for (Map.Entry<String, byte[]> entry : pendingMap.entrySet()) {
+            String className = entry.getKey();
+
+            if (loadedClasses != null && !loadedClasses.containsKey(className)) {
+                deferredCount++;
+                continue;
+            }
+
+            try {
+                Class<?> clazz = loadedClasses != null ? loadedClasses.get(className) : Class.forName(className);
+                defineMap.remove(className);
+
+                if (instrumentation != null && instrumentation.isModifiableClass(clazz)) {
+                    modifyMap.put(clazz.getName(), entry.getValue());
+                    classes.put(clazz, entry.getValue());
+                } else if (instrumentation == null) {
+                    System.err.println("[!] Failed to modify class: " + className + " because instrumentation is null.");
                 } else {
-                    System.err.println("[!] Failed to modify class: " + clazz.getCanonicalName() + " due to unknown reasons.");
+                    System.err.println("[!] Failed to modify class: " + className + " because the class is not modifiable.");
                 }
+            } catch (Throwable e) {
+                System.err.printf("[!] Failed to modify class '%s'. Reason: %s%n", className, e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        pendingMap.clear();
+
+        if (deferredCount > 0) {
+            System.out.printf("[#] %d classes will be patched when they are loaded%n", deferredCount);
+        }
+
+        if (classes.isEmpty()) return;
+
+        installTransformer(instrumentation);
+        try {
+            instrumentation.retransformClasses(classes.keySet().toArray(new Class<?>[0]));
+        } catch (Throwable e) {
+            if (classes.size() == 1) {
+                System.err.printf("[!] Failed to modify class '%s'. Reason: %s%n", classes.keySet().iterator().next().getName(), e.getMessage());
+                e.printStackTrace();
+            } else {
+                System.err.printf("[!] Failed to retransform %d classes in one pass, retrying one by one. Reason: %s%n", classes.size(), e.getMessage());
+                retransformEach(instrumentation, classes);
+            }
+        } finally {
+            for (Class<?> clazz : classes.keySet()) {
+                modifyMap.remove(clazz.getName());
+            }
+        }
+
+        if (classes.size() > 1) {
+            System.out.printf("[#] Retransformed %d classes in %.1f ms%n", classes.size(), (System.nanoTime() - startTime) / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Registers the agent transformer, which stays registered to patch classes when they are defined or retransformed.
+     *
+     * @param instrumentation the instrumentation of the agent
+     */
+    private static void installTransformer(Instrumentation instrumentation) {
+        if (transformerInstalled) return;
+
+        instrumentation.addTransformer(agentTransformer, true);
+        transformerInstalled = true;
+    }
+
+    /**
+     * Finds the loaded classes with the given names.
+     *
+     * @param instrumentation the instrumentation of the agent
+     * @param classNames      the names of the classes
+     * @return the loaded classes by their names
+     */
+    private static Map<String, Class<?>> getLoadedClasses(Instrumentation instrumentation, Set<String> classNames) {
+        Map<String, Class<?>> result = new HashMap<>();
+        for (Class<?> clazz : instrumentation.getAllLoadedClasses()) {
+            if (classNames.contains(clazz.getName())) {
+                result.put(clazz.getName(), clazz);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retransforms the classes one by one.
+     *
+     * @param instrumentation the instrumentation of the agent
+     * @param classes         the classes to retransform and their modified bytes
+     */
+    private static void retransformEach(Instrumentation instrumentation, Map<Class<?>, byte[]> classes) {
+        for (Map.Entry<Class<?>, byte[]> entry : classes.entrySet()) {
+            Class<?> clazz = entry.getKey();
+            modifyMap.put(clazz.getName(), entry.getValue());
+
+            try {
+                instrumentation.retransformClasses(clazz);
+            } catch (Throwable e) {
+                System.err.printf("[!] Failed to modify class '%s'. Reason: %s%n", clazz.getName(), e.getMessage());
+                e.printStackTrace();
             }
-        } catch (Exception e) {
-            System.err.printf("[!] Failed to modify class '%s'. Reason: %s%n", className, e.getMessage());
-            e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
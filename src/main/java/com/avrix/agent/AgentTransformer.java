@@ -12,7 +12,8 @@ public class AgentTransformer implements ClassFileTransformer {
     /**
      * The transform method is called for each class that is loaded into the JVM.
      * It takes the byte code of the original class and returns the modified byte code.
-     * This method implementation calls the getModifyClass method of the {@link AgentManager} class to obtain the modified byte code of the class.
+     * When the class is being defined, the modified byte code registered in the {@link AgentManager} is installed,
+     * so the class is loaded already patched. When the class is being retransformed, the latest modification is returned.
      *
      * @param loader              class of the loader that loads this class
      * @param className           full class name in class path format (delimited by '/')
@@ -24,6 +25,9 @@ public class AgentTransformer implements ClassFileTransformer {
      */
     @Override
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
-        return AgentManager.getModifyClass(className.replaceAll("/", "."));
+        if (className == null) return null;
+
+        String name = className.replace('/', '.');
+        return classBeingRedefined == null ? AgentManager.getDefineClass(name) : AgentManager.getRetransformClass(name);
     }
 }
\ No newline at end of file
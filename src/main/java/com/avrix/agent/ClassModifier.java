@@ -6,8 +6,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.*;
 import java.util.function.BiConsumer;
 
 /**
@@ -16,6 +15,7 @@ import java.util.function.BiConsumer;
 public final class ClassModifier {
     private final String className; // Path to class
     private CtClass ctClass; // Represents a modifiable class
+    private byte[] bytecode; // Bytecode of the modified class, available after the modifications are applied
 
     /**
      * Constructor for creating a {@link ClassModifier} object.
@@ -32,18 +32,54 @@ public final class ClassModifier {
      */
     public void applyModifications() {
         try {
-            AgentManager.transformClass(this.className, this.ctClass.toBytecode());
+            AgentManager.transformClass(this.className, compile());
         } catch (Exception e) {
             System.out.println("[!] Error when trying to apply a modification: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Compiling the modified class into bytecode without installing it.
+     * Calls of the {@link com.avrix.events.EventHooks} hooks are linked as {@code invokedynamic} call sites (see {@link EventHookLinker}).
+     * The class can then be installed with {@link AgentManager#transformClass(String, byte[])}.
+     *
+     * @return the bytecode of the modified class
+     */
+    public byte[] compile() {
+        if (this.bytecode != null) return this.bytecode;
+
+        try {
+            EventHookLinker.link(this.ctClass);
+            this.bytecode = this.ctClass.toBytecode();
+            return this.bytecode;
+        } catch (Exception e) {
+            System.out.printf("[!] Error when trying to compile class '%s'. Reason: %s%n", this.className, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Getting the bytecode of the modified class.
+     *
+     * @return the bytecode of the modified class, or {@code null} if the modifications have not been applied yet
+     */
+    public byte[] getBytecode() {
+        return bytecode;
+    }
+
     /**
      * A class that implements the Builder pattern to create a {@link ClassModifier} object
      */
     public static class ClassModifierBuilder {
+        /**
+         * Name of the local variable holding the entry time of a probed method
+         */
+        private static final String PROBE_START_VARIABLE = "avrixProbeStart";
+
         private final ClassModifier classModifier; // {@link ClassModifier} object
+        private final Set<String> modifiedMembers = new LinkedHashSet<>(); // Names of the modified members, e.g. 'zombie.GameWindow.init()'
+        private ClassPool classPool; // Class pool of the modified class, the default pool if not set
 
         /**
          * Builder constructor for class {@link ClassModifier}
@@ -62,7 +98,68 @@ public final class ClassModifier {
          * @throws NotFoundException if the class is not found
          */
         private synchronized CtClass getCtClass(String className) throws NotFoundException {
-            return this.classModifier.ctClass == null ? ClassPool.getDefault().get(className) : this.classModifier.ctClass;
+            if (this.classModifier.ctClass != null) return this.classModifier.ctClass;
+
+            return (this.classPool != null ? this.classPool : ClassPool.getDefault()).get(className);
+        }
+
+        /**
+         * Sets the class pool from which the modified class is taken. Patches of different classes can be compiled
+         * concurrently, each with its own class pool, instead of sharing {@link ClassPool#getDefault()}.
+         * Must be called before the first modification.
+         *
+         * @param classPool the class pool, or {@code null} to use the default class pool
+         * @return the {@link ClassModifierBuilder} instance for the call chain
+         */
+        public ClassModifierBuilder setClassPool(ClassPool classPool) {
+            this.classPool = classPool;
+            return this;
+        }
+
+        /**
+         * Continues the modifications of another builder of the same class, so the modifications of several patches
+         * are applied to one {@link CtClass} and compiled once. Must be called before the first modification.
+         *
+         * @param previous the builder whose modified class is modified further
+         * @return the {@link ClassModifierBuilder} instance for the call chain
+         */
+        public ClassModifierBuilder continueFrom(ClassModifierBuilder previous) {
+            if (previous.classModifier.ctClass != null) {
+                this.classModifier.ctClass = previous.classModifier.ctClass;
+            }
+            return this;
+        }
+
+        /**
+         * Discards all modifications, so that the patch can be applied again from scratch, e.g. to another version of the class.
+         *
+         * @return the {@link ClassModifierBuilder} instance for the call chain
+         */
+        public synchronized ClassModifierBuilder reset() {
+            this.classModifier.ctClass = null;
+            this.classModifier.bytecode = null;
+            this.modifiedMembers.clear();
+            this.classPool = null;
+            return this;
+        }
+
+        /**
+         * Checks whether any modifications have been made, i.e. whether the {@link ClassModifier} can be built.
+         *
+         * @return true if the class has been modified
+         */
+        public boolean isModified() {
+            return this.classModifier.ctClass != null;
+        }
+
+        /**
+         * Getting the names of the members modified by this builder, e.g. 'zombie.GameWindow.init()' for a method
+         * or 'zombie.GameWindow.fps' for a field.
+         *
+         * @return the names of the modified members in the order of modification
+         */
+        public Set<String> getModifiedMembers() {
+            return Collections.unmodifiableSet(modifiedMembers);
         }
 
         /**
@@ -96,6 +193,7 @@ public final class ClassModifier {
             try {
                 CtClass modifyClass = getCtClass(this.classModifier.className);
                 CtConstructor constructor = modifyClass.getConstructor(descriptor);
+                this.modifiedMembers.add(constructor.getLongName());
                 applyBiConsumer(constructorModifier, modifyClass, constructor);
             } catch (Exception e) {
                 System.out.printf("[!] An error occurred while modifying constructor '%s' of class '%s'. Reason: %s%n", descriptor, this.classModifier.className, e.getMessage());
@@ -116,6 +214,7 @@ public final class ClassModifier {
             try {
                 CtClass modifyClass = getCtClass(this.classModifier.className);
                 CtConstructor constructor = modifyClass.getDeclaredConstructor(paramTypes);
+                this.modifiedMembers.add(constructor.getLongName());
                 applyBiConsumer(constructorModifier, modifyClass, constructor);
             } catch (Exception e) {
                 System.out.printf("[!] An error occurred while modifying declared constructor '%s' of class '%s'. Reason: %s%n", Arrays.asList(paramTypes), this.classModifier.className, e.getMessage());
@@ -148,6 +247,7 @@ public final class ClassModifier {
             try {
                 CtClass modifyClass = getCtClass(this.classModifier.className);
                 CtField field = !descriptor.isEmpty() ? modifyClass.getDeclaredField(fieldName, descriptor) : modifyClass.getDeclaredField(fieldName);
+                this.modifiedMembers.add(field.getDeclaringClass().getName() + "." + field.getName());
                 applyBiConsumer(fieldModifier, modifyClass, field);
             } catch (Exception e) {
                 System.out.printf("[!] An error occurred while patching class '%s'. Reason: %s%n", this.classModifier.className, e.getMessage());
@@ -180,6 +280,7 @@ public final class ClassModifier {
             try {
                 CtClass modifyClass = getCtClass(this.classModifier.className);
                 CtField field = !descriptor.isEmpty() ? modifyClass.getField(fieldName, descriptor) : modifyClass.getField(fieldName);
+                this.modifiedMembers.add(field.getDeclaringClass().getName() + "." + field.getName());
                 applyBiConsumer(fieldModifier, modifyClass, field);
             } catch (Exception e) {
                 System.out.printf("[!] An error occurred while patching class '%s'. Reason: %s%n", this.classModifier.className, e.getMessage());
@@ -219,6 +320,7 @@ public final class ClassModifier {
                     ctMethod = modifyClass.getDeclaredMethod(methodName, getMethodParameterTypes(modifyClass.getClassPool(), methodSignature));
                 }
 
+                this.modifiedMembers.add(ctMethod.getLongName());
                 applyBiConsumer(methodModifier, modifyClass, ctMethod);
             } catch (Exception e) {
                 System.out.printf("[!] An error occurred while patching class '%s'. Reason: %s%n", this.classModifier.className, e.getMessage());
@@ -228,6 +330,41 @@ public final class ClassModifier {
             return this;
         }
 
+        /**
+         * Adds a probe measuring the time of each call of the method, recorded in {@link MethodProbes}
+         * under the name of the method, e.g. 'zombie.iso.IsoCell.update()'.
+         *
+         * @param methodName name of the probed method
+         * @return the {@link ClassModifierBuilder} instance for the call chain
+         */
+        public ClassModifierBuilder addProbe(String methodName) {
+            return addProbe(methodName, null);
+        }
+
+        /**
+         * Adds a probe measuring the time of each call of the method, recorded in {@link MethodProbes}
+         * under the name of the method, e.g. 'zombie.iso.IsoCell.update()'.
+         *
+         * @param methodName      name of the probed method
+         * @param methodSignature the method signature in a format suitable for searching for method overloads (e.g. "int, String"),
+         *                        or {@code null} to probe the method with the given name
+         * @return the {@link ClassModifierBuilder} instance for the call chain
+         */
+        public ClassModifierBuilder addProbe(String methodName, String methodSignature) {
+            return modifyMethod(methodName, methodSignature, (ctClass, ctMethod) -> {
+                try {
+                    String probeName = ctMethod.getLongName();
+
+                    // The exit is inserted first, so that the handler of the 'finally' block does not cover the assignment on entry
+                    ctMethod.addLocalVariable(PROBE_START_VARIABLE, CtClass.longType);
+                    ctMethod.insertAfter(MethodProbes.class.getName() + ".record(\"" + probeName + "\", " + PROBE_START_VARIABLE + ");", true);
+                    ctMethod.insertBefore(PROBE_START_VARIABLE + " = System.nanoTime();");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
         /**
          * Retrieving the types of method parameters based on its signature.
          *
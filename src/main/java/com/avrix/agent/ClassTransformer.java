@@ -35,6 +35,16 @@ public abstract class ClassTransformer {
         return className;
     }
 
+    /**
+     * Getting the data, besides the code of the patch, on which the result of the patch depends, e.g. its configuration.
+     * The data is a part of the key of the patch cache, so the cached class is not used when the data changes.
+     *
+     * @return the data of the patch, empty by default
+     */
+    public String getFingerprint() {
+        return "";
+    }
+
     /**
      * Method for performing class modification.
      * The implementing method must contain the logic for modifying the target class.
@@ -48,4 +58,24 @@ public abstract class ClassTransformer {
     public final void applyModifications() {
         modifierBuilder.build().applyModifications();
     }
+
+    /**
+     * Compiling the modifications without installing the modified class.
+     * Called after the {@link #modifyClass()} method is called
+     *
+     * @return the bytecode of the modified class
+     */
+    public final byte[] compileModifications() {
+        return modifierBuilder.build().compile();
+    }
+
+    /**
+     * Getting the bytecode of the modified class.
+     * Available after the {@link #applyModifications()} or {@link #compileModifications()} method is called
+     *
+     * @return the bytecode of the modified class, or {@code null} if the modifications have not been applied yet
+     */
+    public final byte[] getBytecode() {
+        return modifierBuilder.build().getBytecode();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.avrix.agent;
+
+import com.avrix.events.EventHooks;
+import javassist.CtClass;
+import javassist.bytecode.*;
+import javassist.bytecode.analysis.ControlFlow;
+
+import java.util.*;
+
+/**
+ * Replaces the calls of the {@link EventHooks} hook methods in a modified class by {@code invokedynamic} instructions
+ * bootstrapped by {@link EventHooks#bootstrap}, so hooks of events without listeners cost nothing in game methods.
+ * <p>
+ * A call is replaced when the event identifier, the last argument, is an integer constant pushed right before the call.
+ * Other calls, and all calls in classes older than Java 7, are left to the hook methods, which raise the event themselves.
+ */
+final class EventHookLinker {
+    /**
+     * Name of the {@link EventHooks} class
+     */
+    private static final String HOOKS_CLASS_NAME = EventHooks.class.getName();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventHookLinker() {
+    }
+
+    /**
+     * Replaces the hook calls in all methods of the class.
+     *
+     * @param ctClass the modified class
+     * @return the number of replaced calls
+     * @throws BadBytecode if the bytecode of a method cannot be analyzed
+     */
+    static int link(CtClass ctClass) throws BadBytecode {
+        ClassFile classFile = ctClass.getClassFile();
+        if (!EventHooks.LINK_HOOKS || classFile.getMajorVersion() < ClassFile.JAVA_7) return 0;
+
+        int linked = 0;
+        Map<Integer, Integer> bootstrapIndexes = new HashMap<>(); // Bootstrap method indexes by event identifier
+
+        for (MethodInfo methodInfo : classFile.getMethods()) {
+            CodeAttribute codeAttribute = methodInfo.getCodeAttribute();
+            if (codeAttribute == null) continue;
+
+            List<int[]> hookCalls = findHookCalls(classFile.getConstPool(), codeAttribute);
+            if (hookCalls.isEmpty()) continue;
+
+            // A call whose event identifier is chosen by a branch cannot be replaced
+            Set<Integer> blockStarts = new HashSet<>();
+            for (ControlFlow.Block block : new ControlFlow(ctClass, methodInfo).basicBlocks()) {
+                blockStarts.add(block.position());
+            }
+            hookCalls.removeIf(call -> blockStarts.contains(call[1]));
+            if (hookCalls.isEmpty()) continue;
+
+            // From the last call, so inserted gaps do not move the calls that are still to be replaced
+            CodeIterator iterator = codeAttribute.iterator();
+            for (int i = hookCalls.size() - 1; i >= 0; i--) {
+                int[] hookCall = hookCalls.get(i);
+                int bootstrapIndex = bootstrapIndexes.computeIfAbsent(hookCall[2], eventId -> addBootstrapMethod(classFile, eventId));
+                replaceHookCall(classFile.getConstPool(), iterator, hookCall, bootstrapIndex);
+                linked++;
+            }
+
+            methodInfo.rebuildStackMapIf6(ctClass.getClassPool(), classFile);
+        }
+
+        return linked;
+    }
+
+    /**
+     * Finds the hook calls preceded by the push of a constant event identifier.
+     *
+     * @param constPool     the constant pool of the class
+     * @param codeAttribute the code of the method
+     * @return the positions of the constant push and of the call, and the event identifier, for each call
+     * @throws BadBytecode if the bytecode cannot be read
+     */
+    private static List<int[]> findHookCalls(ConstPool constPool, CodeAttribute codeAttribute) throws BadBytecode {
+        List<int[]> hookCalls = new ArrayList<>();
+        CodeIterator iterator = codeAttribute.iterator();
+        int previous = -1;
+
+        while (iterator.hasNext()) {
+            int index = iterator.next();
+
+            if (iterator.byteAt(index) == Opcode.INVOKESTATIC && previous >= 0) {
+                int methodIndex = iterator.u16bitAt(index + 1);
+                if (HOOKS_CLASS_NAME.equals(constPool.getMethodrefClassName(methodIndex))
+                        && EventHooks.HOOK_METHOD_NAME.equals(constPool.getMethodrefName(methodIndex))) {
+                    Integer eventId = getIntConstant(constPool, iterator, previous);
+                    if (eventId != null) {
+                        hookCalls.add(new int[]{previous, index, eventId});
+                    }
+                }
+            }
+
+            previous = index;
+        }
+
+        return hookCalls;
+    }
+
+    /**
+     * Reads the integer constant pushed by the instruction.
+     *
+     * @param constPool the constant pool of the class
+     * @param iterator  the iterator over the code of the method
+     * @param index     the position of the instruction
+     * @return the pushed constant, or {@code null} if the instruction does not push an integer constant
+     */
+    private static Integer getIntConstant(ConstPool constPool, CodeIterator iterator, int index) {
+        int opcode = iterator.byteAt(index);
+
+        if (opcode >= Opcode.ICONST_M1 && opcode <= Opcode.ICONST_5) return opcode - Opcode.ICONST_0;
+        if (opcode == Opcode.BIPUSH) return (int) (byte) iterator.byteAt(index + 1);
+        if (opcode == Opcode.SIPUSH) return iterator.s16bitAt(index + 1);
+
+        int constIndex = opcode == Opcode.LDC ? iterator.byteAt(index + 1) : opcode == Opcode.LDC_W ? iterator.u16bitAt(index + 1) : -1;
+        if (constIndex > 0 && constPool.getTag(constIndex) == ConstPool.CONST_Integer) {
+            return constPool.getIntegerInfo(constIndex);
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the constant push and the hook call by an {@code invokedynamic} instruction taking the same arguments
+     * without the event identifier, which is the static argument of the bootstrap method.
+     *
+     * @param constPool      the constant pool of the class
+     * @param iterator       the iterator over the code of the method
+     * @param hookCall       the positions of the constant push and of the call, and the event identifier
+     * @param bootstrapIndex the index of the bootstrap method of the event in the 'BootstrapMethods' attribute
+     * @throws BadBytecode if a gap cannot be inserted
+     */
+    private static void replaceHookCall(ConstPool constPool, CodeIterator iterator, int[] hookCall, int bootstrapIndex) throws BadBytecode {
+        int pushIndex = hookCall[0];
+        int callIndex = hookCall[1];
+
+        // The hook descriptor without the trailing event identifier, e.g. '(Ljava/lang/Object;I)V' -> '(Ljava/lang/Object;)V'
+        String hookDescriptor = constPool.getMethodrefType(iterator.u16bitAt(callIndex + 1));
+        String siteDescriptor = hookDescriptor.substring(0, hookDescriptor.length() - "I)V".length()) + ")V";
+
+        // The invokedynamic instruction takes 5 bytes, an 'iconst' push and the call take only 4
+        int length = callIndex + 3 - pushIndex;
+        if (length < 5) {
+            length += iterator.insertGap(callIndex, 5 - length);
+        }
+
+        int siteIndex = constPool.addInvokeDynamicInfo(bootstrapIndex,
+                constPool.addNameAndTypeInfo(EventHooks.HOOK_METHOD_NAME, siteDescriptor));
+
+        iterator.writeByte(Opcode.INVOKEDYNAMIC, pushIndex);
+        iterator.write16bit(siteIndex, pushIndex + 1);
+        iterator.write16bit(0, pushIndex + 3);
+        for (int i = pushIndex + 5; i < pushIndex + length; i++) {
+            iterator.writeByte(Opcode.NOP, i);
+        }
+    }
+
+    /**
+     * Adds the hook bootstrap method of the event to the 'BootstrapMethods' attribute of the class, keeping the existing bootstrap methods.
+     *
+     * @param classFile the class file
+     * @param eventId   the identifier of the event, passed to {@link EventHooks#bootstrap} as a static argument
+     * @return the index of the added bootstrap method
+     */
+    private static int addBootstrapMethod(ClassFile classFile, int eventId) {
+        ConstPool constPool = classFile.getConstPool();
+        int methodRef = constPool.addMethodrefInfo(constPool.addClassInfo(HOOKS_CLASS_NAME),
+                EventHooks.BOOTSTRAP_METHOD_NAME, EventHooks.BOOTSTRAP_METHOD_DESCRIPTOR);
+        int methodHandle = constPool.addMethodHandleInfo(ConstPool.REF_invokeStatic, methodRef);
+
+        BootstrapMethodsAttribute attribute = (BootstrapMethodsAttribute) classFile.getAttribute(BootstrapMethodsAttribute.tag);
+        BootstrapMethodsAttribute.BootstrapMethod[] methods = attribute != null
+                ? attribute.getMethods() : new BootstrapMethodsAttribute.BootstrapMethod[0];
+
+        BootstrapMethodsAttribute.BootstrapMethod[] updated = new BootstrapMethodsAttribute.BootstrapMethod[methods.length + 1];
+        System.arraycopy(methods, 0, updated, 0, methods.length);
+        updated[methods.length] = new BootstrapMethodsAttribute.BootstrapMethod(methodHandle, new int[]{constPool.addIntegerInfo(eventId)});
+
+        classFile.addAttribute(new BootstrapMethodsAttribute(constPool, updated));
+        return methods.length;
+    }
+}
@@ -0,0 +1,125 @@
+package com.avrix.agent;
+
+import com.avrix.events.EventStats;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store of the timings recorded by method probes, which are injected into game methods
+ * by {@link ClassModifier.ClassModifierBuilder#addProbe(String)} or configured with the {@code avrix.probes}
+ * system property (see {@link ProbeTransformer}).
+ * <p>
+ * Each probe measures the time from the entry to the exit of the method, including exits by an exception,
+ * and records it in an {@link EventStats} without locking or allocating. Recording can be paused
+ * with {@link #setEnabled(boolean)}, the probes then only read the clock on entry.
+ */
+public final class MethodProbes {
+    /**
+     * Date format of the report header
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Map<String, EventStats> probes = new ConcurrentHashMap<>(); // Statistics by probe name
+    private static volatile boolean enabled = true; // Whether probe timings are recorded
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private MethodProbes() {
+    }
+
+    /**
+     * Records the exit of a probed method. Called by the injected probe code.
+     *
+     * @param probeName  the name of the probe, e.g. 'zombie.iso.IsoCell.update()'
+     * @param startNanos the value of {@link System#nanoTime()} at the entry to the method
+     */
+    public static void record(String probeName, long startNanos) {
+        if (!enabled) return;
+
+        long nanos = System.nanoTime() - startNanos;
+        EventStats stats = probes.get(probeName);
+        if (stats == null) {
+            stats = probes.computeIfAbsent(probeName, name -> new EventStats());
+        }
+        stats.record(nanos);
+    }
+
+    /**
+     * Returns the statistics of the probe.
+     *
+     * @param probeName the name of the probe
+     * @return the statistics, or {@code null} if the probed method has not exited yet
+     */
+    public static EventStats getStats(String probeName) {
+        return probes.get(probeName);
+    }
+
+    /**
+     * Checks whether probe timings are recorded.
+     *
+     * @return true if probe timings are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables recording of probe timings.
+     *
+     * @param enable true to record probe timings
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Resets the statistics of all probes.
+     */
+    public static void reset() {
+        for (EventStats stats : probes.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Creates a text report of the probes that took the most time.
+     *
+     * @param limit maximum number of probes in the report
+     * @return the report
+     */
+    public static String getReport(int limit) {
+        List<Map.Entry<String, EventStats>> entries = new ArrayList<>();
+        for (Map.Entry<String, EventStats> entry : probes.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Map.Entry<String, EventStats> e) -> e.getValue().getTotalNanos()).reversed());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Method probes (").append(LocalDateTime.now().format(DATE_FORMAT)).append(", ")
+                .append(enabled ? "enabled" : "disabled").append("), top ").append(limit)
+                .append(" of ").append(entries.size()).append(" by total time:\n");
+
+        for (Map.Entry<String, EventStats> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            EventStats stats = entry.getValue();
+            sb.append(String.format("    - %s: calls=%d, total=%.2f ms, avg=%.2f us, p50<=%d us, p99<=%d us, max=%.2f us%n",
+                    entry.getKey(),
+                    stats.getCount(),
+                    stats.getTotalNanos() / 1_000_000.0,
+                    stats.getAverageNanos() / 1_000.0,
+                    stats.getPercentileNanos(50) / 1_000,
+                    stats.getPercentileNanos(99) / 1_000,
+                    stats.getMaxNanos() / 1_000.0));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.avrix.agent;
+
+import java.util.*;
+
+/**
+ * Patch adding {@link MethodProbes} to methods of a class, configured without writing a custom patch.
+ * <p>
+ * Probes are configured with the {@code avrix.probes} system property, a list of methods separated by ';'
+ * in the form {@code className#methodName} or {@code className#methodName(parameterTypes)}, e.g.
+ * {@code -Davrix.probes=zombie.iso.IsoCell#update;zombie.network.ServerMap#preupdate;zombie.network.GameServer#mainLoopDealWithNetData(zombie.network.GameServer$DelayedConnection)}.
+ */
+public class ProbeTransformer extends ClassTransformer {
+    private final List<String> methods; // Probed methods, in the form 'methodName' or 'methodName(parameterTypes)'
+
+    /**
+     * Constructor for creating a {@link ProbeTransformer} object.
+     *
+     * @param className the full name of the class with the probed methods, e.g. 'zombie.iso.IsoCell'
+     * @param methods   the probed methods, in the form 'methodName' or 'methodName(parameterTypes)'
+     */
+    public ProbeTransformer(String className, List<String> methods) {
+        super(className);
+        this.methods = List.copyOf(methods);
+    }
+
+    /**
+     * Creates the probe patches configured with the {@code avrix.probes} system property.
+     *
+     * @return the probe patches, one per class
+     */
+    public static List<ProbeTransformer> getConfiguredProbes() {
+        return parse(System.getProperty("avrix.probes", ""));
+    }
+
+    /**
+     * Creates the probe patches from the configuration.
+     *
+     * @param config the probed methods separated by ';', in the form 'className#methodName' or 'className#methodName(parameterTypes)'
+     * @return the probe patches, one per class in the order of the configuration
+     */
+    public static List<ProbeTransformer> parse(String config) {
+        Map<String, List<String>> methodsByClass = new LinkedHashMap<>();
+
+        for (String entry : config.split(";")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) continue;
+
+            int separator = entry.indexOf('#');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                System.out.printf("[!] Invalid probe '%s', expected 'className#methodName'%n", entry);
+                continue;
+            }
+
+            methodsByClass.computeIfAbsent(entry.substring(0, separator), className -> new ArrayList<>()).add(entry.substring(separator + 1));
+        }
+
+        List<ProbeTransformer> result = new ArrayList<>();
+        methodsByClass.forEach((className, methods) -> result.add(new ProbeTransformer(className, methods)));
+        return result;
+    }
+
+    /**
+     * Getting the probed methods.
+     *
+     * @return the probed methods, in the form 'methodName' or 'methodName(parameterTypes)'
+     */
+    public List<String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Getting the probed methods, so the cached class is not used when the configuration changes.
+     *
+     * @return the probed methods
+     */
+    @Override
+    public String getFingerprint() {
+        return String.join(";", methods);
+    }
+
+    /**
+     * Adds the probes. A method that cannot be probed (e.g. an abstract method) is reported and skipped.
+     */
+    @Override
+    public void modifyClass() {
+        for (String method : methods) {
+            try {
+                int parametersStart = method.indexOf('(');
+                String methodName = parametersStart < 0 ? method : method.substring(0, parametersStart).trim();
+                String methodSignature = parametersStart < 0 ? null : method.substring(parametersStart + 1, method.lastIndexOf(')')).trim();
+
+                getModifierBuilder().addProbe(methodName, methodSignature == null || methodSignature.isEmpty() ? null : methodSignature);
+                System.out.printf("[#] Added probe to method '%s' of class '%s'%n", method, getClassName());
+            } catch (RuntimeException e) {
+                System.out.printf("[!] Failed to add probe to method '%s' of class '%s'. Reason: %s%n", method, getClassName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -3,10 +3,12 @@ package com.avrix.commands;
 import com.avrix.api.server.PlayerUtils;
 import com.avrix.enums.AccessLevel;
 import com.avrix.enums.CommandScope;
+import com.avrix.plugin.PluginClassLoader;
 import zombie.characters.IsoPlayer;
 import zombie.core.raknet.UdpConnection;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,7 +19,7 @@ public class CommandsManager {
     /**
      * Repository of all custom commands
      */
-    private static final Map<String, Command> commandsMap = new HashMap<>();
+    private static final Map<String, Command> commandsMap = new ConcurrentHashMap<>();
 
     /**
      * Getting a map of registered user commands
@@ -67,13 +69,32 @@ public class CommandsManager {
             commandName = commandName.substring(1);
         }
 
-        if (commandsMap.containsKey(commandName)) {
+        // Plugins may add commands concurrently while they are initialized
+        if (commandsMap.putIfAbsent(commandName, command) != null) {
             System.out.printf("[!] The '%s' command is already registered in the system!%n", commandName);
             return;
         }
 
         System.out.printf("[#] Added new custom command: '%s'%n", commandName);
-        commandsMap.put(commandName, command);
+    }
+
+    /**
+     * Removes all commands of the plugin, e.g. before the plugin is reloaded.
+     * A command belongs to the plugin determined by {@link PluginClassLoader#getPluginId(Class)} for its class.
+     *
+     * @param pluginId ID of the plugin whose commands should be removed
+     * @return the number of removed commands
+     */
+    public static int removeCommands(String pluginId) {
+        int removed = 0;
+        Iterator<Command> iterator = commandsMap.values().iterator();
+        while (iterator.hasNext()) {
+            if (pluginId.equals(PluginClassLoader.getPluginId(iterator.next().getClass()))) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
     }
 
     /**
@@ -0,0 +1,58 @@
+package com.avrix.commands;
+
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import com.avrix.events.EventMetrics;
+import zombie.core.raknet.UdpConnection;
+
+/**
+ * Command for viewing the {@link com.avrix.events.EventManager} dispatch metrics.
+ * <p>
+ * Usage: {@code eventmetrics [limit]} prints the events and listeners that took the most time,
+ * {@code eventmetrics reset} resets the collected metrics, {@code eventmetrics on|off} enables or disables collection.
+ */
+@CommandName("eventmetrics")
+@CommandAccessLevel(AccessLevel.ADMIN)
+@CommandExecutionScope(CommandScope.BOTH)
+@CommandDescription("Shows the time spent by events and their listeners. Usage: eventmetrics [limit|reset|on|off]")
+public class EventMetricsCommand extends Command {
+    /**
+     * Default number of events and listeners in the report
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * Performing a chat command action
+     *
+     * @param playerConnection {@link UdpConnection}, if called from the console, the connection will return as {@code null}
+     * @param args             arguments of the received command
+     * @return message text that will be displayed to the user (or console) when the command is executed
+     */
+    @Override
+    public String onInvoke(UdpConnection playerConnection, String[] args) {
+        if (args.length == 0) {
+            return EventMetrics.getReport(DEFAULT_LIMIT);
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "reset" -> {
+                EventMetrics.reset();
+                return "[#] Event metrics have been reset.";
+            }
+            case "on" -> {
+                EventMetrics.setEnabled(true);
+                return "[#] Event metrics collection is enabled.";
+            }
+            case "off" -> {
+                EventMetrics.setEnabled(false);
+                return "[#] Event metrics collection is disabled.";
+            }
+        }
+
+        try {
+            return EventMetrics.getReport(Math.max(1, Integer.parseInt(args[0])));
+        } catch (NumberFormatException e) {
+            return "[!] Usage: eventmetrics [limit|reset|on|off]";
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.avrix.commands;
+
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import com.avrix.events.EventWatchdog;
+import zombie.core.raknet.UdpConnection;
+
+/**
+ * Command for viewing and restoring listeners throttled by the {@link EventWatchdog}.
+ * <p>
+ * Usage: {@code eventwatchdog} prints the throttled and disabled listeners,
+ * {@code eventwatchdog reset} returns all of them to normal.
+ */
+@CommandName("eventwatchdog")
+@CommandAccessLevel(AccessLevel.ADMIN)
+@CommandExecutionScope(CommandScope.BOTH)
+@CommandDescription("Shows listeners throttled for exceeding event time budgets. Usage: eventwatchdog [reset]")
+public class EventWatchdogCommand extends Command {
+    /**
+     * Performing a chat command action
+     *
+     * @param playerConnection {@link UdpConnection}, if called from the console, the connection will return as {@code null}
+     * @param args             arguments of the received command
+     * @return message text that will be displayed to the user (or console) when the command is executed
+     */
+    @Override
+    public String onInvoke(UdpConnection playerConnection, String[] args) {
+        if (args.length == 0) {
+            return EventWatchdog.getReport();
+        }
+
+        if (args[0].equalsIgnoreCase("reset")) {
+            EventWatchdog.restore();
+            return "[#] All throttled listeners have been restored.";
+        }
+
+        return "[!] Usage: eventwatchdog [reset]";
+    }
+}
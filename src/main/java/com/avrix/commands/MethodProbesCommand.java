@@ -0,0 +1,58 @@
+package com.avrix.commands;
+
+import com.avrix.agent.MethodProbes;
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import zombie.core.raknet.UdpConnection;
+
+/**
+ * Command for viewing the timings of the {@link MethodProbes} injected into game methods.
+ * <p>
+ * Usage: {@code methodprobes [limit]} prints the probed methods that took the most time,
+ * {@code methodprobes reset} resets the timings, {@code methodprobes on|off} enables or disables recording.
+ */
+@CommandName("methodprobes")
+@CommandAccessLevel(AccessLevel.ADMIN)
+@CommandExecutionScope(CommandScope.BOTH)
+@CommandDescription("Shows the time spent in probed methods. Usage: methodprobes [limit|reset|on|off]")
+public class MethodProbesCommand extends Command {
+    /**
+     * Default number of probes in the report
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * Performing a chat command action
+     *
+     * @param playerConnection {@link UdpConnection}, if called from the console, the connection will return as {@code null}
+     * @param args             arguments of the received command
+     * @return message text that will be displayed to the user (or console) when the command is executed
+     */
+    @Override
+    public String onInvoke(UdpConnection playerConnection, String[] args) {
+        if (args.length == 0) {
+            return MethodProbes.getReport(DEFAULT_LIMIT);
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "reset" -> {
+                MethodProbes.reset();
+                return "[#] Method probe timings have been reset.";
+            }
+            case "on" -> {
+                MethodProbes.setEnabled(true);
+                return "[#] Method probe recording is enabled.";
+            }
+            case "off" -> {
+                MethodProbes.setEnabled(false);
+                return "[#] Method probe recording is disabled.";
+            }
+        }
+
+        try {
+            return MethodProbes.getReport(Math.max(1, Integer.parseInt(args[0])));
+        } catch (NumberFormatException e) {
+            return "[!] Usage: methodprobes [limit|reset|on|off]";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.avrix.commands;
+
+import com.avrix.agent.ProbeTransformer;
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import com.avrix.utils.PatchUtils;
+import zombie.core.raknet.UdpConnection;
+
+import java.util.List;
+
+/**
+ * Command for reverting and re-applying patches at runtime.
+ * <p>
+ * Usage: {@code patches} lists the installed patches, {@code patches off|on <name>} reverts or re-applies a patch
+ * or all patches of a class, {@code patches probe <className#methodName>} adds a {@link com.avrix.agent.MethodProbes} probe,
+ * which can be reverted with {@code patches off com.avrix.agent.ProbeTransformer}. Probes added at runtime are owned
+ * by {@link PatchUtils#DEFAULT_PATCHES_OWNER}, like the probes configured at startup.
+ */
+@CommandName("patches")
+@CommandAccessLevel(AccessLevel.ADMIN)
+@CommandExecutionScope(CommandScope.BOTH)
+@CommandDescription("Reverts and re-applies patches at runtime. Usage: patches [off <name>|on <name>|probe <className#methodName>]")
+public class PatchesCommand extends Command {
+    /**
+     * Performing a chat command action
+     *
+     * @param playerConnection {@link UdpConnection}, if called from the console, the connection will return as {@code null}
+     * @param args             arguments of the received command
+     * @return message text that will be displayed to the user (or console) when the command is executed
+     */
+    @Override
+    public String onInvoke(UdpConnection playerConnection, String[] args) {
+        if (args.length == 0) {
+            return getReport();
+        }
+
+        if (args.length < 2) {
+            return "[!] Usage: patches [off <name>|on <name>|probe <className#methodName>]";
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "off", "on" -> {
+                boolean enabled = args[0].equalsIgnoreCase("on");
+                int changed = PatchUtils.setPatchesEnabled(args[1], enabled);
+                return String.format("[#] %s %d patches matching '%s'.", enabled ? "Re-applied" : "Reverted", changed, args[1]);
+            }
+            case "probe" -> {
+                List<ProbeTransformer> probes = ProbeTransformer.parse(args[1]);
+                if (probes.isEmpty()) {
+                    return "[!] Invalid probe, expected 'className#methodName'.";
+                }
+
+                try {
+                    PatchUtils.applyPatches(PatchUtils.DEFAULT_PATCHES_OWNER, List.copyOf(probes));
+                    return String.format("[#] Probe '%s' added, see 'methodprobes' for its timings.", args[1]);
+                } catch (RuntimeException e) {
+                    return String.format("[!] Failed to add probe '%s'. Reason: %s", args[1], e.getMessage());
+                }
+            }
+        }
+
+        return "[!] Usage: patches [off <name>|on <name>|probe <className#methodName>]";
+    }
+
+    /**
+     * Creates the list of the installed patches.
+     *
+     * @return the list of the installed patches
+     */
+    private String getReport() {
+        List<PatchUtils.PatchInfo> patches = PatchUtils.getAppliedPatches();
+
+        StringBuilder sb = new StringBuilder("Installed patches (").append(patches.size()).append("):\n");
+        String className = null;
+        for (PatchUtils.PatchInfo patch : patches) {
+            if (!patch.className().equals(className)) {
+                className = patch.className();
+                sb.append("    ").append(className).append(":\n");
+            }
+            sb.append(String.format("        - %s (plugin: %s) [%s]%n",
+                    patch.patchName(), patch.ownerId() != null ? patch.ownerId() : "?", patch.enabled() ? "on" : "off"));
+        }
+
+        return sb.toString();
+    }
+}
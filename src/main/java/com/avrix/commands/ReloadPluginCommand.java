@@ -0,0 +1,42 @@
+package com.avrix.commands;
+
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import com.avrix.plugin.PluginManager;
+import zombie.core.raknet.UdpConnection;
+
+/**
+ * Command for reloading a plugin from its Jar file without restarting the game.
+ * <p>
+ * Usage: {@code reloadplugin <pluginId>}. Only plugins that declare {@code reloadable: true} in their metadata
+ * can be reloaded, see {@link PluginManager#reloadPlugin(String)}. Whether the previous version has been unloaded
+ * is reported in the log once the garbage collector has run.
+ */
+@CommandName("reloadplugin")
+@CommandAccessLevel(AccessLevel.ADMIN)
+@CommandExecutionScope(CommandScope.BOTH)
+@CommandDescription("Reloads a plugin from its Jar file without restarting. Usage: reloadplugin <pluginId>")
+public class ReloadPluginCommand extends Command {
+    /**
+     * Performing a chat command action
+     *
+     * @param playerConnection {@link UdpConnection}, if called from the console, the connection will return as {@code null}
+     * @param args             arguments of the received command
+     * @return message text that will be displayed to the user (or console) when the command is executed
+     */
+    @Override
+    public String onInvoke(UdpConnection playerConnection, String[] args) {
+        if (args.length != 1) {
+            return "[!] Usage: reloadplugin <pluginId>";
+        }
+
+        try {
+            PluginManager.reloadPlugin(args[0]);
+            return String.format("[#] Plugin '%s' reloaded.", args[0]);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return e.getMessage();
+        } catch (Exception | LinkageError e) {
+            return String.format("[!] Failed to reload plugin '%s'. Reason: %s", args[0], e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.avrix.enums;
+
+/**
+ * An enumeration representing the types of classes listed in the class index built at compile time.
+ */
+public enum IndexedClassType {
+    /**
+     * Patches, descendants of {@link com.avrix.agent.ClassTransformer}.
+     */
+    PATCH("patch"),
+
+    /**
+     * Event listeners, descendants of {@link com.avrix.events.Event}.
+     */
+    LISTENER("listener"),
+
+    /**
+     * Commands, descendants of {@link com.avrix.commands.Command}.
+     */
+    COMMAND("command");
+
+    private final String value;
+
+    /**
+     * Constructor to initialize the type with a specific value.
+     *
+     * @param value the string representation of the type in the index
+     */
+    IndexedClassType(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the string representation of the type in the index.
+     *
+     * @return the string representation of the type
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Converts a string to the corresponding {@link IndexedClassType} enum value.
+     *
+     * @param text the string to convert
+     * @return the corresponding {@link IndexedClassType} enum value, or {@code null} if the type is unknown
+     */
+    public static IndexedClassType fromString(String text) {
+        for (IndexedClassType type : IndexedClassType.values()) {
+            if (type.value.equalsIgnoreCase(text)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.avrix.enums;
+
+/**
+ * Enumerates the actions the event watchdog applies to listeners that repeatedly exceed the time budget of an event.
+ */
+public enum WatchdogAction {
+    /**
+     * Calls are queued and executed later, one per several dispatches of the event.
+     * If the queue overflows, the oldest calls are dropped.
+     */
+    DEFER,
+
+    /**
+     * Only every Nth call is executed, the others are skipped.
+     */
+    SAMPLE,
+
+    /**
+     * The listener is no longer called until it is re-enabled.
+     */
+    DISABLE;
+
+    /**
+     * Converts a string to the corresponding WatchdogAction. Returns SAMPLE if no match is found.
+     *
+     * @param text the string to convert
+     * @return the corresponding WatchdogAction
+     */
+    public static WatchdogAction fromString(String text) {
+        for (WatchdogAction action : WatchdogAction.values()) {
+            if (action.name().equalsIgnoreCase(text)) {
+                return action;
+            }
+        }
+        return SAMPLE;
+    }
+}
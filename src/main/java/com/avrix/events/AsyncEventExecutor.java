@@ -0,0 +1,192 @@
+package com.avrix.events;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes the handlers of {@link AsyncListener} listeners on a fixed set of background lanes.
+ * <p>
+ * Each lane is a single thread with a bounded queue. Calls are distributed among the lanes by their ordering key,
+ * so calls with the same key are executed sequentially in the order of submission. If the queue of a lane is full,
+ * the call is dropped with a warning instead of blocking the thread that raised the event.
+ * <p>
+ * The number of lanes and the queue capacity can be configured with the {@code avrix.events.asyncLanes}
+ * and {@code avrix.events.asyncQueueSize} system properties.
+ */
+public final class AsyncEventExecutor {
+    /**
+     * Number of background lanes
+     */
+    private static final int LANES_COUNT = Math.max(1, Integer.getInteger("avrix.events.asyncLanes", Math.max(2, Runtime.getRuntime().availableProcessors() / 2)));
+
+    /**
+     * Maximum number of pending calls per lane
+     */
+    private static final int QUEUE_SIZE = Math.max(1, Integer.getInteger("avrix.events.asyncQueueSize", 1024));
+
+    /**
+     * Time given to the lanes to finish pending calls when the JVM shuts down (in seconds)
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    /**
+     * Number of calls dropped because the lane queue was full
+     */
+    private static final AtomicLong droppedCalls = new AtomicLong();
+
+    private static volatile ThreadPoolExecutor[] lanes; // Lanes, created on the first asynchronous call
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AsyncEventExecutor() {
+    }
+
+    /**
+     * Schedules an asynchronous call of the listener.
+     *
+     * @param eventId  the identifier of the event being raised
+     * @param listener the listener to be called
+     * @param args     arguments of the event, they are snapshotted before this method returns
+     */
+    static void submit(int eventId, EventManager.EventListener listener, Object[] args) {
+        Object[] snapshot = snapshot(args);
+        Object key = getOrderingKey(listener, snapshot);
+
+        ThreadPoolExecutor lane = getLanes()[Math.floorMod(key.hashCode(), LANES_COUNT)];
+
+        try {
+            lane.execute(() -> EventManager.dispatch(eventId, listener, snapshot));
+        } catch (RejectedExecutionException e) {
+            long dropped = droppedCalls.incrementAndGet();
+            System.out.printf("[!] Asynchronous call of event '%s' in listener '%s' was dropped because the queue is full (dropped in total: %d)%n",
+                    EventRegistry.getName(eventId),
+                    listener.handler().getClass(),
+                    dropped);
+        }
+    }
+
+    /**
+     * Returns the number of pending asynchronous calls in all lanes.
+     *
+     * @return the number of calls waiting to be executed
+     */
+    public static int getPendingCalls() {
+        ThreadPoolExecutor[] current = lanes;
+        if (current == null) return 0;
+
+        int pending = 0;
+        for (ThreadPoolExecutor lane : current) {
+            pending += lane.getQueue().size();
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the number of asynchronous calls dropped because a lane queue was full.
+     *
+     * @return the number of dropped calls
+     */
+    public static long getDroppedCalls() {
+        return droppedCalls.get();
+    }
+
+    /**
+     * Copies the event arguments, so they can be safely read from another thread.
+     * The argument array and nested arrays are cloned, and the content of {@link ByteBuffer}s
+     * (between the position and the limit) is copied, since the game reuses its network buffers.
+     * Likewise, the reusable lists of {@link BatchEvent}s are copied.
+     * Other objects, such as game objects, are passed as is.
+     *
+     * @param args the event arguments
+     * @return the snapshot of the arguments
+     */
+    static Object[] snapshot(Object[] args) {
+        Object[] snapshot = args.clone();
+
+        for (int i = 0; i < snapshot.length; i++) {
+            Object arg = snapshot[i];
+
+            if (arg instanceof ByteBuffer buffer) {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.remaining()).order(buffer.order());
+                copy.put(buffer.duplicate()).flip();
+                snapshot[i] = copy;
+            } else if (arg instanceof Object[] array) {
+                snapshot[i] = array.clone();
+            } else if (EventBatcher.isBatchView(arg)) {
+                snapshot[i] = Collections.unmodifiableList(new ArrayList<>((List<?>) arg));
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Determines the ordering key of the call.
+     *
+     * @param listener the listener to be called
+     * @param args     arguments of the event
+     * @return the argument specified by {@link AsyncListener#orderingArgument()}, or the listener itself
+     */
+    private static Object getOrderingKey(EventManager.EventListener listener, Object[] args) {
+        int index = listener.invoker().getOrderingArgument();
+
+        if (index >= 0 && index < args.length && args[index] != null) {
+            return args[index];
+        }
+
+        return listener.handler();
+    }
+
+    /**
+     * Returns the lanes, creating them on the first call.
+     *
+     * @return the lanes
+     */
+    private static ThreadPoolExecutor[] getLanes() {
+        ThreadPoolExecutor[] current = lanes;
+        if (current != null) return current;
+
+        synchronized (AsyncEventExecutor.class) {
+            if (lanes == null) {
+                ThreadPoolExecutor[] created = new ThreadPoolExecutor[LANES_COUNT];
+                for (int i = 0; i < LANES_COUNT; i++) {
+                    String threadName = "Avrix-EventLane-" + i;
+                    created[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(created), "Avrix-EventLane-Shutdown"));
+                lanes = created;
+            }
+            return lanes;
+        }
+    }
+
+    /**
+     * Stops accepting new calls and gives the lanes time to finish the pending ones.
+     *
+     * @param lanesToStop the lanes to stop
+     */
+    private static void shutdown(ThreadPoolExecutor[] lanesToStop) {
+        for (ThreadPoolExecutor lane : lanesToStop) {
+            lane.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT);
+        try {
+            for (ThreadPoolExecutor lane : lanesToStop) {
+                lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.avrix.events;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation for {@link Event} listeners whose handlers should be called asynchronously,
+ * outside the thread that raised the event (e.g. handlers that access a database, files or the network).
+ * <p>
+ * The event arguments are snapshotted before they are handed over to the listener (see {@link AsyncEventExecutor}),
+ * and the thread that raised the event never waits for the handler. Calls with the same ordering key are
+ * executed one after another in the order the events were raised.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface AsyncListener {
+    /**
+     * Index of the event argument used as the ordering key, e.g. the index of the player or the connection
+     * argument to keep the events of each player in order. If the index is negative or the argument is {@code null},
+     * the listener itself is used as the key, so all calls of the listener are executed in order.
+     *
+     * @return index of the argument used as the ordering key
+     */
+    int orderingArgument() default -1;
+}
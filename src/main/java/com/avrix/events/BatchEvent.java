@@ -0,0 +1,30 @@
+package com.avrix.events;
+
+import java.util.List;
+
+/**
+ * Base class of batched events. A batched event collects the arguments of a per-entity event
+ * (e.g. {@code OnZombieUpdate}) raised during a tick and delivers them to its listeners in a single call.
+ * <p>
+ * Collection starts when the first listener of a batched event is registered, see {@link EventBatcher}.
+ * The list passed to the listeners is reused between ticks and is only valid during the call:
+ * copy it (e.g. with {@link List#copyOf}) to keep the entities, or mark the listener with {@link AsyncListener}
+ * to receive a copy on a background lane.
+ *
+ * @param <T> type of the entities of the batch
+ */
+public abstract class BatchEvent<T> extends Event {
+    /**
+     * Getting the name of the per-entity event whose arguments are collected
+     *
+     * @return name of the collected event
+     */
+    public abstract String getSourceEventName();
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param batch Entities for which the collected event was raised since the last flush, in the order of raising.
+     */
+    public abstract void handleEvent(List<T> batch);
+}
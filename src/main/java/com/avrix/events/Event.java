@@ -4,10 +4,25 @@ package com.avrix.events;
  * Template class for all in-game events
  */
 public abstract class Event {
+    private int eventId = -1; // Cached identifier of the event in the EventRegistry
+
     /**
      * Getting the event name
      *
      * @return name of the event being implemented
      */
     public abstract String getEventName();
-}
\ No newline at end of file
+
+    /**
+     * Getting the event identifier assigned by the {@link EventRegistry}.
+     * The identifier is resolved from the event name once and cached.
+     *
+     * @return identifier of the event being implemented
+     */
+    public final int getEventId() {
+        if (eventId < 0) {
+            eventId = EventRegistry.getId(getEventName());
+        }
+        return eventId;
+    }
+}
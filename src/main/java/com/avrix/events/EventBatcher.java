@@ -0,0 +1,284 @@
+package com.avrix.events;
+
+import com.avrix.enums.Priority;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the arguments of per-entity events for {@link BatchEvent} listeners and flushes them once per tick.
+ * <p>
+ * When the first listener of a batched event is registered, a collector listener is attached to the per-entity event,
+ * and a flush listener to {@code OnTick}. The collector appends the entity to a reusable buffer (only while the batched
+ * event has listeners), and the flush raises the batched event with a list view over the buffer and then clears it.
+ * If a buffer reaches {@link #MAX_BATCH_SIZE} entities before the tick ends, it is flushed early.
+ * When the batched event loses its last listener, the collector is detached and the buffer is dropped.
+ */
+public final class EventBatcher {
+    /**
+     * Maximum number of entities in a batch
+     */
+    private static final int MAX_BATCH_SIZE = Math.max(1, Integer.getInteger("avrix.events.maxBatchSize", 65536));
+
+    /**
+     * Active batches
+     */
+    private static final List<Batch> batches = new CopyOnWriteArrayList<>();
+
+    private static FlushListener flushListener; // Listener that flushes the batches at the end of a tick
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventBatcher() {
+    }
+
+    /**
+     * Starts collecting the per-entity event of the batched event listener, if it is not collected yet.
+     * Called by {@link EventManager#addListener(Event, Priority)}.
+     *
+     * @param listener listener of the batched event
+     */
+    static synchronized void attach(BatchEvent<?> listener) {
+        int sourceEventId = EventRegistry.getId(listener.getSourceEventName());
+        int batchEventId = listener.getEventId();
+
+        Batch batch = null;
+        for (Batch existing : batches) {
+            if (existing.sourceEventId == sourceEventId && existing.batchEventId == batchEventId) {
+                batch = existing;
+            }
+        }
+
+        if (batch == null) {
+            batch = new Batch(listener.getSourceEventName(), sourceEventId, batchEventId);
+            batches.add(batch);
+        }
+
+        // The listeners may have been cleared since the batch was created
+        if (!isRegistered(sourceEventId, batch.collector)) {
+            EventManager.addListener(batch.collector, Priority.LOWEST);
+        }
+        if (flushListener == null) {
+            flushListener = new FlushListener();
+        }
+        if (!isRegistered(flushListener.getEventId(), flushListener)) {
+            EventManager.addListener(flushListener, Priority.LOWEST);
+        }
+    }
+
+    /**
+     * Stops collecting the per-entity events of the batched event and drops its buffered entities.
+     * The flush listener is detached with the last batch.
+     * Called by {@link EventManager} when the event loses its last listener, while holding the {@link EventManager} lock.
+     *
+     * @param batchEventId identifier of the event that lost its last listener
+     */
+    static synchronized void detach(int batchEventId) {
+        for (Batch batch : batches) {
+            if (batch.batchEventId == batchEventId) {
+                batches.remove(batch);
+                EventManager.removeListener(batch.sourceEventId, batch.collector);
+            }
+        }
+
+        if (batches.isEmpty() && flushListener != null) {
+            EventManager.removeListener(flushListener.getEventId(), flushListener);
+        }
+    }
+
+    /**
+     * Drops all batches and their buffered entities, e.g. after all listeners have been cleared.
+     */
+    static synchronized void detachAll() {
+        batches.clear();
+    }
+
+    /**
+     * Flushes all batches, raising the batched events for the entities collected so far.
+     */
+    public static void flush() {
+        for (Batch batch : batches) {
+            batch.flush();
+        }
+    }
+
+    /**
+     * Checks whether the object is a reusable batch view passed to {@link BatchEvent} listeners.
+     *
+     * @param object the object to check
+     * @return true if the object is a batch view, which must be copied to be used after the call
+     */
+    static boolean isBatchView(Object object) {
+        return object instanceof Batch.BatchView;
+    }
+
+    /**
+     * Checks whether the handler is an internal listener of the batcher, which the {@link EventWatchdog} does not watch.
+     *
+     * @param handler the handler
+     * @return true if the handler collects or flushes batches
+     */
+    static boolean isInternal(Event handler) {
+        return handler instanceof Collector || handler instanceof FlushListener;
+    }
+
+    /**
+     * Checks whether the handler is registered as a listener of the event.
+     *
+     * @param eventId the identifier of the event
+     * @param handler the handler
+     * @return true if the handler is registered
+     */
+    private static boolean isRegistered(int eventId, Event handler) {
+        EventManager.EventListener[] listeners = EventManager.getListeners(eventId);
+        if (listeners == null) return false;
+
+        for (EventManager.EventListener listener : listeners) {
+            if (listener.handler() == handler) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Buffer of a single batched event
+     */
+    private static final class Batch {
+        private final int sourceEventId; // Identifier of the collected event
+        private final int batchEventId; // Identifier of the batched event
+        private final Collector collector; // Listener of the collected event
+        private final BatchView view = new BatchView(); // Reusable view passed to the listeners
+        private Object[] entities = new Object[64]; // Collected entities
+        private int size; // Number of collected entities
+
+        /**
+         * Constructs a batch.
+         *
+         * @param sourceEventName name of the collected event
+         * @param sourceEventId   identifier of the collected event
+         * @param batchEventId    identifier of the batched event
+         */
+        private Batch(String sourceEventName, int sourceEventId, int batchEventId) {
+            this.sourceEventId = sourceEventId;
+            this.batchEventId = batchEventId;
+            this.collector = new Collector(sourceEventName, this);
+        }
+
+        /**
+         * Appends an entity to the batch.
+         *
+         * @param entity the entity
+         */
+        private synchronized void add(Object entity) {
+            if (size == entities.length) {
+                entities = Arrays.copyOf(entities, size * 2);
+            }
+            entities[size++] = entity;
+
+            if (size >= MAX_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Raises the batched event for the collected entities and clears the batch.
+         */
+        private synchronized void flush() {
+            if (size == 0) return;
+
+            try {
+                EventManager.invokeEvent(batchEventId, view);
+            } finally {
+                Arrays.fill(entities, 0, size, null);
+                size = 0;
+            }
+        }
+
+        /**
+         * Read-only view of the collected entities
+         */
+        private final class BatchView extends AbstractList<Object> implements RandomAccess {
+            /**
+             * Returns the entity at the specified position.
+             *
+             * @param index index of the entity
+             * @return the entity
+             */
+            @Override
+            public Object get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return entities[index];
+            }
+
+            /**
+             * Returns the number of entities.
+             *
+             * @return the number of entities
+             */
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Listener of a per-entity event that appends the entities to a batch
+     */
+    private static final class Collector extends Event {
+        private final String eventName; // Name of the collected event
+        private final Batch batch; // Batch the entities are appended to
+
+        /**
+         * Constructs a collector.
+         *
+         * @param eventName name of the collected event
+         * @param batch     batch the entities are appended to
+         */
+        private Collector(String eventName, Batch batch) {
+            this.eventName = eventName;
+            this.batch = batch;
+        }
+
+        /**
+         * Getting the event name
+         *
+         * @return name of the event being implemented
+         */
+        @Override
+        public String getEventName() {
+            return eventName;
+        }
+
+        /**
+         * Called Event Handling Method
+         *
+         * @param entity The entity for which the event was raised.
+         */
+        public void handleEvent(Object entity) {
+            if (EventManager.hasListeners(batch.batchEventId)) {
+                batch.add(entity);
+            }
+        }
+    }
+
+    /**
+     * Listener that flushes all batches every tick
+     */
+    private static final class FlushListener extends OnTickPrimitiveEvent {
+        /**
+         * Called Event Handling Method
+         *
+         * @param numberTicks The number of ticks.
+         */
+        @Override
+        public void handleEvent(double numberTicks) {
+            flush();
+        }
+    }
+}
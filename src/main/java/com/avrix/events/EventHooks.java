@@ -0,0 +1,229 @@
+package com.avrix.events;
+
+import java.lang.invoke.*;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hook call sites injected into game methods by patches.
+ * <p>
+ * Patches raise events with {@code EventHooks.hook(arg1, ..., argN, eventId)}, where the identifier of the event from the
+ * {@link EventRegistry} is a constant. When the patch is compiled, such calls are replaced by {@code invokedynamic}
+ * instructions linked by {@link #bootstrap}, one {@link MutableCallSite} per call site. While the event has no listeners,
+ * the target of the call site does nothing, so the JIT can fold the hook out of the game method. When the first listener
+ * is registered, the target is switched to a dispatcher that packs the arguments and calls {@link EventManager#invokeEvent(int, Object...)},
+ * and it is switched back when the last listener is removed. Call sites are held weakly, so the sites of a class
+ * that is reinstalled or unloaded are dropped once the old class is collected.
+ * <p>
+ * If a call is not replaced (the identifier is not a constant, or linking is disabled with the
+ * {@code avrix.events.linkHooks=false} system property), the {@code hook} methods raise the event themselves,
+ * creating the argument array only when the event has listeners.
+ */
+public final class EventHooks {
+    /**
+     * Whether hook calls are replaced by {@code invokedynamic} call sites when patches are compiled
+     */
+    public static final boolean LINK_HOOKS = Boolean.parseBoolean(System.getProperty("avrix.events.linkHooks", "true"));
+
+    /**
+     * Name of the hook methods
+     */
+    public static final String HOOK_METHOD_NAME = "hook";
+
+    /**
+     * Name of the bootstrap method of the hook call sites
+     */
+    public static final String BOOTSTRAP_METHOD_NAME = "bootstrap";
+
+    /**
+     * Descriptor of the bootstrap method of the hook call sites
+     */
+    public static final String BOOTSTRAP_METHOD_DESCRIPTOR = MethodType.methodType(CallSite.class,
+            MethodHandles.Lookup.class, String.class, MethodType.class, int.class).toMethodDescriptorString();
+
+    /**
+     * Handle of {@link EventManager#invokeEvent(int, Object...)}
+     */
+    private static final MethodHandle INVOKE_EVENT;
+
+    static {
+        try {
+            INVOKE_EVENT = MethodHandles.lookup().findStatic(EventManager.class, "invokeEvent",
+                    MethodType.methodType(void.class, int.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Map<Integer, List<WeakReference<MutableCallSite>>> callSites = new HashMap<>(); // Linked call sites by event identifier
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventHooks() {
+    }
+
+    /**
+     * Links a hook call site. Called by the JVM the first time an {@code invokedynamic} hook instruction is executed.
+     *
+     * @param lookup  the lookup of the class containing the hook
+     * @param name    the name of the hook method
+     * @param type    the types of the hook arguments
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     * @return the call site of the hook
+     */
+    public static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type, int eventId) {
+        MutableCallSite callSite = new MutableCallSite(type);
+
+        synchronized (EventHooks.class) {
+            callSite.setTarget(createTarget(eventId, type));
+            List<WeakReference<MutableCallSite>> eventCallSites = callSites.computeIfAbsent(eventId, id -> new ArrayList<>());
+            eventCallSites.removeIf(reference -> reference.get() == null);
+            eventCallSites.add(new WeakReference<>(callSite));
+        }
+
+        return callSite;
+    }
+
+    /**
+     * Switches the call sites of the event between doing nothing and dispatching to the listeners.
+     * Called by the {@link EventManager} when the event gets its first listener or loses its last one.
+     *
+     * @param eventId the identifier of the event
+     */
+    static synchronized void onListenersChanged(int eventId) {
+        List<WeakReference<MutableCallSite>> eventCallSites = callSites.get(eventId);
+        if (eventCallSites == null) return;
+
+        List<MutableCallSite> liveCallSites = new ArrayList<>(eventCallSites.size());
+        for (WeakReference<MutableCallSite> reference : eventCallSites) {
+            MutableCallSite callSite = reference.get();
+            if (callSite != null) {
+                callSite.setTarget(createTarget(eventId, callSite.type()));
+                liveCallSites.add(callSite);
+            }
+        }
+
+        if (liveCallSites.isEmpty()) {
+            callSites.remove(eventId);
+            return;
+        }
+        eventCallSites.removeIf(reference -> reference.get() == null);
+        MutableCallSite.syncAll(liveCallSites.toArray(new MutableCallSite[0]));
+    }
+
+    /**
+     * Counts the live call sites of the event.
+     *
+     * @param eventId the identifier of the event
+     * @return the number of linked call sites whose classes have not been collected
+     */
+    static synchronized int getCallSiteCount(int eventId) {
+        List<WeakReference<MutableCallSite>> eventCallSites = callSites.get(eventId);
+        if (eventCallSites == null) return 0;
+
+        eventCallSites.removeIf(reference -> reference.get() == null);
+        return eventCallSites.size();
+    }
+
+    /**
+     * Creates the target of a hook call site for the current listeners of the event.
+     *
+     * @param eventId the identifier of the event
+     * @param type    the types of the hook arguments
+     * @return a target doing nothing if the event has no listeners, otherwise a target raising the event
+     */
+    private static MethodHandle createTarget(int eventId, MethodType type) {
+        if (!EventManager.hasListeners(eventId)) {
+            return MethodHandles.empty(type);
+        }
+
+        return MethodHandles.insertArguments(INVOKE_EVENT, 0, eventId)
+                .asCollector(Object[].class, type.parameterCount())
+                .asType(type);
+    }
+
+    /**
+     * Raises an event without arguments.
+     *
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId);
+        }
+    }
+
+    /**
+     * Raises an event with one argument.
+     *
+     * @param arg1    the first argument
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(Object arg1, int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId, arg1);
+        }
+    }
+
+    /**
+     * Raises an event with two arguments.
+     *
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(Object arg1, Object arg2, int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId, arg1, arg2);
+        }
+    }
+
+    /**
+     * Raises an event with three arguments.
+     *
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     * @param arg3    the third argument
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(Object arg1, Object arg2, Object arg3, int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Raises an event with four arguments.
+     *
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     * @param arg3    the third argument
+     * @param arg4    the fourth argument
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(Object arg1, Object arg2, Object arg3, Object arg4, int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId, arg1, arg2, arg3, arg4);
+        }
+    }
+
+    /**
+     * Raises an event with five arguments.
+     *
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     * @param arg3    the third argument
+     * @param arg4    the fourth argument
+     * @param arg5    the fifth argument
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     */
+    public static void hook(Object arg1, Object arg2, Object arg3, Object arg4, Object arg5, int eventId) {
+        if (EventManager.hasListeners(eventId)) {
+            EventManager.invokeEvent(eventId, arg1, arg2, arg3, arg4, arg5);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.avrix.events;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-compiled invoker of the {@code handleEvent} methods of an {@link Event} listener class.
+ * <p>
+ * All {@code handleEvent} overloads of a listener class are resolved once into {@link MethodHandle}s
+ * and grouped by the number of arguments, so that raising an event does not need reflection lookups.
+ * Invokers are cached by listener class and shared between all listener instances of that class.
+ */
+public final class EventInvoker {
+    /**
+     * Name of the method that handles events
+     */
+    private static final String HANDLER_METHOD_NAME = "handleEvent";
+
+    /**
+     * Cache of invokers, where the key is the listener class
+     */
+    private static final Map<Class<?>, EventInvoker> invokers = new ConcurrentHashMap<>();
+
+    /**
+     * An empty set of handlers for argument counts that the listener does not support
+     */
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
+    private final Class<?> listenerClass; // Listener class for which the handlers are compiled
+    private final Handler[][] handlersByArity; // Handlers indexed by the number of arguments
+    private final boolean async; // Whether the listener class is marked with AsyncListener
+    private final int orderingArgument; // Index of the argument used as the ordering key of asynchronous calls
+
+    /**
+     * Constructs an invoker for the specified listener class.
+     *
+     * @param listenerClass the listener class whose {@code handleEvent} methods should be compiled
+     */
+    private EventInvoker(Class<?> listenerClass) {
+        this.listenerClass = listenerClass;
+
+        AsyncListener asyncListener = listenerClass.getAnnotation(AsyncListener.class);
+        this.async = asyncListener != null;
+        this.orderingArgument = asyncListener != null ? asyncListener.orderingArgument() : -1;
+
+        List<List<Handler>> handlers = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        for (Method method : listenerClass.getMethods()) {
+            if (!method.getName().equals(HANDLER_METHOD_NAME) || Modifier.isStatic(method.getModifiers())) continue;
+
+            int arity = method.getParameterCount();
+            while (handlers.size() <= arity) {
+                handlers.add(new ArrayList<>());
+            }
+
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = lookup.unreflect(method)
+                        .asType(MethodType.genericMethodType(arity).changeReturnType(void.class).insertParameterTypes(0, Event.class))
+                        .asSpreader(Object[].class, arity);
+
+                handlers.get(arity).add(Handler.of(method.getParameterTypes(), handle));
+            } catch (IllegalAccessException | RuntimeException e) {
+                System.out.printf("[!] Failed to compile method '%s' of listener '%s'. Reason: %s%n", method, listenerClass, e.getMessage());
+            }
+        }
+
+        this.handlersByArity = new Handler[handlers.size()][];
+        for (int i = 0; i < handlers.size(); i++) {
+            this.handlersByArity[i] = handlers.get(i).toArray(NO_HANDLERS);
+        }
+    }
+
+    /**
+     * Returns the cached invoker for the specified listener class, compiling it on first use.
+     *
+     * @param listenerClass the listener class
+     * @return the {@link EventInvoker} of the listener class
+     */
+    public static EventInvoker forClass(Class<? extends Event> listenerClass) {
+        return invokers.computeIfAbsent(listenerClass, EventInvoker::new);
+    }
+
+    /**
+     * Removes the cached invokers of the listener classes defined by the class loader, so the cache does not keep
+     * the classes of an unloaded plugin alive.
+     *
+     * @param classLoader the class loader of the listener classes
+     */
+    static void evict(ClassLoader classLoader) {
+        invokers.keySet().removeIf(listenerClass -> listenerClass.getClassLoader() == classLoader);
+    }
+
+    /**
+     * Calls the {@code handleEvent} method of the listener that is compatible with the passed arguments.
+     *
+     * @param listener the listener whose method should be called, must be an instance of the invoker's listener class
+     * @param args     arguments passed to the listener's {@code handleEvent} method
+     * @throws NoSuchMethodException     if a {@code handleEvent} method with matching arguments is not found
+     * @throws InvocationTargetException if the {@code handleEvent} method threw an exception
+     */
+    public void invoke(Event listener, Object[] args) throws NoSuchMethodException, InvocationTargetException {
+        if (args.length < handlersByArity.length) {
+            for (Handler handler : handlersByArity[args.length]) {
+                if (!handler.isCompatible(args)) continue;
+
+                try {
+                    handler.handle.invokeExact(listener, args);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+
+                return;
+            }
+        }
+
+        throw new NoSuchMethodException();
+    }
+
+    /**
+     * Returns the listener class for which this invoker was compiled.
+     *
+     * @return the listener class
+     */
+    public Class<?> getListenerClass() {
+        return listenerClass;
+    }
+
+    /**
+     * Checks whether the listener handlers should be called asynchronously.
+     *
+     * @return true if the listener class is marked with {@link AsyncListener}
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Returns the index of the argument used as the ordering key of asynchronous calls.
+     *
+     * @return the index of the argument, or a negative value if the listener itself is the key
+     */
+    public int getOrderingArgument() {
+        return orderingArgument;
+    }
+
+    /**
+     * Compiled {@code handleEvent} overload
+     *
+     * @param parameterTypes parameter types of the method, primitive types are replaced by their wrappers
+     * @param primitives     flags of parameters that have a primitive type and therefore do not accept {@code null}
+     * @param handle         method handle with the type {@code (Event, Object[])void}
+     */
+    private record Handler(Class<?>[] parameterTypes, boolean[] primitives, MethodHandle handle) {
+        /**
+         * Creates a handler from the declared parameter types of the method.
+         *
+         * @param declaredTypes declared parameter types of the method
+         * @param handle        method handle with the type {@code (Event, Object[])void}
+         * @return the compiled handler
+         */
+        private static Handler of(Class<?>[] declaredTypes, MethodHandle handle) {
+            Class<?>[] parameterTypes = new Class<?>[declaredTypes.length];
+            boolean[] primitives = new boolean[declaredTypes.length];
+
+            for (int i = 0; i < declaredTypes.length; i++) {
+                primitives[i] = declaredTypes[i].isPrimitive();
+                parameterTypes[i] = primitives[i] ? MethodType.methodType(declaredTypes[i]).wrap().returnType() : declaredTypes[i];
+            }
+
+            return new Handler(parameterTypes, primitives, handle);
+        }
+
+        /**
+         * Checks whether the arguments can be passed to this method.
+         *
+         * @param args arguments to be passed to the method
+         * @return true if every argument is assignable to the corresponding parameter
+         */
+        private boolean isCompatible(Object[] args) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Object arg = args[i];
+
+                if (arg == null ? primitives[i] : !parameterTypes[i].isInstance(arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,67 +1,194 @@
 package com.avrix.events;
 
 import com.avrix.enums.Priority;
+import com.avrix.plugin.PluginClassLoader;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Manages {@link Event} subscriptions and their raising.
  * Allows objects to register themselves as listeners for specific events and raise those events dynamically.
+ * <p>
+ * Events are identified by the integer identifiers of the {@link EventRegistry}. Listeners of each event are stored
+ * as an immutable array, sorted by {@link Priority}, which is replaced as a whole when listeners are added or removed.
+ * Raising an event therefore takes no lock, does no sorting and allocates nothing, so events raised from different
+ * threads (e.g. the render thread and the game thread) do not contend with each other.
+ * <p>
+ * Hooks injected by patches are linked to the listeners through {@link EventHooks}, which is notified
+ * when an event gets its first listener or loses its last one.
  */
 public class EventManager {
     /**
-     * List of all listeners for specific events, where the key is the {@link String} event name,
-     * and the value is a {@link List} of all event handlers (listeners)
+     * An empty array of listeners
      */
-    private static final Map<String, List<EventListener>> listeners = new HashMap<>();
+    private static final EventListener[] NO_LISTENERS = new EventListener[0];
+
+    /**
+     * Order in which listeners are called: by priority, and in the order of registration within the same priority
+     */
+    private static final Comparator<EventListener> LISTENER_ORDER = Comparator.comparingInt(l -> l.priority().ordinal());
+
+    /**
+     * All listeners for specific events, indexed by the event identifier from the {@link EventRegistry}.
+     * Each element is a priority-sorted array of all event handlers (listeners), or null if the event has no listeners.
+     * Neither the outer nor the inner arrays are modified after they are published.
+     */
+    private static volatile EventListener[][] listeners = new EventListener[0][];
 
     /**
      * Returns a copy of all registered listeners for all events.
      *
      * @return A copy of the listener {@link HashMap}, where the key is the event name and the value is the {@link List} of listeners for that event.
      */
-    public static synchronized Map<String, List<EventListener>> getAllListeners() {
-        return new HashMap<>(listeners);
+    public static Map<String, List<EventListener>> getAllListeners() {
+        EventListener[][] current = listeners;
+        Map<String, List<EventListener>> result = new HashMap<>();
+        for (int eventId = 0; eventId < current.length; eventId++) {
+            if (current[eventId] != null) {
+                result.put(EventRegistry.getName(eventId), List.of(current[eventId]));
+            }
+        }
+        return result;
     }
 
     /**
      * Returns a {@link List} of listeners for the specified event.
      *
-     * @param eventName The name of the event for which you want to get a {@link List} of listeners.
-     * @return A {@link List} of listeners for the specified event, or null if no listeners are registered for the given event.
+     * @param eventName The name of the event for which you want to get a {@link List} of listeners. The event name is case insensitive.
+     * @return An unmodifiable {@link List} of listeners for the specified event in the order they are called,
+     * or null if no listeners are registered for the given event.
      */
-    public static synchronized List<EventListener> getListenersForEvent(String eventName) {
-        return listeners.get(eventName);
+    public static List<EventListener> getListenersForEvent(String eventName) {
+        if (eventName == null) return null;
+
+        EventListener[] eventListeners = getListeners(EventRegistry.getId(eventName));
+        return eventListeners == null ? null : List.of(eventListeners);
+    }
+
+    /**
+     * Checks whether at least one listener is registered for the specified event.
+     * Intended for injected hooks, so they can skip packing arguments for events nobody listens to.
+     *
+     * @param eventName The name of the event to check. The event name is case insensitive.
+     * @return true if the event has registered listeners.
+     */
+    public static boolean hasListeners(String eventName) {
+        return eventName != null && getListeners(EventRegistry.getId(eventName)) != null;
+    }
+
+    /**
+     * Checks whether at least one listener is registered for the specified event.
+     *
+     * @param eventId The identifier of the event from the {@link EventRegistry}.
+     * @return true if the event has registered listeners.
+     */
+    public static boolean hasListeners(int eventId) {
+        return getListeners(eventId) != null;
     }
 
     /**
      * Clears all registered event listeners.
      */
     public static synchronized void clearAllListeners() {
-        listeners.clear();
+        EventListener[][] previous = listeners;
+        listeners = new EventListener[0][];
+
+        for (int eventId = 0; eventId < previous.length; eventId++) {
+            if (previous[eventId] != null) {
+                EventHooks.onListenersChanged(eventId);
+            }
+        }
+
+        EventBatcher.detachAll();
     }
 
     /**
      * Clears all registered event listeners for a specific event.
      *
-     * @param eventName The name of the event to clear listeners for.
+     * @param eventName The name of the event to clear listeners for. The event name is case insensitive.
      */
     public static synchronized void clearListenersForEvent(String eventName) {
-        listeners.remove(eventName);
+        setListeners(EventRegistry.getId(eventName), null);
+    }
+
+    /**
+     * Removes all listeners of the plugin, e.g. before the plugin is reloaded.
+     * The listeners are attributed to the plugin by {@link PluginClassLoader#getPluginId(Class)} when they are registered.
+     *
+     * @param pluginId ID of the plugin whose listeners should be removed
+     * @return the number of removed listeners
+     */
+    public static synchronized int removeListeners(String pluginId) {
+        int removed = 0;
+        Set<ClassLoader> classLoaders = new HashSet<>();
+        EventListener[][] current = listeners;
+
+        for (int eventId = 0; eventId < current.length; eventId++) {
+            EventListener[] eventListeners = current[eventId];
+            if (eventListeners == null) continue;
+
+            List<EventListener> remaining = new ArrayList<>();
+            for (EventListener listener : eventListeners) {
+                if (pluginId.equals(listener.pluginId())) {
+                    if (listener.handler().getClass().getClassLoader() instanceof PluginClassLoader classLoader) {
+                        classLoaders.add(classLoader);
+                    }
+                } else {
+                    remaining.add(listener);
+                }
+            }
+
+            if (remaining.size() == eventListeners.length) continue;
+
+            removed += eventListeners.length - remaining.size();
+            setListeners(eventId, remaining.isEmpty() ? null : remaining.toArray(NO_LISTENERS));
+        }
+
+        classLoaders.forEach(EventInvoker::evict);
+        return removed;
+    }
+
+    /**
+     * Removes a single registered handler from the listeners of the event.
+     *
+     * @param eventId The identifier of the event
+     * @param handler The handler to remove
+     */
+    static synchronized void removeListener(int eventId, Event handler) {
+        EventListener[] current = getListeners(eventId);
+        if (current == null) return;
+
+        EventListener[] remaining = Arrays.stream(current)
+                .filter(listener -> listener.handler() != handler)
+                .toArray(EventListener[]::new);
+        if (remaining.length == current.length) return;
+
+        setListeners(eventId, remaining.length == 0 ? null : remaining);
     }
 
     /**
      * Registers a listener object for a specific event.
+     * Registering a {@link BatchEvent} listener starts collecting its per-entity event.
      *
      * @param listener {@link Event} listener. Must have a handleEvent method with a signature corresponding to the event.
      * @param priority {@link Priority}, events with lower priority are called last
      */
     public static synchronized void addListener(Event listener, Priority priority) {
-        String eventName = listener.getEventName();
-        listeners.computeIfAbsent(eventName, k -> new ArrayList<>()).add(new EventListener(listener, priority));
+        int eventId = listener.getEventId();
+        EventListener[] current = Objects.requireNonNullElse(getListeners(eventId), NO_LISTENERS);
+
+        EventListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new EventListener(listener, priority);
+        Arrays.sort(updated, LISTENER_ORDER);
+
+        setListeners(eventId, updated);
+
+        if (listener instanceof BatchEvent<?> batchEvent) {
+            EventBatcher.attach(batchEvent);
+        }
     }
 
     /**
@@ -69,91 +196,255 @@ public class EventManager {
      *
      * @param listener {@link Event} listener. Must have a handleEvent method with a signature corresponding to the event.
      */
-    public static synchronized void addListener(Event listener) {
-        String eventName = listener.getEventName();
-        listeners.computeIfAbsent(eventName, k -> new ArrayList<>()).add(new EventListener(listener, Priority.NORMAL));
+    public static void addListener(Event listener) {
+        addListener(listener, Priority.NORMAL);
     }
 
     /**
      * Raises an event by its name, passing arguments to listeners registered for that event.
-     * The method dynamically looks up and calls the handleEvent method on each event listener, passing the specified arguments.
+     * The method calls the handleEvent method compatible with the arguments on each event listener through its pre-compiled {@link EventInvoker}.
      * If an error occurs during a call, it is logged and the process continues for the remaining listeners.
      *
      * @param eventName The name of the event to raise. The event name is case insensitive.
      * @param args      Arguments to be passed to the event listener's handleEvent method. The type and number of arguments must match the expected parameters of the handleEvent method.
      */
-    public static synchronized void invokeEvent(String eventName, Object... args) {
-        List<EventListener> eventListeners = getListenersForEvent(eventName);
+    public static void invokeEvent(String eventName, Object... args) {
+        if (eventName == null) return;
+
+        invokeEvent(EventRegistry.getId(eventName), args);
+    }
+
+    /**
+     * Raises an event by its identifier, passing arguments to listeners registered for that event.
+     * Injected hooks resolve the identifier when the patch is compiled, so raising the event does not involve the event name.
+     * Listeners marked with {@link AsyncListener} receive a snapshot of the arguments on a background lane, without being waited for.
+     * Synchronous listeners that keep exceeding the time budget of the event are throttled by the {@link EventWatchdog}.
+     * If an error occurs during a call, it is logged and the process continues for the remaining listeners.
+     *
+     * @param eventId The identifier of the event from the {@link EventRegistry}.
+     * @param args    Arguments to be passed to the event listener's handleEvent method. The type and number of arguments must match the expected parameters of the handleEvent method.
+     */
+    public static void invokeEvent(int eventId, Object... args) {
+        EventListener[] eventListeners = getListeners(eventId);
 
-        if (eventListeners == null || eventListeners.isEmpty()) return;
+        if (eventListeners == null) return;
 
-        eventListeners.sort(Comparator.comparingInt(l -> l.priority().ordinal()));
+        long start = startDispatch();
 
         for (EventListener listener : eventListeners) {
-            Event eventHandler = listener.handler();
-            String argTypes = Arrays.stream(args)
-                    .map(Object::getClass)
-                    .map(Class::getSimpleName)
-                    .collect(Collectors.joining(", "));
-
-            try {
-                invokeHandleEvent(eventHandler, args);
-            } catch (NoSuchMethodException e) {
-                System.out.printf("[!] Compatible 'handleEvent' method not found for event '%s' in listener '%s'. Argument types: '%s'%n",
-                        eventName,
-                        listener.handler.getClass(),
-                        argTypes);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                System.out.printf("[!] An exception occurred when trying to invoke event '%s' with arguments '%s' in listener '%s'! Reason: %s%n",
-                        eventName,
-                        argTypes,
-                        listener.handler.getClass(),
-                        e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            invokeListener(eventId, listener, args);
+        }
+
+        finishDispatch(eventId, start);
+    }
+
+    /**
+     * Raises an event for a primitive-specialized event class. Listeners of that class that can be called directly
+     * (see {@link #isDirect(EventListener)}) receive the arguments without boxing through the direct call,
+     * the other listeners are passed to {@link #invokeListener} with the boxed arguments, created once for all of them.
+     *
+     * @param eventId       The identifier of the event
+     * @param handlerType   The primitive-specialized event class
+     * @param argumentTypes Description of the argument types for error messages
+     * @param directCall    Calls the handleEvent method of a listener of the primitive-specialized class
+     * @param boxedArgs     Creates the boxed arguments, called only if a listener needs them
+     * @param <H>           The type of the primitive-specialized event class
+     */
+    static <H extends Event> void raisePrimitive(int eventId, Class<H> handlerType, String argumentTypes,
+                                                 Consumer<H> directCall, Supplier<Object[]> boxedArgs) {
+        EventListener[] listeners = getListeners(eventId);
+
+        if (listeners == null) return;
+
+        long dispatchStart = startDispatch();
+        Object[] args = null;
+
+        for (EventListener listener : listeners) {
+            if (handlerType.isInstance(listener.handler()) && isDirect(listener)) {
+                long start = startCall(eventId);
+                try {
+                    directCall.accept(handlerType.cast(listener.handler()));
+                } catch (Throwable e) {
+                    logCallError(eventId, listener, argumentTypes, e);
+                } finally {
+                    finishCall(eventId, listener, start);
+                }
+            } else {
+                if (args == null) {
+                    args = boxedArgs.get();
+                }
+                invokeListener(eventId, listener, args);
             }
         }
+
+        finishDispatch(eventId, dispatchStart);
     }
 
     /**
-     * Calls the handleEvent method on all registered event listeners.
-     * Each listener's handleEvent method must be compatible with the arguments passed.
+     * Passes the event to a single listener: on a background lane for {@link AsyncListener} listeners,
+     * otherwise on the current thread, subject to the {@link EventWatchdog}.
      *
-     * @param listener The event listener to be called.
-     * @param args     Arguments passed to the listener's handleEvent method.
-     * @throws NoSuchMethodException if a handleEvent method with matching arguments is not found.
+     * @param eventId  The identifier of the event being raised
+     * @param listener The listener to be called
+     * @param args     Arguments to be passed to the event listener's handleEvent method
      */
-    private static synchronized void invokeHandleEvent(Event listener, Object... args) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Method[] methods = listener.getClass().getMethods();
+    static void invokeListener(int eventId, EventListener listener, Object[] args) {
+        if (listener.invoker().isAsync()) {
+            AsyncEventExecutor.submit(eventId, listener, args);
+        } else if (EventWatchdog.beforeCall(eventId, listener, args)) {
+            dispatch(eventId, listener, args);
+        }
+    }
 
-        for (Method method : methods) {
-            if (!isCompatibleMethod(method, args)) continue;
+    /**
+     * Checks whether the listener can be called directly by {@link #raisePrimitive}, bypassing {@link #invokeListener}.
+     * This is the case for synchronous listeners that are not throttled by the {@link EventWatchdog}.
+     *
+     * @param listener The listener to be called
+     * @return true if the listener can be called directly on the current thread
+     */
+    static boolean isDirect(EventListener listener) {
+        return !listener.invoker().isAsync() && listener.watchdog().getAction() == null;
+    }
 
-            method.invoke(listener, args);
+    /**
+     * Calls the listener's handleEvent method compatible with the arguments, logging any errors.
+     *
+     * @param eventId  The identifier of the event being raised
+     * @param listener The listener to be called
+     * @param args     Arguments to be passed to the event listener's handleEvent method
+     */
+    static void dispatch(int eventId, EventListener listener, Object[] args) {
+        long start = startCall(eventId);
 
-            return;
+        try {
+            listener.invoker().invoke(listener.handler(), args);
+        } catch (NoSuchMethodException e) {
+            System.out.printf("[!] Compatible 'handleEvent' method not found for event '%s' in listener '%s'. Argument types: '%s'%n",
+                    EventRegistry.getName(eventId),
+                    listener.handler().getClass(),
+                    getArgumentTypes(args));
+        } catch (InvocationTargetException e) {
+            logCallError(eventId, listener, getArgumentTypes(args), e.getCause() != null ? e.getCause() : e);
+        } finally {
+            finishCall(eventId, listener, start);
         }
+    }
 
-        throw new NoSuchMethodException();
+    /**
+     * Starts timing the whole dispatch of an event, if metrics are enabled.
+     *
+     * @return The start timestamp in nanoseconds, or zero if the dispatch is not timed
+     */
+    static long startDispatch() {
+        return EventMetrics.isEnabled() ? System.nanoTime() : 0;
     }
 
     /**
-     * Checks whether the method meets the requirements to be called.
-     * The method must be named "handleEvent" and have parameter types compatible with the arguments passed.
+     * Records the time of the whole dispatch of an event started by {@link #startDispatch()}.
      *
-     * @param method Method to check.
-     * @param args   Arguments to be passed to the method.
-     * @return true if the method meets the requirements to be called.
+     * @param eventId The identifier of the event
+     * @param start   The start timestamp returned by {@link #startDispatch()}
      */
-    private static boolean isCompatibleMethod(Method method, Object[] args) {
-        if (!method.getName().equals("handleEvent") || method.getParameterTypes().length != args.length) {
-            return false;
+    static void finishDispatch(int eventId, long start) {
+        if (start != 0) {
+            EventMetrics.getEventStats(eventId).record(System.nanoTime() - start);
         }
+    }
 
-        for (int i = 0; i < method.getParameterTypes().length; i++) {
-            if (!method.getParameterTypes()[i].isAssignableFrom(args[i].getClass())) {
-                return false;
-            }
+    /**
+     * Starts timing a single listener call, if metrics are enabled or the event has a time budget.
+     *
+     * @param eventId The identifier of the event
+     * @return The start timestamp in nanoseconds, or zero if the call is not timed
+     */
+    static long startCall(int eventId) {
+        return EventMetrics.isEnabled() || EventWatchdog.getBudgetNanos(eventId) != 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time of a listener call started by {@link #startCall(int)} in the metrics,
+     * and in the {@link EventWatchdog} for the listeners it watches.
+     *
+     * @param eventId  The identifier of the event
+     * @param listener The called listener
+     * @param start    The start timestamp returned by {@link #startCall(int)}
+     */
+    static void finishCall(int eventId, EventListener listener, long start) {
+        if (start == 0) return;
+
+        long elapsed = System.nanoTime() - start;
+        if (EventMetrics.isEnabled()) {
+            listener.stats().record(elapsed);
+        }
+        if (EventWatchdog.getBudgetNanos(eventId) != 0 && EventWatchdog.isWatched(listener)) {
+            EventWatchdog.afterCall(eventId, listener, elapsed);
+        }
+    }
+
+    /**
+     * Logs an exception thrown by a listener's handleEvent method.
+     *
+     * @param eventId       The identifier of the event
+     * @param listener      The listener that threw the exception
+     * @param argumentTypes Description of the argument types
+     * @param cause         The thrown exception
+     */
+    static void logCallError(int eventId, EventListener listener, String argumentTypes, Throwable cause) {
+        System.out.printf("[!] An exception occurred when trying to invoke event '%s' with arguments '%s' in listener '%s'! Reason: %s%n",
+                EventRegistry.getName(eventId),
+                argumentTypes,
+                listener.handler().getClass(),
+                cause.getMessage());
+    }
+
+    /**
+     * Returns the listeners of the event in the order they are called.
+     *
+     * @param eventId The identifier of the event
+     * @return The array of listeners, or null if the event has no listeners. The array must not be modified.
+     */
+    static EventListener[] getListeners(int eventId) {
+        EventListener[][] current = listeners;
+        return eventId >= 0 && eventId < current.length ? current[eventId] : null;
+    }
+
+    /**
+     * Publishes a new array of listeners for the event. Must be called while holding the {@link EventManager} lock.
+     * The {@link EventHooks} of the event are relinked if the event gets its first listener or loses its last one,
+     * and the {@link EventBatcher} stops collecting for the event once it loses its last listener.
+     *
+     * @param eventId        The identifier of the event
+     * @param eventListeners The sorted array of listeners, or null to remove all listeners of the event
+     */
+    private static void setListeners(int eventId, EventListener[] eventListeners) {
+        EventListener[][] current = listeners;
+        boolean hadListeners = eventId < current.length && current[eventId] != null;
+
+        EventListener[][] updated = Arrays.copyOf(current, Math.max(current.length, eventId + 1));
+        updated[eventId] = eventListeners;
+        listeners = updated;
+
+        if (hadListeners != (eventListeners != null)) {
+            EventHooks.onListenersChanged(eventId);
+        }
+        if (hadListeners && eventListeners == null) {
+            EventBatcher.detach(eventId);
         }
-        return true;
+    }
+
+    /**
+     * Describes the types of the event arguments for error messages.
+     *
+     * @param args event arguments
+     * @return simple names of the argument types separated by commas, {@code null} arguments are described as 'null'
+     */
+    private static String getArgumentTypes(Object[] args) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Object arg : args) {
+            joiner.add(arg == null ? "null" : arg.getClass().getSimpleName());
+        }
+        return joiner.toString();
     }
 
     /**
@@ -161,7 +452,22 @@ public class EventManager {
      *
      * @param handler  Handler object for this event
      * @param priority Processing priority, according to the EventPriority enumeration
+     * @param invoker  Pre-compiled invoker of the handler's handleEvent methods
+     * @param pluginId ID of the plugin the handler belongs to, or null if it does not belong to a plugin
+     * @param stats    Dispatch statistics of this listener
+     * @param watchdog Time budget state of this listener
      */
-    public record EventListener(Event handler, Priority priority) {
+    public record EventListener(Event handler, Priority priority, EventInvoker invoker, String pluginId, EventStats stats,
+                                EventWatchdog.State watchdog) {
+        /**
+         * Creates a listener, resolving the invoker and the plugin of the handler class.
+         *
+         * @param handler  Handler object for this event
+         * @param priority Processing priority, according to the EventPriority enumeration
+         */
+        public EventListener(Event handler, Priority priority) {
+            this(handler, priority, EventInvoker.forClass(handler.getClass()), PluginClassLoader.getPluginId(handler.getClass()), new EventStats(),
+                    new EventWatchdog.State());
+        }
     }
 }
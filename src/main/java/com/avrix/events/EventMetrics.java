@@ -0,0 +1,200 @@
+package com.avrix.events;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects dispatch metrics of the {@link EventManager}: per event (time of the whole dispatch on the raising thread)
+ * and per listener (time of each listener call, including asynchronous ones).
+ * <p>
+ * Metrics are enabled by default and can be disabled with the {@code avrix.events.metrics=false} system property
+ * or at runtime with {@link #setEnabled(boolean)}.
+ */
+public final class EventMetrics {
+    /**
+     * Interval between metric dumps to a file (in seconds), configured by the {@code avrix.events.metricsDumpInterval}
+     * system property. Zero or a negative value disables dumping.
+     */
+    private static final long DUMP_INTERVAL = Long.getLong("avrix.events.metricsDumpInterval", 300);
+
+    /**
+     * Date format of the report header
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("avrix.events.metrics", "true")); // Whether metrics are collected
+    private static volatile EventStats[] eventStats = new EventStats[0]; // Statistics of events, indexed by the event identifier
+    private static ScheduledExecutorService dumpExecutor; // Executor of periodic dumps
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventMetrics() {
+    }
+
+    /**
+     * Checks whether metrics are collected.
+     *
+     * @return true if metrics are collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the collection of metrics. Already collected metrics are kept.
+     *
+     * @param enable true to collect metrics
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Returns the statistics of the event, creating them on the first call.
+     *
+     * @param eventId the identifier of the event from the {@link EventRegistry}
+     * @return the statistics of the event
+     */
+    public static EventStats getEventStats(int eventId) {
+        EventStats[] current = eventStats;
+        if (eventId < current.length && current[eventId] != null) {
+            return current[eventId];
+        }
+
+        synchronized (EventMetrics.class) {
+            current = eventStats;
+            if (eventId >= current.length) {
+                current = Arrays.copyOf(current, Math.max(eventId + 1, EventRegistry.size()));
+            }
+            if (current[eventId] == null) {
+                current[eventId] = new EventStats();
+            }
+            eventStats = current;
+            return current[eventId];
+        }
+    }
+
+    /**
+     * Resets the statistics of all events and all registered listeners.
+     */
+    public static void reset() {
+        for (EventStats stats : eventStats) {
+            if (stats != null) stats.reset();
+        }
+
+        for (List<EventManager.EventListener> listeners : EventManager.getAllListeners().values()) {
+            for (EventManager.EventListener listener : listeners) {
+                listener.stats().reset();
+            }
+        }
+    }
+
+    /**
+     * Builds a text report with the events and listeners that took the most time.
+     *
+     * @param limit maximum number of events and listeners in the report
+     * @return the report text
+     */
+    public static String getReport(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Event metrics (").append(LocalDateTime.now().format(DATE_FORMAT)).append(", ")
+                .append(enabled ? "enabled" : "disabled").append("):\n");
+
+        // Events
+        List<Map.Entry<String, EventStats>> events = new ArrayList<>();
+        EventStats[] current = eventStats;
+        for (int eventId = 0; eventId < current.length; eventId++) {
+            if (current[eventId] != null && current[eventId].getCount() > 0) {
+                events.add(Map.entry(EventRegistry.getName(eventId), current[eventId]));
+            }
+        }
+        events.sort(Comparator.comparingLong((Map.Entry<String, EventStats> e) -> e.getValue().getTotalNanos()).reversed());
+
+        sb.append("  Events (top ").append(limit).append(" of ").append(events.size()).append(" by total time):\n");
+        for (Map.Entry<String, EventStats> entry : events.subList(0, Math.min(limit, events.size()))) {
+            appendStats(sb.append("    - ").append(entry.getKey()).append(": "), entry.getValue());
+        }
+
+        // Listeners
+        List<Map.Entry<String, EventStats>> listeners = new ArrayList<>();
+        for (Map.Entry<String, List<EventManager.EventListener>> entry : EventManager.getAllListeners().entrySet()) {
+            for (EventManager.EventListener listener : entry.getValue()) {
+                if (listener.stats().getCount() == 0) continue;
+
+                String name = String.format("[%s] %s (%s)",
+                        listener.pluginId() == null ? "unknown" : listener.pluginId(),
+                        listener.handler().getClass().getName(),
+                        entry.getKey());
+                listeners.add(Map.entry(name, listener.stats()));
+            }
+        }
+        listeners.sort(Comparator.comparingLong((Map.Entry<String, EventStats> e) -> e.getValue().getTotalNanos()).reversed());
+
+        sb.append("  Listeners (top ").append(limit).append(" of ").append(listeners.size()).append(" by total time):\n");
+        for (Map.Entry<String, EventStats> entry : listeners.subList(0, Math.min(limit, listeners.size()))) {
+            appendStats(sb.append("    - ").append(entry.getKey()).append(": "), entry.getValue());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Starts periodic dumps of the metrics report to a file, if dumping is enabled.
+     * The file is overwritten with each dump.
+     *
+     * @param file  the file to which the report is written
+     * @param limit maximum number of events and listeners in the report
+     */
+    public static synchronized void startDumping(Path file, int limit) {
+        if (DUMP_INTERVAL <= 0 || dumpExecutor != null) return;
+
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Avrix-EventMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        dumpExecutor.scheduleAtFixedRate(() -> dump(file, limit), DUMP_INTERVAL, DUMP_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the metrics report to a file.
+     *
+     * @param file  the file to which the report is written
+     * @param limit maximum number of events and listeners in the report
+     */
+    public static void dump(Path file, int limit) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, getReport(limit));
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to write event metrics to '%s'. Reason: %s%n", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a single line of statistics to the report.
+     *
+     * @param sb    the report builder
+     * @param stats the statistics
+     */
+    private static void appendStats(StringBuilder sb, EventStats stats) {
+        sb.append(String.format("calls=%d, total=%.2f ms, avg=%.2f us, p50<=%d us, p99<=%d us, max=%.2f us%n",
+                stats.getCount(),
+                stats.getTotalNanos() / 1_000_000.0,
+                stats.getAverageNanos() / 1_000.0,
+                stats.getPercentileNanos(50) / 1_000,
+                stats.getPercentileNanos(99) / 1_000,
+                stats.getMaxNanos() / 1_000.0));
+    }
+}
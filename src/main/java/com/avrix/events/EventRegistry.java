@@ -0,0 +1,91 @@
+package com.avrix.events;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of event names, which assigns each event a dense integer identifier.
+ * <p>
+ * Names are interned case-insensitively, so {@code "OnTick"} and {@code "onTick"} denote the same event.
+ * The identifier of an event never changes during the lifetime of the process, so it can be resolved once
+ * (when a patch is compiled or a listener is registered) and then used to dispatch the event by array index.
+ */
+public final class EventRegistry {
+    /**
+     * Identifiers by the exact spelling of the event name, allows lookups without case conversion
+     */
+    private static final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Identifiers by the lower-case event name
+     */
+    private static final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Event names by identifier, in the spelling in which the event was first registered
+     */
+    private static volatile String[] names = new String[0];
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventRegistry() {
+    }
+
+    /**
+     * Returns the identifier of the event, registering the event name if it is not yet known.
+     *
+     * @param eventName the name of the event, case insensitive
+     * @return the identifier of the event
+     */
+    public static int getId(String eventName) {
+        Integer id = idsByName.get(eventName);
+        return id != null ? id : register(eventName);
+    }
+
+    /**
+     * Returns the name of the event with the specified identifier.
+     *
+     * @param eventId the identifier of the event
+     * @return the name of the event in the spelling in which it was first registered, or {@code null} if the identifier is unknown
+     */
+    public static String getName(int eventId) {
+        String[] current = names;
+        return eventId >= 0 && eventId < current.length ? current[eventId] : null;
+    }
+
+    /**
+     * Returns the number of registered events. Identifiers are in the range from zero to this value (exclusive).
+     *
+     * @return the number of registered events
+     */
+    public static int size() {
+        return names.length;
+    }
+
+    /**
+     * Registers the event name, or binds a new spelling to the identifier of an already registered event.
+     *
+     * @param eventName the name of the event
+     * @return the identifier of the event
+     */
+    private static synchronized int register(String eventName) {
+        String key = eventName.toLowerCase(Locale.ROOT);
+        Integer id = idsByKey.get(key);
+
+        if (id == null) {
+            String[] current = names;
+            String[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = eventName;
+
+            id = current.length;
+            names = updated;
+            idsByKey.put(key, id);
+        }
+
+        idsByName.put(eventName, id);
+        return id;
+    }
+}
@@ -0,0 +1,140 @@
+package com.avrix.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatch statistics of an event or of a single listener: number of calls, cumulative and maximum time,
+ * and a latency histogram with power-of-two buckets.
+ * <p>
+ * Recording a call is lock-free and allocation-free, so statistics can be collected permanently.
+ */
+public final class EventStats {
+    /**
+     * Number of histogram buckets. Bucket {@code i} counts calls that took less than {@code 2^i} microseconds
+     * (and at least {@code 2^(i-1)} microseconds), the last bucket also counts all longer calls.
+     */
+    public static final int BUCKETS_COUNT = 24;
+
+    private final LongAdder count = new LongAdder(); // Number of recorded calls
+    private final LongAdder totalNanos = new LongAdder(); // Cumulative time of recorded calls
+    private final AtomicLong maxNanos = new AtomicLong(); // Longest recorded call
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS_COUNT); // Latency histogram
+
+    /**
+     * Records a call that took the specified time.
+     *
+     * @param nanos duration of the call in nanoseconds
+     */
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        histogram.incrementAndGet(getBucket(nanos));
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded calls.
+     *
+     * @return number of calls
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the cumulative time of the recorded calls.
+     *
+     * @return cumulative time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the time of the longest recorded call.
+     *
+     * @return maximum time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the average time of the recorded calls.
+     *
+     * @return average time in nanoseconds, or zero if there were no calls
+     */
+    public long getAverageNanos() {
+        long calls = getCount();
+        return calls == 0 ? 0 : getTotalNanos() / calls;
+    }
+
+    /**
+     * Returns the number of calls counted in the histogram bucket.
+     *
+     * @param bucket index of the bucket, from zero to {@link #BUCKETS_COUNT} (exclusive)
+     * @return number of calls in the bucket
+     */
+    public long getBucketCount(int bucket) {
+        return histogram.get(bucket);
+    }
+
+    /**
+     * Estimates the percentile of the call time from the histogram.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return upper bound of the histogram bucket containing the percentile, in nanoseconds,
+     * or zero if there were no calls
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] buckets = new long[BUCKETS_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            buckets[i] = histogram.get(i);
+            total += buckets[i];
+        }
+
+        if (total == 0) return 0;
+
+        long threshold = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long accumulated = 0;
+        for (int i = 0; i < BUCKETS_COUNT - 1; i++) {
+            accumulated += buckets[i];
+            if (accumulated >= threshold) {
+                return (1L << i) * 1000;
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * Resets all statistics.
+     */
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    /**
+     * Determines the histogram bucket for the call time.
+     *
+     * @param nanos duration of the call in nanoseconds
+     * @return index of the bucket
+     */
+    private static int getBucket(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS_COUNT - 1);
+    }
+}
@@ -0,0 +1,287 @@
+package com.avrix.events;
+
+import com.avrix.enums.Priority;
+import com.avrix.enums.WatchdogAction;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces per-event time budgets on listeners.
+ * <p>
+ * If a listener call exceeds the budget of the event {@code avrix.events.watchdogStrikes} times in a row (10 by default),
+ * the configured {@link WatchdogAction} is applied to the listener (see {@code avrix.events.watchdogAction}, SAMPLE by default).
+ * A sampled or deferred listener returns to normal after {@code avrix.events.watchdogRecovery} consecutive calls within the budget,
+ * a disabled one only after {@link #restore()}.
+ * <p>
+ * Listeners with priority {@code avrix.events.watchdogExemptPriority} (HIGHEST by default) or higher are never throttled.
+ * Budgets are set in microseconds by the {@code avrix.events.budgets} system property (e.g. {@code OnTick=2000,OnZombieUpdate=500})
+ * or by {@link #setBudget(String, long)}. Events without a budget are not watched.
+ */
+public final class EventWatchdog {
+    /**
+     * Number of consecutive over-budget calls after which the listener is throttled
+     */
+    private static final int STRIKES = Math.max(1, Integer.getInteger("avrix.events.watchdogStrikes", 10));
+
+    /**
+     * Number of consecutive calls within the budget after which a throttled listener returns to normal
+     */
+    private static final int RECOVERY = Math.max(1, Integer.getInteger("avrix.events.watchdogRecovery", 50));
+
+    /**
+     * Throttled listeners are called once per this number of dispatches
+     */
+    private static final int THROTTLE_RATE = Math.max(2, Integer.getInteger("avrix.events.watchdogRate", 10));
+
+    /**
+     * Maximum number of deferred calls per listener
+     */
+    private static final int DEFERRED_LIMIT = 256;
+
+    /**
+     * Action applied to listeners that exceed the budget
+     */
+    private static final WatchdogAction ACTION = WatchdogAction.fromString(System.getProperty("avrix.events.watchdogAction", "SAMPLE"));
+
+    /**
+     * Listeners with this priority or higher are never throttled
+     */
+    private static final Priority EXEMPT_PRIORITY = Priority.valueOf(System.getProperty("avrix.events.watchdogExemptPriority", "HIGHEST").toUpperCase(Locale.ROOT));
+
+    /**
+     * Event name used to notify about throttled listeners
+     */
+    private static final String THROTTLED_EVENT_NAME = "onListenerThrottled";
+
+    private static volatile long[] budgets = new long[0]; // Budgets in nanoseconds, indexed by the event identifier
+
+    /*
+     Loading budgets from the system properties
+    */
+    static {
+        String config = System.getProperty("avrix.events.budgets", "");
+        for (String entry : config.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) continue;
+
+            try {
+                setBudget(parts[0].trim(), Long.parseLong(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                System.out.printf("[!] Invalid event budget '%s'. Expected format: 'EventName=microseconds'%n", entry);
+            }
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventWatchdog() {
+    }
+
+    /**
+     * Sets the time budget of a single listener call for the event.
+     *
+     * @param eventName the name of the event, case insensitive
+     * @param micros    the budget in microseconds, zero or a negative value removes the budget
+     */
+    public static synchronized void setBudget(String eventName, long micros) {
+        int eventId = EventRegistry.getId(eventName);
+        long[] updated = Arrays.copyOf(budgets, Math.max(budgets.length, eventId + 1));
+        updated[eventId] = Math.max(0, TimeUnit.MICROSECONDS.toNanos(micros));
+        budgets = updated;
+    }
+
+    /**
+     * Returns the time budget of a single listener call for the event.
+     *
+     * @param eventId the identifier of the event
+     * @return the budget in nanoseconds, or zero if the event has no budget
+     */
+    public static long getBudgetNanos(int eventId) {
+        long[] current = budgets;
+        return eventId >= 0 && eventId < current.length ? current[eventId] : 0;
+    }
+
+    /**
+     * Restores all throttled and disabled listeners and drops their deferred calls.
+     */
+    public static void restore() {
+        for (List<EventManager.EventListener> listeners : EventManager.getAllListeners().values()) {
+            for (EventManager.EventListener listener : listeners) {
+                listener.watchdog().restore();
+            }
+        }
+    }
+
+    /**
+     * Builds a text description of all throttled and disabled listeners.
+     *
+     * @return the description text
+     */
+    public static String getReport() {
+        StringBuilder sb = new StringBuilder("Throttled listeners:\n");
+        int count = 0;
+
+        for (Map.Entry<String, List<EventManager.EventListener>> entry : EventManager.getAllListeners().entrySet()) {
+            for (EventManager.EventListener listener : entry.getValue()) {
+                WatchdogAction action = listener.watchdog().getAction();
+                if (action == null) continue;
+
+                sb.append("    - [").append(listener.pluginId() == null ? "unknown" : listener.pluginId()).append("] ")
+                        .append(listener.handler().getClass().getName())
+                        .append(" (").append(entry.getKey()).append("): ").append(action).append('\n');
+                count++;
+            }
+        }
+
+        if (count == 0) {
+            sb.append("    none\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether the listener is subject to the watchdog. Asynchronous listeners run on background lanes,
+     * where they neither hold up the event nor can be throttled, so their calls are not accounted.
+     * The internal listeners of the {@link EventBatcher} are not accounted either, throttling them would drop
+     * or delay the entities of every {@link BatchEvent} listener.
+     *
+     * @param listener the listener
+     * @return true if the calls of the listener are accounted against the budget of the event
+     */
+    static boolean isWatched(EventManager.EventListener listener) {
+        return !listener.invoker().isAsync() && !EventBatcher.isInternal(listener.handler());
+    }
+
+    /**
+     * Decides whether the listener should be called for the current dispatch.
+     * For deferred listeners, queues the current call and runs one of the deferred calls when it is time.
+     *
+     * @param eventId  the identifier of the event
+     * @param listener the listener
+     * @param args     arguments of the event
+     * @return true if the listener should be called with the current arguments
+     */
+    static boolean beforeCall(int eventId, EventManager.EventListener listener, Object[] args) {
+        State state = listener.watchdog();
+        WatchdogAction action = state.action;
+
+        if (action == null) return true;
+
+        switch (action) {
+            case SAMPLE:
+                return state.calls.incrementAndGet() % THROTTLE_RATE == 0;
+            case DEFER:
+                state.defer(AsyncEventExecutor.snapshot(args));
+                if (state.calls.incrementAndGet() % THROTTLE_RATE == 0) {
+                    Object[] deferred = state.deferred.poll();
+                    if (deferred != null) {
+                        state.deferredCount.decrementAndGet();
+                        EventManager.dispatch(eventId, listener, deferred);
+                    }
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Accounts the duration of the listener call against the budget of the event and throttles the listener if needed.
+     *
+     * @param eventId  the identifier of the event
+     * @param listener the listener
+     * @param nanos    duration of the call in nanoseconds
+     */
+    static void afterCall(int eventId, EventManager.EventListener listener, long nanos) {
+        long budget = getBudgetNanos(eventId);
+        if (budget == 0 || listener.priority().ordinal() <= EXEMPT_PRIORITY.ordinal()) return;
+
+        State state = listener.watchdog();
+
+        if (nanos <= budget) {
+            state.strikes.set(0);
+            // Only the call reaching the limit restores the listener, the event may be raised from several game threads
+            if (state.action != null && state.action != WatchdogAction.DISABLE && state.recovered.incrementAndGet() == RECOVERY) {
+                state.restore();
+                System.out.printf("[#] Listener '%s' of event '%s' is back within the budget and is no longer throttled%n",
+                        listener.handler().getClass().getName(), EventRegistry.getName(eventId));
+            }
+            return;
+        }
+
+        state.recovered.set(0);
+        if (state.action != null || state.strikes.incrementAndGet() != STRIKES) return;
+
+        state.action = ACTION;
+        state.strikes.set(0);
+
+        String pluginId = listener.pluginId() == null ? "unknown" : listener.pluginId();
+        System.out.printf("[!] Listener '%s' (plugin: %s) exceeded the budget of event '%s' (%d us) %d times in a row. Action: %s%n",
+                listener.handler().getClass().getName(),
+                pluginId,
+                EventRegistry.getName(eventId),
+                TimeUnit.NANOSECONDS.toMicros(budget),
+                STRIKES,
+                ACTION);
+
+        EventManager.invokeEvent(THROTTLED_EVENT_NAME, EventRegistry.getName(eventId), pluginId, listener.handler().getClass().getName(), ACTION.name());
+    }
+
+    /**
+     * Watchdog state of a single synchronous listener
+     */
+    public static final class State {
+        private final AtomicInteger calls = new AtomicInteger(); // Dispatch counter of a throttled listener
+        private final Queue<Object[]> deferred = new ConcurrentLinkedQueue<>(); // Deferred calls
+        private final AtomicInteger deferredCount = new AtomicInteger(); // Number of deferred calls
+        private volatile WatchdogAction action; // Applied action, or null if the listener is not throttled
+        private final AtomicInteger strikes = new AtomicInteger(); // Consecutive calls over the budget
+        private final AtomicInteger recovered = new AtomicInteger(); // Consecutive calls within the budget while throttled
+
+        /**
+         * Returns the action applied to the listener.
+         *
+         * @return the applied {@link WatchdogAction}, or {@code null} if the listener is not throttled
+         */
+        public WatchdogAction getAction() {
+            return action;
+        }
+
+        /**
+         * Returns the number of calls waiting to be executed.
+         *
+         * @return the number of deferred calls
+         */
+        public int getDeferredCount() {
+            return deferredCount.get();
+        }
+
+        /**
+         * Returns the listener to normal and drops the deferred calls.
+         */
+        public void restore() {
+            action = null;
+            strikes.set(0);
+            recovered.set(0);
+            deferred.clear();
+            deferredCount.set(0);
+        }
+
+        /**
+         * Queues a call, dropping the oldest one if the queue is full.
+         *
+         * @param args snapshot of the event arguments
+         */
+        private void defer(Object[] args) {
+            deferred.add(args);
+            if (deferredCount.incrementAndGet() > DEFERRED_LIMIT && deferred.poll() != null) {
+                deferredCount.decrementAndGet();
+            }
+        }
+    }
+}
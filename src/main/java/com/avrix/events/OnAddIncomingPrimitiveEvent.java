@@ -0,0 +1,53 @@
+package com.avrix.events;
+
+import zombie.core.raknet.UdpConnection;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Primitive-specialized variant of {@link OnAddIncomingEvent}: triggered when a packet from a client arrives at the server
+ * and receives the opcode as a {@code short}, without boxing.
+ * <p>
+ * Listeners of this class are called directly by {@link #raise(short, ByteBuffer, UdpConnection)}.
+ * Listeners of {@link OnAddIncomingEvent} registered for the same event keep working, the arguments are boxed only for them.
+ */
+public abstract class OnAddIncomingPrimitiveEvent extends Event {
+    /**
+     * Identifier of the event in the {@link EventRegistry}
+     */
+    private static final int EVENT_ID = EventRegistry.getId("onAddIncoming");
+
+    /**
+     * Raises the event, calling listeners of this class without boxing the arguments.
+     *
+     * @param opcode           an opcode that specifies the type of event
+     * @param data             data associated with a packet, represented as a ByteBuffer
+     * @param playerConnection player connection associated with packet
+     */
+    public static void raise(short opcode, ByteBuffer data, UdpConnection playerConnection) {
+        if (!EventManager.hasListeners(EVENT_ID)) return;
+
+        EventManager.raisePrimitive(EVENT_ID, OnAddIncomingPrimitiveEvent.class, "short, ByteBuffer, UdpConnection",
+                handler -> handler.handleEvent(opcode, data, playerConnection),
+                () -> new Object[]{opcode, data, playerConnection});
+    }
+
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "onAddIncoming";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param opcode           an opcode that specifies the type of event
+     * @param data             data associated with a packet, represented as a ByteBuffer
+     * @param playerConnection player connection associated with packet
+     */
+    public abstract void handleEvent(short opcode, ByteBuffer data, UdpConnection playerConnection);
+}
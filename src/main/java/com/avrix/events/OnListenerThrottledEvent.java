@@ -0,0 +1,26 @@
+package com.avrix.events;
+
+/**
+ * Triggered when the event watchdog throttles or disables a listener that repeatedly exceeded the time budget of an event.
+ */
+public abstract class OnListenerThrottledEvent extends Event {
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "onListenerThrottled";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param eventName     Name of the event whose budget was exceeded.
+     * @param pluginId      ID of the plugin the listener belongs to, or 'unknown'.
+     * @param listenerClass Full name of the listener class.
+     * @param action        Name of the applied {@link com.avrix.enums.WatchdogAction}.
+     */
+    public abstract void handleEvent(String eventName, String pluginId, String listenerClass, String action);
+}
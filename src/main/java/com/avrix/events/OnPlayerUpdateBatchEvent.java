@@ -0,0 +1,38 @@
+package com.avrix.events;
+
+import zombie.characters.IsoPlayer;
+
+import java.util.List;
+
+/**
+ * Batched variant of {@link OnPlayerUpdateEvent}: triggered once per tick with all players updated during the tick.
+ */
+public abstract class OnPlayerUpdateBatchEvent extends BatchEvent<IsoPlayer> {
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "OnPlayerUpdateBatch";
+    }
+
+    /**
+     * Getting the name of the per-entity event whose arguments are collected
+     *
+     * @return name of the collected event
+     */
+    @Override
+    public String getSourceEventName() {
+        return "OnPlayerUpdate";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param players The players that were updated during the tick. The list is only valid during the call.
+     */
+    @Override
+    public abstract void handleEvent(List<IsoPlayer> players);
+}
@@ -0,0 +1,59 @@
+package com.avrix.events;
+
+/**
+ * Primitive-specialized variant of {@link OnTickEvent}: triggered every tick and receives the number of ticks
+ * as a {@code double}, without boxing.
+ * <p>
+ * Listeners of this class are called directly by {@link #raise(double)}. Listeners of {@link OnTickEvent}
+ * registered for the same event keep working, the arguments are boxed only for them.
+ */
+public abstract class OnTickPrimitiveEvent extends Event {
+    /**
+     * Identifier of the event in the {@link EventRegistry}
+     */
+    private static final int EVENT_ID = EventRegistry.getId("OnTick");
+
+    /**
+     * Raises the event, calling listeners of this class without boxing the arguments.
+     *
+     * @param numberTicks The number of ticks.
+     */
+    public static void raise(double numberTicks) {
+        if (!EventManager.hasListeners(EVENT_ID)) return;
+
+        EventManager.raisePrimitive(EVENT_ID, OnTickPrimitiveEvent.class, "double",
+                handler -> handler.handleEvent(numberTicks),
+                () -> new Object[]{numberTicks});
+    }
+
+    /**
+     * Raises the event with an already boxed argument, calling listeners of this class with the unboxed value
+     * and passing the same object to the other listeners.
+     *
+     * @param numberTicks The number of ticks.
+     */
+    public static void raiseBoxed(Double numberTicks) {
+        if (!EventManager.hasListeners(EVENT_ID)) return;
+
+        EventManager.raisePrimitive(EVENT_ID, OnTickPrimitiveEvent.class, "double",
+                handler -> handler.handleEvent(numberTicks),
+                () -> new Object[]{numberTicks});
+    }
+
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "OnTick";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param numberTicks The number of ticks.
+     */
+    public abstract void handleEvent(double numberTicks);
+}
@@ -0,0 +1,76 @@
+package com.avrix.events;
+
+import zombie.iso.IsoObject;
+
+/**
+ * Primitive-specialized variant of {@link OnWorldSoundEvent}: triggered when a sound is being played
+ * and receives the coordinates, radius and volume as {@code int}s, without boxing.
+ * <p>
+ * Listeners of this class are called directly by {@link #raise(int, int, int, int, int, IsoObject)}.
+ * Listeners of {@link OnWorldSoundEvent} registered for the same event keep working, the arguments are boxed only for them.
+ */
+public abstract class OnWorldSoundPrimitiveEvent extends Event {
+    /**
+     * Identifier of the event in the {@link EventRegistry}
+     */
+    private static final int EVENT_ID = EventRegistry.getId("OnWorldSound");
+
+    /**
+     * Raises the event, calling listeners of this class without boxing the arguments.
+     *
+     * @param x      The x coordinate of the sound.
+     * @param y      The y coordinate of the sound.
+     * @param z      The z coordinate of the sound.
+     * @param radius The radius of the sound.
+     * @param volume The volume of the sound.
+     * @param source The object that triggered the sound.
+     */
+    public static void raise(int x, int y, int z, int radius, int volume, IsoObject source) {
+        if (!EventManager.hasListeners(EVENT_ID)) return;
+
+        EventManager.raisePrimitive(EVENT_ID, OnWorldSoundPrimitiveEvent.class, "int, int, int, int, int, IsoObject",
+                handler -> handler.handleEvent(x, y, z, radius, volume, source),
+                () -> new Object[]{x, y, z, radius, volume, source});
+    }
+
+    /**
+     * Raises the event with already boxed arguments, calling listeners of this class with the unboxed values
+     * and passing the same objects to the other listeners.
+     *
+     * @param x      The x coordinate of the sound.
+     * @param y      The y coordinate of the sound.
+     * @param z      The z coordinate of the sound.
+     * @param radius The radius of the sound.
+     * @param volume The volume of the sound.
+     * @param source The object that triggered the sound.
+     */
+    public static void raiseBoxed(Integer x, Integer y, Integer z, Integer radius, Integer volume, IsoObject source) {
+        if (!EventManager.hasListeners(EVENT_ID)) return;
+
+        EventManager.raisePrimitive(EVENT_ID, OnWorldSoundPrimitiveEvent.class, "int, int, int, int, int, IsoObject",
+                handler -> handler.handleEvent(x, y, z, radius, volume, source),
+                () -> new Object[]{x, y, z, radius, volume, source});
+    }
+
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "OnWorldSound";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param x      The x coordinate of the sound.
+     * @param y      The y coordinate of the sound.
+     * @param z      The z coordinate of the sound.
+     * @param radius The radius of the sound.
+     * @param volume The volume of the sound.
+     * @param source The object that triggered the sound.
+     */
+    public abstract void handleEvent(int x, int y, int z, int radius, int volume, IsoObject source);
+}
@@ -0,0 +1,38 @@
+package com.avrix.events;
+
+import zombie.characters.IsoZombie;
+
+import java.util.List;
+
+/**
+ * Batched variant of {@link OnZombieUpdateEvent}: triggered once per tick with all zombies updated during the tick.
+ */
+public abstract class OnZombieUpdateBatchEvent extends BatchEvent<IsoZombie> {
+    /**
+     * Getting the event name
+     *
+     * @return name of the event being implemented
+     */
+    @Override
+    public String getEventName() {
+        return "OnZombieUpdateBatch";
+    }
+
+    /**
+     * Getting the name of the per-entity event whose arguments are collected
+     *
+     * @return name of the collected event
+     */
+    @Override
+    public String getSourceEventName() {
+        return "OnZombieUpdate";
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param zombies The zombies that were updated during the tick. The list is only valid during the call.
+     */
+    @Override
+    public abstract void handleEvent(List<IsoZombie> zombies);
+}
@@ -1,5 +1,7 @@
 package com.avrix.lua;
 
+import com.avrix.plugin.PluginClassLoader;
+
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -63,6 +65,22 @@ public class LuaExposer {
         exposedClasses.remove(clazz);
     }
 
+    /**
+     * Removes all classes and global objects of the plugin, e.g. before the plugin is reloaded.
+     * They belong to the plugin as determined by {@link PluginClassLoader#getPluginId(Class)}.
+     * The removal takes effect when the Lua environment is created again, objects already exposed to a running
+     * Lua environment stay there until it is reset.
+     *
+     * @param pluginId ID of the plugin whose classes and global objects should be removed
+     * @return the number of removed classes and global objects
+     */
+    public static synchronized int removeAll(String pluginId) {
+        int sizeBefore = exposedClasses.size() + exposedGlobalObjects.size();
+        exposedClasses.removeIf(clazz -> pluginId.equals(PluginClassLoader.getPluginId(clazz)));
+        exposedGlobalObjects.removeIf(globalObject -> pluginId.equals(PluginClassLoader.getPluginId(globalObject.getClass())));
+        return sizeBefore - exposedClasses.size() - exposedGlobalObjects.size();
+    }
+
     /**
      * Method for removing a global object from the collection of exposed global objects.
      *
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import javassist.CannotCompileException;
 import javassist.expr.ExprEditor;
 import javassist.expr.MethodCall;
@@ -30,7 +31,7 @@ public class PatchBanUserCommand extends ClassTransformer {
                         if (m.getClassName().equals("zombie.core.raknet.UdpConnection") && m.getMethodName().equals("forceDisconnect")) {
                             String code = "{ "
                                     + "java.lang.String adminName = this.getExecutorUsername().isEmpty() ? \"Console\" : this.getExecutorUsername();"
-                                    + EventManager.class.getName() + ".invokeEvent(\"onPlayerBan\", new Object[]{$0, adminName, this.reason});"
+                                    + EventHooks.class.getName() + ".hook($0, adminName, this.reason, " + EventRegistry.getId("onPlayerBan") + ");"
                                     + "$proceed($$);"
                                     + "}";
                             m.replace(code);
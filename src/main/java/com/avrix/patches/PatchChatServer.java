@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import javassist.CannotCompileException;
 import javassist.expr.ExprEditor;
 import javassist.expr.MethodCall;
@@ -30,7 +31,7 @@ public class PatchChatServer extends ClassTransformer {
                         if (m.getMethodName().equals("unpackMessage")) {
                             m.replace("{ $_ = $proceed($$); " +
                                     "zombie.chat.ChatBase base = (zombie.chat.ChatBase)this.chats.get(new Integer($1.rewind().getInt()));"
-                                    + EventManager.class.getName() + ".invokeEvent(\"onChatMessageProcessed\", new Object[]{base, $_}); }");
+                                    + EventHooks.class.getName() + ".hook(base, $_, " + EventRegistry.getId("onChatMessageProcessed") + "); }");
                         }
                     }
                 });
@@ -2,7 +2,10 @@ package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
 import com.avrix.commands.CommandsManager;
+import com.avrix.events.EventHooks;
 import com.avrix.events.EventManager;
+import com.avrix.events.EventRegistry;
+import com.avrix.events.OnAddIncomingPrimitiveEvent;
 import javassist.CannotCompileException;
 import javassist.expr.ExprEditor;
 import javassist.expr.MethodCall;
@@ -30,7 +33,7 @@ public class PatchGameServer extends ClassTransformer {
                     public void edit(MethodCall m) throws CannotCompileException {
                         if (m.getClassName().contains("GlobalObject") && m.getMethodName().equals("refreshAnimSets")) {
                             m.replace("{ $proceed($$);" +
-                                    EventManager.class.getName() + ".invokeEvent(\"onServerInitialize\", new Object[0]); }");
+                                    EventHooks.class.getName() + ".hook(" + EventRegistry.getId("onServerInitialize") + "); }");
                         }
                     }
                 });
@@ -40,8 +43,9 @@ public class PatchGameServer extends ClassTransformer {
         }).modifyMethod("addIncoming", (ctClass, ctMethod) -> {
             try {
                 ctMethod.insertBefore("{ " +
-                        "java.nio.ByteBuffer bb = $2.duplicate();" +
-                        EventManager.class.getName() + ".invokeEvent(\"onAddIncoming\", new Object[]{new java.lang.Short($1), bb, $3}); " +
+                        "if (" + EventManager.class.getName() + ".hasListeners(" + EventRegistry.getId("onAddIncoming") + ")) {" +
+                        OnAddIncomingPrimitiveEvent.class.getName() + ".raise($1, $2.duplicate(), $3); " +
+                        "}" +
                         "}");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
@@ -50,7 +54,7 @@ public class PatchGameServer extends ClassTransformer {
             try {
                 ctMethod.insertBefore("{ " +
                         "if($1 != null) {" +
-                        EventManager.class.getName() + ".invokeEvent(\"onSendConsoleCommand\", new Object[]{$1}); " +
+                        EventHooks.class.getName() + ".hook($1, " + EventRegistry.getId("onSendConsoleCommand") + "); " +
                         "java.lang.String customResult = " + CommandsManager.class.getName() + ".handleCustomCommand($2, $1);" +
                         "if (customResult != null) return customResult;" +
                         "}" +
@@ -62,11 +66,11 @@ public class PatchGameServer extends ClassTransformer {
             try {
                 ctMethod.insertBefore("{ " +
                         "java.nio.ByteBuffer bb = $1.duplicate();" +
-                        EventManager.class.getName() + ".invokeEvent(\"onPlayerConnect\", new Object[]{bb, $2, $3}); " +
+                        EventHooks.class.getName() + ".hook(bb, $2, $3, " + EventRegistry.getId("onPlayerConnect") + "); " +
                         "}");
                 ctMethod.insertAfter("{ " +
                         "java.nio.ByteBuffer bb = $1.rewind().duplicate();" +
-                        EventManager.class.getName() + ".invokeEvent(\"onPlayerFullyConnected\", new Object[]{bb, $2, $3}); " +
+                        EventHooks.class.getName() + ".hook(bb, $2, $3, " + EventRegistry.getId("onPlayerFullyConnected") + "); " +
                         "}");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
@@ -74,7 +78,7 @@ public class PatchGameServer extends ClassTransformer {
         }).modifyMethod("disconnectPlayer", "zombie.characters.IsoPlayer, zombie.core.raknet.UdpConnection", (ctClass, ctMethod) -> {
             try {
                 ctMethod.insertBefore("{ " +
-                        EventManager.class.getName() + ".invokeEvent(\"onPlayerDisconnect\", $args); " +
+                        EventHooks.class.getName() + ".hook($1, $2, " + EventRegistry.getId("onPlayerDisconnect") + "); " +
                         "}");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
@@ -82,7 +86,7 @@ public class PatchGameServer extends ClassTransformer {
         }).modifyMethod("receiveReceiveCommand", (ctClass, ctMethod) -> {
             try {
                 String code = "{ java.lang.String readString = zombie.GameWindow.ReadString($1);" +
-                        EventManager.class.getName() + ".invokeEvent(\"onSendChatCommand\", new Object[]{$2, readString});" +
+                        EventHooks.class.getName() + ".hook($2, readString, " + EventRegistry.getId("onSendChatCommand") + ");" +
                         "java.lang.String handleCommand = " + CommandsManager.class.getName() + ".handleCustomCommand($2, readString);" +
                         "if (handleCommand == null) {" +
                         "    handleCommand = handleClientCommand(readString.substring(1), $2);" +
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import com.avrix.ui.WidgetManager;
 import com.avrix.utils.Constants;
 import javassist.CannotCompileException;
@@ -27,7 +28,7 @@ public class PatchGameWindow extends ClassTransformer {
     public void modifyClass() {
         getModifierBuilder().modifyMethod("init", (ctClass, ctMethod) -> {
             try {
-                ctMethod.insertAfter(EventManager.class.getName() + ".invokeEvent(\"onGameWindowInitialized\", new Object[0]);");
+                ctMethod.insertAfter(EventHooks.class.getName() + ".hook(" + EventRegistry.getId("onGameWindowInitialized") + ");");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
             }
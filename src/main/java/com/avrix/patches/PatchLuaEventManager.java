@@ -2,13 +2,38 @@ package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
 import com.avrix.events.EventManager;
+import com.avrix.events.EventRegistry;
+import com.avrix.events.OnTickPrimitiveEvent;
+import com.avrix.events.OnWorldSoundPrimitiveEvent;
 import javassist.CannotCompileException;
 import javassist.NotFoundException;
 
+import java.util.Map;
+import java.util.StringJoiner;
+
 /**
  * Lua Event Manager patcher
  */
 public class PatchLuaEventManager extends ClassTransformer {
+    /**
+     * Hot events that are passed to their primitive-specialized variants, by the number of event arguments
+     */
+    private static final Map<Integer, PrimitiveRoute> PRIMITIVE_ROUTES = Map.of(
+            1, new PrimitiveRoute("OnTick", OnTickPrimitiveEvent.class.getName(), "double"),
+            6, new PrimitiveRoute("OnWorldSound", OnWorldSoundPrimitiveEvent.class.getName(), "int", "int", "int", "int", "int", "zombie.iso.IsoObject")
+    );
+
+    /**
+     * Wrapper classes of the primitive types used by {@link #PRIMITIVE_ROUTES}
+     */
+    private static final Map<String, String> WRAPPERS = Map.of(
+            "short", "java.lang.Short",
+            "int", "java.lang.Integer",
+            "long", "java.lang.Long",
+            "float", "java.lang.Float",
+            "double", "java.lang.Double"
+    );
+
     /**
      * Constructor for creating a {@link ClassTransformer} object.
      */
@@ -27,14 +52,25 @@ public class PatchLuaEventManager extends ClassTransformer {
 
         for (int argCount = 0; argCount <= maxArgs; argCount++) {
             String signature = "java.lang.String" + ", java.lang.Object".repeat(Math.max(0, argCount));
+            PrimitiveRoute route = PRIMITIVE_ROUTES.get(argCount);
+
             getModifierBuilder().modifyMethod("triggerEvent", signature, (ctClass, ctMethod) -> {
                 try {
-                    StringBuilder code = new StringBuilder("{ ");
-                    code.append("Object[] args = new Object[").append(ctMethod.getParameterTypes().length - 1).append("]; ");
+                    // Most Lua events have no Java listeners, so the arguments are packed only when someone is listening
+                    StringBuilder code = new StringBuilder("{ if ($1 != null) { ");
+                    code.append("int eventId = ").append(EventRegistry.class.getName()).append(".getId($1); ");
+                    code.append("if (").append(EventManager.class.getName()).append(".hasListeners(eventId)) { ");
+
+                    // Hot events skip the argument array and are passed to primitive-specialized listeners unboxed
+                    if (route != null) {
+                        code.append(route.toCode()).append(" else ");
+                    }
+
+                    code.append("{ Object[] args = new Object[").append(ctMethod.getParameterTypes().length - 1).append("]; ");
                     for (int i = 2; i <= ctMethod.getParameterTypes().length; i++) {
                         code.append("args[").append(i - 2).append("] = $").append(i).append("; ");
                     }
-                    code.append(EventManager.class.getName()).append(".invokeEvent($1, args); }");
+                    code.append(EventManager.class.getName()).append(".invokeEvent(eventId, args); } } } }");
 
                     ctMethod.insertBefore(code.toString());
                 } catch (CannotCompileException | NotFoundException e) {
@@ -43,4 +79,41 @@ public class PatchLuaEventManager extends ClassTransformer {
             });
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Route of a hot event to the {@code raiseBoxed} method of its primitive-specialized variant
+     *
+     * @param eventName      name of the event
+     * @param eventClass     full name of the primitive-specialized event class
+     * @param parameterTypes unboxed parameter types of the {@code raise} method
+     */
+    private record PrimitiveRoute(String eventName, String eventClass, String... parameterTypes) {
+        /**
+         * Generates the code that checks the event identifier and argument types and calls the {@code raiseBoxed} method,
+         * which unboxes the arguments only for primitive-specialized listeners and passes the original Lua objects to the others.
+         * Arguments of the {@code triggerEvent} method start from {@code $2}.
+         *
+         * @return the {@code if} statement
+         */
+        private String toCode() {
+            StringBuilder condition = new StringBuilder("eventId == ").append(EventRegistry.getId(eventName));
+            StringJoiner arguments = new StringJoiner(", ");
+
+            for (int i = 0; i < parameterTypes.length; i++) {
+                String type = parameterTypes[i];
+                String arg = "$" + (i + 2);
+                String wrapper = WRAPPERS.get(type);
+
+                if (wrapper != null) {
+                    condition.append(" && ").append(arg).append(" instanceof ").append(wrapper);
+                    arguments.add("(" + wrapper + ") " + arg);
+                } else {
+                    condition.append(" && (").append(arg).append(" == null || ").append(arg).append(" instanceof ").append(type).append(")");
+                    arguments.add("(" + type + ") " + arg);
+                }
+            }
+
+            return "if (" + condition + ") { " + eventClass + ".raiseBoxed(" + arguments + "); }";
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import com.avrix.lua.LuaManager;
 import javassist.CannotCompileException;
 
@@ -25,7 +26,7 @@ public class PatchLuaManager extends ClassTransformer {
         getModifierBuilder().modifyMethod("LoadDirBase", "java.lang.String", (ctClass, ctMethod) -> {
             try {
                 String classCode = "{" +
-                        EventManager.class.getName() + ".invokeEvent(\"onLuaFilesLoaded\", new Object[]{$1});" +
+                        EventHooks.class.getName() + ".hook($1, " + EventRegistry.getId("onLuaFilesLoaded") + ");" +
                         "}";
                 ctMethod.insertAfter(classCode);
             } catch (CannotCompileException e) {
@@ -33,7 +34,7 @@ public class PatchLuaManager extends ClassTransformer {
             }
         }).modifyMethod("RunLuaInternal", (ctClass, ctMethod) -> {
             try {
-                ctMethod.insertBefore(EventManager.class.getName() + ".invokeEvent(\"onLuaScriptExecute\", $args);");
+                ctMethod.insertBefore(EventHooks.class.getName() + ".hook($1, ($w) $2, " + EventRegistry.getId("onLuaScriptExecute") + ");");
                 ctMethod.insertBefore("if (" + LuaManager.class.getName() + ".isLuaBlocked($1)) return null;");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
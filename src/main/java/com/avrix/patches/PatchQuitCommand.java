@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import javassist.CannotCompileException;
 
 /**
@@ -23,7 +24,7 @@ public class PatchQuitCommand extends ClassTransformer {
     public void modifyClass() {
         getModifierBuilder().modifyMethod("Command", (ctClass, ctMethod) -> {
             try {
-                ctMethod.insertBefore(EventManager.class.getName() + ".invokeEvent(\"onServerShutdown\", new Object[0]);");
+                ctMethod.insertBefore(EventHooks.class.getName() + ".hook(" + EventRegistry.getId("onServerShutdown") + ");");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
             }
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import com.avrix.ui.WidgetManager;
 import javassist.CannotCompileException;
 
@@ -25,7 +26,7 @@ public class PatchSpriteRenderer extends ClassTransformer {
         getModifierBuilder().modifyMethod("postRender", (ctClass, ctMethod) -> {
             try {
                 ctMethod.insertAfter(WidgetManager.class.getName() + ".onRender();");
-                ctMethod.insertAfter(EventManager.class.getName() + ".invokeEvent(\"onTickRenderThread\", new Object[0]);");
+                ctMethod.insertAfter(EventHooks.class.getName() + ".hook(" + EventRegistry.getId("onTickRenderThread") + ");");
             } catch (CannotCompileException e) {
                 throw new RuntimeException(e);
             }
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import javassist.CannotCompileException;
 
 /**
@@ -24,7 +25,7 @@ public class PatchTranslator extends ClassTransformer {
         getModifierBuilder().modifyMethod("setLanguage", "zombie.core.Language", (ctClass, ctMethod) -> {
             try {
                 String classCode = "{" +
-                        EventManager.class.getName() + ".invokeEvent(\"onChangeLanguage\", new Object[]{$1});" +
+                        EventHooks.class.getName() + ".hook($1, " + EventRegistry.getId("onChangeLanguage") + ");" +
                         "}";
                 ctMethod.insertAfter(classCode);
             } catch (CannotCompileException e) {
@@ -1,7 +1,8 @@
 package com.avrix.patches;
 
 import com.avrix.agent.ClassTransformer;
-import com.avrix.events.EventManager;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
 import javassist.CannotCompileException;
 import javassist.expr.ExprEditor;
 import javassist.expr.MethodCall;
@@ -31,7 +32,7 @@ public class PatchUnbanUserCommand extends ClassTransformer {
                             String code = "{ "
                                     + "$_ = $proceed($$);"
                                     + "java.lang.String adminName = this.getExecutorUsername().isEmpty() ? \"Console\" : this.getExecutorUsername();"
-                                    + EventManager.class.getName() + ".invokeEvent(\"onPlayerUnban\", new Object[]{$1, adminName});"
+                                    + EventHooks.class.getName() + ".hook($1, adminName, " + EventRegistry.getId("onPlayerUnban") + ");"
                                     + "}";
                             m.replace(code);
                         }
@@ -6,7 +6,14 @@ import com.avrix.utils.VersionChecker;
 import com.avrix.utils.YamlFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * Represents metadata for a plugin, including various details such as name, description, author, version, and dependencies.
@@ -24,6 +31,8 @@ public final class Metadata {
     private List<String> entryPointsList; // List of entry points as full class path
     private List<String> patchList; // List of classes that modify game code as a full class path
     private Map<String, String> dependenciesMap; // Dependency map, where the key is the identifier of the module (plugin), and the value is its version
+    private boolean threadSafe; // Whether the entry points can be initialized concurrently with other plugins
+    private boolean reloadable; // Whether the plugin can be reloaded without restarting the game
 
     /**
      * Private constructor to prevent direct instantiation.
@@ -42,6 +51,8 @@ public final class Metadata {
         this.dependenciesMap = new HashMap<>();
         this.patchList = Collections.emptyList();
         this.pluginFile = null;
+        this.threadSafe = false;
+        this.reloadable = false;
     }
 
     /**
@@ -52,7 +63,18 @@ public final class Metadata {
      * @return if creation is successful - {@link Metadata} object, if an error occurs - null
      */
     public static Metadata createFromJar(File jarFile, String metadataFileName) {
-        YamlFile yamlFile = new YamlFile(jarFile.getAbsolutePath(), metadataFileName);
+        YamlFile yamlFile;
+
+        // The jar is opened directly rather than through a 'jar:' URL, so it is not kept open in the URL cache
+        try (JarFile jar = new JarFile(jarFile)) {
+            JarEntry entry = jar.getJarEntry(metadataFileName);
+            if (entry == null) return null;
+
+            yamlFile = new YamlFile(jar.getInputStream(entry), Paths.get(jarFile.getAbsolutePath()).resolve(metadataFileName), metadataFileName);
+        } catch (IOException e) {
+            System.out.printf("[!] Error reading the metadata from the jar '%s': %s%n", jarFile.getName(), e.getMessage());
+            return null;
+        }
 
         if (yamlFile.isEmpty()) return null;
 
@@ -68,10 +90,80 @@ public final class Metadata {
                 .entryPointsList(yamlFile.getStringList("entrypoints"))
                 .patchList(yamlFile.getStringList("patches"))
                 .dependencies(yamlFile.getStringMap("dependencies"))
+                .threadSafe(yamlFile.getBoolean("thread-safe"))
+                .reloadable(yamlFile.getBoolean("reloadable"))
                 .pluginFile(jarFile)
                 .build();
     }
 
+    /**
+     * Creating metadata from files inside several Jar archives. The archives are opened and their metadata is parsed
+     * concurrently on a {@link ForkJoinPool}, the result keeps the order of the archives.
+     *
+     * @param jarFiles         Jar archives in the form {@link File}
+     * @param metadataFileName full path to the YAML file with metadata in the form {@link String}
+     * @param parallelism      maximum number of archives read at the same time, {@code 1} reads them on the calling thread
+     * @return the {@link Metadata} of each archive in the order of the archives, {@code null} for archives without metadata
+     * @throws NullPointerException if the metadata of an archive lacks a required field, the first such archive is reported
+     */
+    public static List<Metadata> createFromJars(List<File> jarFiles, String metadataFileName, int parallelism) {
+        return createFromJars(jarFiles, metadataFileName, parallelism, jarFile -> {
+        });
+    }
+
+    /**
+     * Creating metadata from files inside several Jar archives. The archives are opened and their metadata is parsed
+     * concurrently on a {@link ForkJoinPool}, the result keeps the order of the archives.
+     *
+     * @param jarFiles         Jar archives in the form {@link File}
+     * @param metadataFileName full path to the YAML file with metadata in the form {@link String}
+     * @param parallelism      maximum number of archives read at the same time, {@code 1} reads them on the calling thread
+     * @param onMetadataRead   called for each archive with metadata by the task that has read it, e.g. to hash the archive
+     *                         concurrently with {@link MetadataIndex#prepare(File)}; must be thread-safe
+     * @return the {@link Metadata} of each archive in the order of the archives, {@code null} for archives without metadata
+     * @throws NullPointerException if the metadata of an archive lacks a required field, the first such archive is reported
+     */
+    public static List<Metadata> createFromJars(List<File> jarFiles, String metadataFileName, int parallelism, Consumer<File> onMetadataRead) {
+        Metadata[] result = new Metadata[jarFiles.size()];
+
+        if (parallelism <= 1 || jarFiles.size() <= 1) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = createFromJar(jarFiles.get(i), metadataFileName, onMetadataRead);
+            }
+            return Arrays.asList(result);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, jarFiles.size()));
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < result.length; i++) {
+                int index = i;
+                tasks.add(pool.submit(() -> result[index] = createFromJar(jarFiles.get(index), metadataFileName, onMetadataRead)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdown();
+        }
+
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Creating metadata from a file inside a Jar archive and passing the archive to the callback if it has metadata.
+     *
+     * @param jarFile          Jar archive in the form {@link File}
+     * @param metadataFileName full path to the YAML file with metadata in the form {@link String}
+     * @param onMetadataRead   called with the archive if it has metadata
+     * @return the {@link Metadata} of the archive, or {@code null} if the archive has no metadata
+     */
+    private static Metadata createFromJar(File jarFile, String metadataFileName, Consumer<File> onMetadataRead) {
+        Metadata metadata = createFromJar(jarFile, metadataFileName);
+        if (metadata != null) {
+            onMetadataRead.accept(jarFile);
+        }
+        return metadata;
+    }
+
     /**
      * Sorts a list of {@link Metadata} objects based on their dependencies using topological sort.
      *
@@ -154,6 +246,35 @@ public final class Metadata {
         }
     }
 
+    /**
+     * Checks that no plugin that is not reloadable depends on a reloadable plugin.
+     * The classes of a plugin that is not reloadable are loaded by the system class loader,
+     * which cannot see the classes of a reloadable plugin, so such a dependent would fail with {@link NoClassDefFoundError}.
+     *
+     * @param metadataList the list of {@link Metadata} objects to be checked
+     * @throws IllegalStateException if a plugin that is not reloadable depends on a reloadable plugin
+     */
+    public static void checkReloadableDependencies(List<Metadata> metadataList) {
+        Map<String, Metadata> metadataMap = new HashMap<>();
+        for (Metadata metadata : metadataList) {
+            metadataMap.put(metadata.getId(), metadata);
+        }
+
+        for (Metadata metadata : metadataList) {
+            if (metadata.isReloadable() || metadata.getDependencies() == null) continue;
+
+            for (String depId : metadata.getDependencies().keySet()) {
+                Metadata dependency = metadataMap.get(depId);
+                if (dependency != null && dependency.isReloadable()) {
+                    throw new IllegalStateException(
+                            String.format("[!] Plugin '%s' depends on the reloadable plugin '%s', but is not reloadable itself. " +
+                                            "Declare 'reloadable: true' in '%s' or remove it from '%s'.",
+                                    metadata.getId(), depId, metadata.getId(), depId));
+                }
+            }
+        }
+    }
+
     /**
      * Returns a {@link File} object representing the configuration directory for this plugin.
      * The directory path is normalized to prevent problems with various file systems.
@@ -273,6 +394,27 @@ public final class Metadata {
         return dependenciesMap;
     }
 
+    /**
+     * Returns whether the entry points of the plugin can be initialized concurrently with other plugins
+     * that do not depend on it ({@code thread-safe: true} in the metadata).
+     *
+     * @return true if the plugin declares itself thread-safe
+     */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * Returns whether the plugin can be reloaded without restarting the game ({@code reloadable: true} in the metadata).
+     * The classes of a reloadable plugin are loaded only by its {@link PluginClassLoader}, so the code injected by its
+     * patches can use only game, loader and library classes.
+     *
+     * @return true if the plugin declares itself reloadable
+     */
+    public boolean isReloadable() {
+        return reloadable;
+    }
+
     /**
      * Builder class for constructing {@link Metadata} instances.
      */
@@ -419,6 +561,28 @@ public final class Metadata {
             return this;
         }
 
+        /**
+         * Sets whether the entry points of the plugin can be initialized concurrently with other plugins.
+         *
+         * @param threadSafe true if the plugin is thread-safe
+         * @return the builder instance
+         */
+        public MetadataBuilder threadSafe(boolean threadSafe) {
+            metadata.threadSafe = threadSafe;
+            return this;
+        }
+
+        /**
+         * Sets whether the plugin can be reloaded without restarting the game.
+         *
+         * @param reloadable true if the plugin is reloadable
+         * @return the builder instance
+         */
+        public MetadataBuilder reloadable(boolean reloadable) {
+            metadata.reloadable = reloadable;
+            return this;
+        }
+
         /**
          * Builds and returns the {@link Metadata} instance.
          * Ensures that all required fields are set.
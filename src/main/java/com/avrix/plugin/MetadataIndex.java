@@ -0,0 +1,375 @@
+package com.avrix.plugin;
+
+import com.avrix.utils.Constants;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of the plugin metadata, stored in the {@code avrix/cache} directory, so an unchanged
+ * {@code plugins} folder is loaded without opening the plugin jars.
+ * <p>
+ * Each jar is recorded with its path, size, modification time and content hash together with its parsed {@link Metadata}.
+ * A jar with the same size and modification time is taken from the index, a jar with the same size but another
+ * modification time (e.g. copied again) is hashed and taken from the index if its content has not changed.
+ * The result of {@link Metadata#sortMetadata(List)} is recorded as well and reused while the plugins and their
+ * dependencies are the same.
+ * <p>
+ * The index can be disabled with the {@code avrix.plugins.cache=false} system property.
+ */
+public final class MetadataIndex {
+    /**
+     * Whether the index is used
+     */
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("avrix.plugins.cache", "true"));
+
+    /**
+     * Index format version, an index of another version is ignored
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private final Path indexPath; // File of the index
+    private final Map<String, JSONObject> previousEntries; // Entries read from the index file, by the absolute path of the jar
+    private final Map<String, JSONObject> entries = new LinkedHashMap<>(); // Entries of the jars found by this launch
+    private final Map<String, String> preparedHashes = new ConcurrentHashMap<>(); // Hashes of the jars computed while they were read, by the absolute path of the jar
+    private String sortKey; // Key of the plugins whose sort order is recorded
+    private List<String> sortOrder; // Identifiers of the sorted plugins
+    private boolean changed; // Whether the index differs from the index file
+    private int hits; // Number of jars taken from the index
+    private int misses; // Number of jars read from the plugins folder
+
+    /**
+     * Constructor for creating a {@link MetadataIndex} object.
+     *
+     * @param indexPath       the file of the index
+     * @param previousEntries the entries read from the index file
+     * @param sortKey         the key of the plugins whose sort order is recorded, or {@code null}
+     * @param sortOrder       the identifiers of the sorted plugins, or {@code null}
+     */
+    private MetadataIndex(Path indexPath, Map<String, JSONObject> previousEntries, String sortKey, List<String> sortOrder) {
+        this.indexPath = indexPath;
+        this.previousEntries = previousEntries;
+        this.sortKey = sortKey;
+        this.sortOrder = sortOrder;
+    }
+
+    /**
+     * Reads the index from the file. A missing, outdated or damaged index is replaced by an empty one.
+     *
+     * @param indexPath the file of the index
+     * @return the index
+     */
+    public static MetadataIndex load(Path indexPath) {
+        if (!ENABLED || !Files.isRegularFile(indexPath)) {
+            return new MetadataIndex(indexPath, new HashMap<>(), null, null);
+        }
+
+        try {
+            JSONObject index = new JSONObject(Files.readString(indexPath));
+            if (index.optInt("format") != FORMAT_VERSION || !Constants.AVRIX_VERSION.equals(index.optString("avrixVersion"))) {
+                return new MetadataIndex(indexPath, new HashMap<>(), null, null);
+            }
+
+            Map<String, JSONObject> previousEntries = new HashMap<>();
+            JSONObject plugins = index.getJSONObject("plugins");
+            for (String path : plugins.keySet()) {
+                previousEntries.put(path, plugins.getJSONObject(path));
+            }
+
+            List<String> sortOrder = null;
+            JSONArray order = index.optJSONArray("sortOrder");
+            if (order != null) {
+                sortOrder = new ArrayList<>();
+                for (int i = 0; i < order.length(); i++) {
+                    sortOrder.add(order.getString(i));
+                }
+            }
+
+            return new MetadataIndex(indexPath, previousEntries, index.optString("sortKey", null), sortOrder);
+        } catch (IOException | JSONException e) {
+            System.out.printf("[!] Failed to read the plugin index '%s', the plugins will be read again. Reason: %s%n", indexPath, e.getMessage());
+            return new MetadataIndex(indexPath, new HashMap<>(), null, null);
+        }
+    }
+
+    /**
+     * Getting the metadata of an unchanged jar from the index.
+     *
+     * @param jarFile the plugin jar
+     * @return the metadata of the jar, or {@code null} if the jar is not in the index or has changed
+     */
+    public Metadata get(File jarFile) {
+        if (!ENABLED) return null;
+
+        String path = jarFile.getAbsolutePath();
+        JSONObject entry = previousEntries.get(path);
+
+        try {
+            if (entry == null || entry.getLong("size") != jarFile.length()) {
+                misses++;
+                return null;
+            }
+
+            if (entry.getLong("modified") != jarFile.lastModified()) {
+                if (!entry.getString("hash").equals(getHash(jarFile))) {
+                    misses++;
+                    return null;
+                }
+
+                entry.put("modified", jarFile.lastModified());
+                changed = true;
+            }
+
+            Metadata metadata = fromJson(entry.getJSONObject("metadata"), jarFile);
+            entries.put(path, entry);
+            hits++;
+            return metadata;
+        } catch (IOException | RuntimeException e) {
+            System.out.printf("[!] Failed to take the plugin '%s' from the index. Reason: %s%n", jarFile.getName(), e.getMessage());
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Computes the hash of a jar whose metadata has been read, before the jar is recorded by {@link #put(File, Metadata)}.
+     * Thread-safe, so the jars are hashed by the tasks of {@link Metadata#createFromJars(List, String, int, java.util.function.Consumer)}
+     * that read them, instead of one after another when they are recorded.
+     *
+     * @param jarFile the plugin jar
+     */
+    public void prepare(File jarFile) {
+        if (!ENABLED) return;
+
+        try {
+            preparedHashes.put(jarFile.getAbsolutePath(), getHash(jarFile));
+        } catch (IOException e) {
+            // The jar is hashed again by put(), which reports the error
+        }
+    }
+
+    /**
+     * Records the metadata read from a jar. The hash computed by {@link #prepare(File)} is used if there is one.
+     *
+     * @param jarFile  the plugin jar
+     * @param metadata the metadata of the jar
+     */
+    public void put(File jarFile, Metadata metadata) {
+        if (!ENABLED) return;
+
+        try {
+            String path = jarFile.getAbsolutePath();
+            String hash = preparedHashes.remove(path);
+            entries.put(path, new JSONObject()
+                    .put("size", jarFile.length())
+                    .put("modified", jarFile.lastModified())
+                    .put("hash", hash != null ? hash : getHash(jarFile))
+                    .put("metadata", toJson(metadata)));
+            changed = true;
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to add the plugin '%s' to the index. Reason: %s%n", jarFile.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sorts the plugins by their dependencies, reusing the recorded order if the plugins and their dependencies have not changed.
+     *
+     * @param metadataList the plugins in the order in which they were found
+     * @return the plugins sorted by {@link Metadata#sortMetadata(List)}
+     * @throws IllegalStateException    if a cyclic dependency is detected
+     * @throws IllegalArgumentException if a dependency is missing from the metadata list
+     */
+    public List<Metadata> sortMetadata(List<Metadata> metadataList) {
+        String key = getSortKey(metadataList);
+
+        if (ENABLED && key.equals(sortKey) && sortOrder != null && sortOrder.size() == metadataList.size()) {
+            Map<String, Metadata> metadataMap = new HashMap<>();
+            for (Metadata metadata : metadataList) {
+                metadataMap.put(metadata.getId(), metadata);
+            }
+
+            List<Metadata> sortedList = new ArrayList<>();
+            for (String id : sortOrder) {
+                Metadata metadata = metadataMap.get(id);
+                if (metadata == null) break;
+                sortedList.add(metadata);
+            }
+
+            if (sortedList.size() == metadataList.size()) return sortedList;
+        }
+
+        List<Metadata> sortedList = Metadata.sortMetadata(metadataList);
+
+        sortKey = key;
+        sortOrder = new ArrayList<>();
+        for (Metadata metadata : sortedList) {
+            sortOrder.add(metadata.getId());
+        }
+        changed = true;
+
+        return sortedList;
+    }
+
+    /**
+     * Writes the index to the file if it has changed. Jars that were not found by this launch are removed from the index.
+     */
+    public void save() {
+        if (!ENABLED || (!changed && entries.keySet().equals(previousEntries.keySet()))) return;
+
+        JSONObject plugins = new JSONObject();
+        entries.forEach(plugins::put);
+
+        JSONObject index = new JSONObject()
+                .put("format", FORMAT_VERSION)
+                .put("avrixVersion", Constants.AVRIX_VERSION)
+                .put("plugins", plugins)
+                .put("sortKey", sortKey)
+                .put("sortOrder", sortOrder != null ? new JSONArray(sortOrder) : null);
+
+        try {
+            Path parent = indexPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            Path tempPath = Files.createTempFile(parent, "plugins", ".tmp");
+            Files.writeString(tempPath, index.toString(2));
+            Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to write the plugin index '%s'. Reason: %s%n", indexPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Getting the number of jars taken from the index.
+     *
+     * @return the number of jars taken from the index
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Getting the number of jars that were not in the index or have changed.
+     *
+     * @return the number of jars read from the plugins folder
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Computes the key of the plugins and their dependencies, on which the sort order depends.
+     *
+     * @param metadataList the plugins in the order in which they were found
+     * @return the key of the plugins
+     */
+    private static String getSortKey(List<Metadata> metadataList) {
+        StringBuilder sb = new StringBuilder();
+        for (Metadata metadata : metadataList) {
+            sb.append(metadata.getId()).append('@').append(metadata.getVersion())
+                    .append(new TreeMap<>(metadata.getDependencies() != null ? metadata.getDependencies() : Map.of()))
+                    .append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Computes the hash of the content of the jar.
+     *
+     * @param jarFile the plugin jar
+     * @return the SHA-256 hash of the jar in hexadecimal form
+     * @throws IOException if the jar cannot be read
+     */
+    private static String getHash(File jarFile) throws IOException {
+        try (InputStream input = Files.newInputStream(jarFile.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Converts the metadata to its index form.
+     *
+     * @param metadata the metadata of a plugin
+     * @return the metadata as a JSON object
+     */
+    private static JSONObject toJson(Metadata metadata) {
+        return new JSONObject()
+                .put("name", metadata.getName())
+                .put("id", metadata.getId())
+                .put("description", metadata.getDescription())
+                .put("author", metadata.getAuthor())
+                .put("version", metadata.getVersion())
+                .put("license", metadata.getLicense())
+                .put("contacts", metadata.getContacts())
+                .put("environment", metadata.getEnvironment().getValue())
+                .put("entrypoints", new JSONArray(metadata.getEntryPoints()))
+                .put("patches", new JSONArray(metadata.getPatchList() != null ? metadata.getPatchList() : List.of()))
+                .put("dependencies", new JSONObject(metadata.getDependencies() != null ? metadata.getDependencies() : Map.of()))
+                .put("threadSafe", metadata.isThreadSafe())
+                .put("reloadable", metadata.isReloadable());
+    }
+
+    /**
+     * Restores the metadata from its index form.
+     *
+     * @param json    the metadata as a JSON object
+     * @param jarFile the plugin jar
+     * @return the metadata of the plugin
+     */
+    private static Metadata fromJson(JSONObject json, File jarFile) {
+        Map<String, String> dependencies = new HashMap<>();
+        JSONObject dependenciesJson = json.getJSONObject("dependencies");
+        for (String id : dependenciesJson.keySet()) {
+            dependencies.put(id, dependenciesJson.getString(id));
+        }
+
+        return new Metadata.MetadataBuilder()
+                .name(json.optString("name", null))
+                .id(json.optString("id", null))
+                .description(json.optString("description", null))
+                .author(json.optString("author", null))
+                .version(json.optString("version", null))
+                .license(json.optString("license", null))
+                .contacts(json.optString("contacts", null))
+                .environment(json.optString("environment", null))
+                .entryPointsList(toStringList(json.getJSONArray("entrypoints")))
+                .patchList(toStringList(json.getJSONArray("patches")))
+                .dependencies(dependencies)
+                .threadSafe(json.optBoolean("threadSafe"))
+                .reloadable(json.optBoolean("reloadable"))
+                .pluginFile(jarFile)
+                .build();
+    }
+
+    /**
+     * Converts a JSON array of strings to a list.
+     *
+     * @param array the JSON array
+     * @return the list of strings
+     */
+    private static List<String> toStringList(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+}
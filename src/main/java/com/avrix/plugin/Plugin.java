@@ -147,4 +147,14 @@ public abstract class Plugin {
      * Implementing classes should override this method to provide the initialization logic.
      */
     public abstract void onInitialize();
+
+    /**
+     * Called before a reloadable plugin is unloaded, after which its listeners, commands, services, Lua exposures
+     * and patches are removed by the loader.
+     * <p>
+     * Implementing classes should override this method to stop their threads and release resources they hold
+     * outside the loader, so that the classes of the plugin can be unloaded.
+     */
+    public void onUnload() {
+    }
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.avrix.plugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Set;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * A custom class loader for loading plugin classes.
@@ -13,11 +19,34 @@ import java.util.Set;
  * <p>This class loader is specifically designed to work with plugins, allowing classes to be dynamically loaded
  * and accessed during runtime. It also includes a method to check if a class has already been loaded, which helps
  * prevent duplicate loading of the same class.</p>
+ * <p>The loader is parallel capable, so plugins initialized on different threads load their classes concurrently.
+ * A class of another plugin is resolved through an index of the packages of each plugin Jar, built when the loader is
+ * created, so only the loaders that contain the package are asked. Names found in no plugin are remembered until
+ * another loader is created, so repeated lookups of a missing class do not search the Jars again. Each name is remembered
+ * with the generation of the loaders it was looked up in, so a lookup racing with the creation of a loader cannot
+ * hide the classes of the new plugin, and at most {@link #MISSING_CLASSES_LIMIT} names are kept.</p>
  */
 public class PluginClassLoader extends URLClassLoader {
-    private static final Map<String, Class<?>> classCache = new HashMap<>(); // Storage of all cached classes
-    private static final Map<String, PluginClassLoader> pluginLoaders = new LinkedHashMap<>(); // Storage of all created loaders
-    private final Map<String, Class<?>> classes = new HashMap<>(); // Map of loaded classes
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final Map<String, Class<?>> classCache = new ConcurrentHashMap<>(); // Storage of all cached classes
+    private static final Map<String, PluginClassLoader> pluginLoaders = new ConcurrentHashMap<>(); // Storage of all created loaders
+    private static final Map<String, PluginClassLoader> locationLoaders = new ConcurrentHashMap<>(); // Loaders by the canonical location of their URLs
+    private static final Map<String, List<PluginClassLoader>> packageLoaders = new ConcurrentHashMap<>(); // Loaders by the packages of their Jars
+    private static final List<PluginClassLoader> unindexedLoaders = new CopyOnWriteArrayList<>(); // Loaders whose URLs could not be indexed
+    /**
+     * Maximum number of remembered names of classes found in no plugin, can be set with the
+     * {@code avrix.plugins.missingClassesLimit} system property
+     */
+    static final int MISSING_CLASSES_LIMIT = Integer.getInteger("avrix.plugins.missingClassesLimit", 4096);
+
+    private static final Map<String, Long> missingClasses = new ConcurrentHashMap<>(); // Names of classes found in no plugin, with the loader generation of the lookup
+    private static final AtomicLong loaderGeneration = new AtomicLong(); // Incremented once a new loader is fully indexed
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>(); // Map of loaded classes
+    private final Set<String> indexedClassNames = new HashSet<>(); // Names of the classes in the indexed Jars
+    private final String pluginId; // ID of the plugin whose classes are loaded
 
     /**
      * Constructs a new {@link PluginClassLoader} for the specified {@link URL}s using the specified parent class loader.
@@ -28,7 +57,100 @@ public class PluginClassLoader extends URLClassLoader {
      */
     public PluginClassLoader(String pluginId, URL[] urls, ClassLoader classLoader) {
         super(urls, classLoader);
+        this.pluginId = pluginId;
         pluginLoaders.put(pluginId, this);
+
+        boolean indexed = true;
+        for (URL url : urls) {
+            locationLoaders.put(getLocationKey(url), this);
+            indexed &= indexPackages(url);
+        }
+        if (!indexed) {
+            unindexedLoaders.add(this);
+        }
+
+        // Classes missing so far may be in the new plugin. The generation is advanced only now that the loader is indexed,
+        // so a lookup that started earlier and missed the new loader records its result with an outdated generation
+        loaderGeneration.incrementAndGet();
+        missingClasses.clear();
+    }
+
+    /**
+     * Adds the packages of the Jar to the package index.
+     *
+     * @param url the {@link URL} of the Jar
+     * @return true if the packages were indexed, false if the {@link URL} is not a readable Jar file
+     */
+    private boolean indexPackages(URL url) {
+        if (!"file".equals(url.getProtocol()) || !url.getPath().endsWith(".jar")) return false;
+
+        Set<String> packages = new HashSet<>();
+        try (JarFile jarFile = new JarFile(new File(url.toURI()))) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(".class")) {
+                    indexedClassNames.add(entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.'));
+                    int index = entryName.lastIndexOf('/');
+                    packages.add(index < 0 ? "" : entryName.substring(0, index).replace('/', '.'));
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            System.out.printf("[!] Failed to index the classes of the plugin '%s': %s%n", pluginId, e.getMessage());
+            return false;
+        }
+
+        for (String packageName : packages) {
+            packageLoaders.computeIfAbsent(packageName, name -> new CopyOnWriteArrayList<>()).add(this);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ID of the plugin whose classes are loaded by this class loader.
+     *
+     * @return plugin ID, according to data from {@link Metadata}
+     */
+    public String getPluginId() {
+        return pluginId;
+    }
+
+    /**
+     * Determines the ID of the plugin that the class belongs to.
+     * The class belongs to the plugin if it was loaded by the plugin's class loader,
+     * or if it was loaded from the plugin's Jar file by another class loader (e.g. the system one).
+     *
+     * @param clazz the class whose plugin should be determined
+     * @return plugin ID, or {@code null} if the class does not belong to any plugin
+     */
+    public static String getPluginId(Class<?> clazz) {
+        if (clazz.getClassLoader() instanceof PluginClassLoader pluginClassLoader) {
+            return pluginClassLoader.getPluginId();
+        }
+
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) return null;
+
+        PluginClassLoader loader = locationLoaders.get(getLocationKey(codeSource.getLocation()));
+        return loader != null ? loader.getPluginId() : null;
+    }
+
+    /**
+     * Getting the key of a location in the index of loaders by location.
+     * The canonical path is used for files, since the system class loader reports the location of an appended Jar
+     * by its canonical path, which differs from the plugin {@link URL} e.g. behind a symbolic link or in the case of a drive letter.
+     *
+     * @param url the location
+     * @return the canonical path of a file, otherwise the {@link URL} as a string
+     */
+    private static String getLocationKey(URL url) {
+        if (!"file".equals(url.getProtocol())) return url.toString();
+
+        try {
+            return new File(url.toURI()).getCanonicalPath();
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return url.toString();
+        }
     }
 
     /**
@@ -60,28 +182,36 @@ public class PluginClassLoader extends URLClassLoader {
 
     /**
      * Retrieves the {@link Class} object for a given class name from the cache or loaders.
-     * If the class is not found in the cache, searches through all loaders to find the class.
+     * If the class is not found in the cache, asks the loaders whose Jars contain the package of the class.
      *
      * @param name The fully qualified name of the desired class.
      * @return The {@link Class} object corresponding to the specified name, or {@code null} if the class could not be found.
      */
     public static Class<?> getClassByName(final String name) {
         Class<?> cachedClass = classCache.get(name);
+        if (cachedClass != null) return cachedClass;
 
-        if (cachedClass != null) {
-            return cachedClass;
-        } else {
-            for (PluginClassLoader loader : pluginLoaders.values()) {
-                try {
-                    cachedClass = loader.findClass(name, false);
-                } catch (ClassNotFoundException ignored) {
-                }
+        long generation = loaderGeneration.get();
+        Long missingGeneration = missingClasses.get(name);
+        if (missingGeneration != null && missingGeneration == generation) return null;
+
+        int index = name.lastIndexOf('.');
+        List<PluginClassLoader> loaders = packageLoaders.getOrDefault(index < 0 ? "" : name.substring(0, index), Collections.emptyList());
+
+        for (List<PluginClassLoader> candidates : List.of(loaders, unindexedLoaders)) {
+            for (PluginClassLoader loader : candidates) {
+                cachedClass = loader.findLocalClass(name);
                 if (cachedClass != null) {
-                    classCache.put(name, cachedClass);
+                    classCache.putIfAbsent(name, cachedClass);
                     return cachedClass;
                 }
             }
         }
+
+        if (missingClasses.size() >= MISSING_CLASSES_LIMIT) {
+            missingClasses.clear();
+        }
+        missingClasses.put(name, generation);
         return null;
     }
 
@@ -90,27 +220,94 @@ public class PluginClassLoader extends URLClassLoader {
      *
      * @param name           The fully qualified name of the desired class.
      * @param isGlobalSearch Indicates whether to perform a global search for the class.
-     *                       If true, attempts to retrieve the class from {@link PluginManager} if not found locally.
+     *                       If true, attempts to retrieve the class from the other plugins if not found locally.
      * @return The {@link Class} object corresponding to the specified name.
      * @throws ClassNotFoundException If the class could not be found.
      */
     protected Class<?> findClass(String name, boolean isGlobalSearch) throws ClassNotFoundException {
         Class<?> result = classes.get(name);
+        if (result != null) return result;
 
+        result = isGlobalSearch ? getClassByName(name) : findLocalClass(name);
         if (result == null) {
-            if (isGlobalSearch) {
-                result = getClassByName(name);
-            }
+            throw new ClassNotFoundException(name);
+        }
 
-            if (result == null) {
+        classes.putIfAbsent(name, result);
+        return result;
+    }
+
+    /**
+     * Finds a class in the Jar of this plugin, without throwing if it is missing.
+     * The class is defined under the class loading lock of its name, so it is defined once even if it is
+     * requested by other plugin loaders at the same time.
+     *
+     * @param name The fully qualified name of the desired class.
+     * @return The {@link Class} object, or {@code null} if the Jar does not contain the class.
+     */
+    private Class<?> findLocalClass(String name) {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> result = findLoadedClass(name);
+            if (result != null) return result;
+
+            // The Jar is checked first, so a missing class does not cost an exception
+            if (findResource(name.replace('.', '/') + ".class") == null) return null;
+
+            try {
                 result = super.findClass(name);
-                classCache.putIfAbsent(name, result);
+            } catch (ClassNotFoundException e) {
+                return null;
             }
 
-            classes.put(name, result);
+            classCache.putIfAbsent(name, result);
+            classes.putIfAbsent(name, result);
+            return result;
+        }
+    }
+
+    /**
+     * Closes the loader and removes it and its classes from the indexes and caches shared by the plugin loaders,
+     * so that the loader can be garbage collected once the plugin releases its objects.
+     *
+     * @throws IOException if closing the Jar files fails
+     */
+    @Override
+    public void close() throws IOException {
+        pluginLoaders.remove(pluginId, this);
+        locationLoaders.values().removeIf(loader -> loader == this);
+        for (String packageName : packageLoaders.keySet()) {
+            packageLoaders.computeIfPresent(packageName, (name, loaders) -> {
+                loaders.remove(this);
+                return loaders.isEmpty() ? null : loaders;
+            });
+        }
+        unindexedLoaders.remove(this);
+
+        classCache.values().removeIf(clazz -> clazz.getClassLoader() == this);
+        for (PluginClassLoader loader : pluginLoaders.values()) {
+            loader.classes.values().removeIf(clazz -> clazz.getClassLoader() == this);
         }
 
-        return result;
+        super.close();
+    }
+
+    /**
+     * Getting the number of remembered names of classes found in no plugin.
+     *
+     * @return the number of names
+     */
+    static int getMissingClassCount() {
+        return missingClasses.size();
+    }
+
+    /**
+     * Retrieves the names of the classes in the Jars of the plugin, whether they are loaded or not.
+     * Empty for the {@link URL}s that could not be indexed.
+     *
+     * @return An unmodifiable set containing the names of the classes in the Jars.
+     */
+    public Set<String> getIndexedClassNames() {
+        return Collections.unmodifiableSet(indexedClassNames);
     }
 
     /**
@@ -121,4 +318,4 @@ public class PluginClassLoader extends URLClassLoader {
     public Set<String> getClasses() {
         return classes.keySet();
     }
-}
\ No newline at end of file
+}
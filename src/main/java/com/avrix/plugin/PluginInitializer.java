@@ -0,0 +1,171 @@
+package com.avrix.plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Initializes plugins level by level over their dependency graph.
+ * <p>
+ * A plugin is on level {@code 0} if it depends on no other initialized plugin, otherwise on the level after the highest
+ * level of its dependencies, so a plugin is initialized only after all its dependencies have finished. On each level,
+ * plugins that declare {@code thread-safe: true} in their metadata are initialized concurrently on a {@link ForkJoinPool},
+ * while the other plugins of the level are initialized one by one on the calling thread.
+ * <p>
+ * A failure is attributed to the plugin that threw it, plugins depending on a failed plugin are not initialized.
+ */
+final class PluginInitializer {
+    /**
+     * Initialization of a single plugin
+     */
+    @FunctionalInterface
+    interface Initialization {
+        /**
+         * Initializes the entry points of the plugin.
+         *
+         * @param metadata the metadata of the plugin
+         * @throws Exception if the plugin fails to initialize
+         */
+        void initialize(Metadata metadata) throws Exception;
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PluginInitializer() {
+    }
+
+    /**
+     * Splits the plugins into levels of the dependency graph.
+     *
+     * @param sortedPlugins the plugins sorted by {@link Metadata#sortMetadata(List)}
+     * @return the levels, each in the order of the sorted plugins
+     */
+    static List<List<Metadata>> getLevels(List<Metadata> sortedPlugins) {
+        Map<String, Integer> levelsById = new HashMap<>();
+        List<List<Metadata>> levels = new ArrayList<>();
+
+        for (Metadata metadata : sortedPlugins) {
+            int level = 0;
+            if (metadata.getDependencies() != null) {
+                for (String dependencyId : metadata.getDependencies().keySet()) {
+                    Integer dependencyLevel = levelsById.get(dependencyId);
+                    if (dependencyLevel != null) {
+                        level = Math.max(level, dependencyLevel + 1);
+                    }
+                }
+            }
+
+            levelsById.put(metadata.getId(), level);
+            if (level == levels.size()) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(metadata);
+        }
+
+        return levels;
+    }
+
+    /**
+     * Initializes the plugins level by level.
+     *
+     * @param sortedPlugins  the plugins sorted by {@link Metadata#sortMetadata(List)}
+     * @param parallelism    maximum number of thread-safe plugins initialized at the same time, {@code 1} initializes all plugins on the calling thread
+     * @param initialization the initialization of a single plugin
+     * @return the failures by plugin identifier, in the order of the sorted plugins, empty if all plugins were initialized
+     */
+    static Map<String, Throwable> initialize(List<Metadata> sortedPlugins, int parallelism, Initialization initialization) {
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        List<List<Metadata>> levels = getLevels(sortedPlugins);
+        ForkJoinPool pool = null;
+
+        try {
+            for (List<Metadata> level : levels) {
+                List<Metadata> concurrentPlugins = new ArrayList<>();
+                List<Metadata> sequentialPlugins = new ArrayList<>();
+
+                for (Metadata metadata : level) {
+                    String failedDependency = getFailedDependency(metadata, failures);
+                    if (failedDependency != null) {
+                        System.out.printf("[!] Plugin '%s' is not initialized because its dependency '%s' failed.%n", metadata.getId(), failedDependency);
+                        failures.put(metadata.getId(), new IllegalStateException("Dependency '" + failedDependency + "' failed to initialize"));
+                    } else if (metadata.isThreadSafe() && parallelism > 1) {
+                        concurrentPlugins.add(metadata);
+                    } else {
+                        sequentialPlugins.add(metadata);
+                    }
+                }
+
+                // A single thread-safe plugin is not worth a pool thread
+                if (concurrentPlugins.size() == 1 && sequentialPlugins.isEmpty()) {
+                    sequentialPlugins.add(concurrentPlugins.remove(0));
+                }
+
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                if (!concurrentPlugins.isEmpty()) {
+                    if (pool == null) {
+                        pool = new ForkJoinPool(parallelism);
+                    }
+                    for (Metadata metadata : concurrentPlugins) {
+                        tasks.add(pool.submit(() -> initializePlugin(metadata, initialization, failures)));
+                    }
+                }
+
+                // The other plugins of the level are initialized meanwhile on the calling thread
+                for (Metadata metadata : sequentialPlugins) {
+                    initializePlugin(metadata, initialization, failures);
+                }
+
+                tasks.forEach(ForkJoinTask::join);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        Map<String, Throwable> orderedFailures = new LinkedHashMap<>();
+        for (Metadata metadata : sortedPlugins) {
+            Throwable failure = failures.get(metadata.getId());
+            if (failure != null) {
+                orderedFailures.put(metadata.getId(), failure);
+            }
+        }
+        return orderedFailures;
+    }
+
+    /**
+     * Initializes a single plugin, recording its failure.
+     *
+     * @param metadata       the metadata of the plugin
+     * @param initialization the initialization of a single plugin
+     * @param failures       the failures by plugin identifier
+     */
+    private static void initializePlugin(Metadata metadata, Initialization initialization, Map<String, Throwable> failures) {
+        try {
+            initialization.initialize(metadata);
+        } catch (Exception | LinkageError e) {
+            Throwable cause = e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+            System.out.printf("[!] Plugin '%s' (ID: %s) failed to initialize: %s%n", metadata.getName(), metadata.getId(), cause);
+            failures.put(metadata.getId(), cause);
+        }
+    }
+
+    /**
+     * Finds a dependency of the plugin that failed to initialize.
+     *
+     * @param metadata the metadata of the plugin
+     * @param failures the failures by plugin identifier
+     * @return the identifier of the failed dependency, or {@code null} if no dependency failed
+     */
+    private static String getFailedDependency(Metadata metadata, Map<String, Throwable> failures) {
+        if (metadata.getDependencies() == null) return null;
+
+        for (String dependencyId : metadata.getDependencies().keySet()) {
+            if (failures.containsKey(dependencyId)) return dependencyId;
+        }
+        return null;
+    }
+}
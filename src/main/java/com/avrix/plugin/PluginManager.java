@@ -1,26 +1,103 @@
 package com.avrix.plugin;
 
 import com.avrix.agent.Agent;
+import com.avrix.commands.CommandsManager;
 import com.avrix.enums.Environment;
+import com.avrix.events.EventManager;
+import com.avrix.lua.LuaExposer;
 import com.avrix.utils.Constants;
 import com.avrix.utils.PatchUtils;
+import com.avrix.utils.StartupTracer;
 import javassist.ClassPool;
+import javassist.CtClass;
 import javassist.LoaderClassPath;
 import zombie.core.Core;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The PluginManager class manages the loading, initialization, and handling of plugins within the application context.
  */
 public class PluginManager {
+    /**
+     * Number of plugin jars read at the same time when looking for plugins
+     */
+    private static final int DISCOVERY_PARALLELISM = Integer.getInteger("avrix.plugins.parallelism", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Number of thread-safe plugins initialized at the same time
+     */
+    private static final int INIT_PARALLELISM = Integer.getInteger("avrix.plugins.initParallelism", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Time after which the class loader of an unloaded plugin that has not been garbage collected is reported as leaking, in milliseconds
+     */
+    private static final long UNLOAD_CHECK_TIMEOUT_MS = Long.getLong("avrix.plugins.unloadCheckTimeout", 300_000);
+
+    /**
+     * Whether garbage collections are requested to check quickly that an unloaded plugin is collected.
+     * Disabled by default, so a reload does not pause a live server with full collections.
+     */
+    private static final boolean UNLOAD_CHECK_FORCE_GC = Boolean.getBoolean("avrix.plugins.unloadCheckForceGc");
+
+    /**
+     * Number of garbage collections requested when {@link #UNLOAD_CHECK_FORCE_GC} is enabled
+     */
+    private static final int UNLOAD_CHECK_ATTEMPTS = 10;
+
+    /**
+     * Interval between the garbage collections requested when {@link #UNLOAD_CHECK_FORCE_GC} is enabled, in milliseconds
+     */
+    private static final long UNLOAD_CHECK_INTERVAL_MS = 500;
+
+    private static final ReferenceQueue<ClassLoader> unloadQueue = new ReferenceQueue<>(); // Class loaders of unloaded plugins that have been collected
+    private static final Set<UnloadReference> pendingUnloads = ConcurrentHashMap.newKeySet(); // Class loaders of unloaded plugins that are still being watched
+    private static Thread unloadWatcher; // Thread waiting for the class loaders of unloaded plugins to be collected
+
     private static final List<Metadata> pluginsList = new ArrayList<>(); // A list containing metadata for loaded plugins.
+    private static final Map<String, LoadedPlugin> loadedPlugins = new ConcurrentHashMap<>(); // Plugins with a class loader, by plugin ID
+
+    /**
+     * Plugin loaded from a Jar file
+     *
+     * @param metadata    The {@link Metadata} of the plugin
+     * @param classLoader The class loader of the plugin classes
+     * @param classPath   The class path of the class loader in the default {@link ClassPool}
+     * @param instances   The entry point instances of the plugin
+     */
+    private record LoadedPlugin(Metadata metadata, PluginClassLoader classLoader, LoaderClassPath classPath, List<Plugin> instances) {
+    }
+
+    /**
+     * Weak reference to the class loader of an unloaded plugin, enqueued when the class loader is garbage collected
+     */
+    private static final class UnloadReference extends WeakReference<ClassLoader> {
+        private final String pluginId; // ID of the unloaded plugin
+        private final CompletableFuture<Boolean> result; // Completed when the class loader is collected or reported as leaking
+
+        /**
+         * Constructor for creating an {@link UnloadReference} object.
+         *
+         * @param pluginId    ID of the unloaded plugin
+         * @param classLoader the class loader of the unloaded plugin
+         * @param result      the future completed when the class loader is collected or reported as leaking
+         */
+        private UnloadReference(String pluginId, ClassLoader classLoader, CompletableFuture<Boolean> result) {
+            super(classLoader, unloadQueue);
+            this.pluginId = pluginId;
+            this.result = result;
+        }
+    }
 
     /**
      * Prints information about loaded plugins to the console.
@@ -73,9 +150,36 @@ public class PluginManager {
         // Adding default modules (game, loader, etc.) to the list of plugins
         loadDefaultModules();
 
+        // Taking the metadata of unchanged jars from the index, the other jars are read and hashed concurrently
+        // and then all jars are checked in the order of the files
+        List<File> pluginFiles = getPluginFiles();
+        MetadataIndex metadataIndex = MetadataIndex.load(Paths.get(Constants.CACHE_DIR_NAME, "plugins.json"));
+        List<Metadata> pluginsMetadata = new ArrayList<>();
+        long startTime = System.nanoTime();
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "readPluginMetadata").arg("jars", pluginFiles.size())) {
+            List<File> changedFiles = new ArrayList<>();
+            for (File pluginFile : pluginFiles) {
+                Metadata metadata = metadataIndex.get(pluginFile);
+                pluginsMetadata.add(metadata);
+                if (metadata == null) changedFiles.add(pluginFile);
+            }
+
+            List<Metadata> changedMetadata = Metadata.createFromJars(changedFiles, Constants.PLUGINS_METADATA_NAME, DISCOVERY_PARALLELISM, metadataIndex::prepare);
+            for (int i = 0, changed = 0; i < pluginsMetadata.size(); i++) {
+                if (pluginsMetadata.get(i) != null) continue;
+
+                Metadata metadata = changedMetadata.get(changed++);
+                pluginsMetadata.set(i, metadata);
+                if (metadata != null) metadataIndex.put(pluginFiles.get(i), metadata);
+            }
+        }
+        System.out.printf("[#] Read the metadata of %d jars in %.1f ms (%d from the index)%n",
+                pluginFiles.size(), (System.nanoTime() - startTime) / 1_000_000.0, metadataIndex.getHits());
+
         // Getting valid plugins
-        for (File plugin : getPluginFiles()) {
-            Metadata metadata = Metadata.createFromJar(plugin, Constants.PLUGINS_METADATA_NAME);
+        for (int i = 0; i < pluginFiles.size(); i++) {
+            File plugin = pluginFiles.get(i);
+            Metadata metadata = pluginsMetadata.get(i);
 
             if (metadata == null) {
                 System.out.printf("[?] No metadata found for the potential plugin '%s'. Skipping...%n", plugin.getName());
@@ -108,61 +212,312 @@ public class PluginManager {
             pluginsList.add(metadata);
         }
 
-        // Loading the plugin
-        for (Metadata metadata : Metadata.sortMetadata(pluginsList)) {
-            File pluginFile = metadata.getPluginFile();
-
-            if (pluginFile == null) continue;
+        // Preparing plugins and collecting their patches, which are merged with the default patches by class
+        Map<Metadata, LoadedPlugin> preparedPlugins = new LinkedHashMap<>();
+        List<Metadata> sortedPlugins = metadataIndex.sortMetadata(pluginsList);
+        Metadata.checkReloadableDependencies(sortedPlugins);
+        metadataIndex.save();
+        for (Metadata metadata : sortedPlugins) {
+            if (metadata.getPluginFile() == null) continue;
 
             Environment environment = metadata.getEnvironment();
 
             // Checking the environment
             if (environment != loaderEnvironment && environment != Environment.BOTH) continue;
 
-            // Creating a URL for the plugin
-            URL pluginUrl = pluginFile.toURI().toURL();
-
-            // Adding jar file to classpath
-            Agent.addClassPath(pluginFile);
+            preparedPlugins.put(metadata, preparePlugin(metadata));
+        }
 
-            ClassLoader classLoader = new PluginClassLoader(metadata.getId(), new URL[]{pluginUrl}, ClassLoader.getSystemClassLoader());
+        // Applying the default and plugin patches, all modified classes are installed in a single pass
+        try (StartupTracer.Span ignored = StartupTracer.begin("phase", "applyPatches")) {
+            PatchUtils.applyQueuedPatches();
+        }
 
-            // Extending ClassPoll with a new ClassLoader
-            ClassPool classPool = ClassPool.getDefault();
-            classPool.appendClassPath(new LoaderClassPath(classLoader));
+        // Loading the plugins by levels of the dependency graph, thread-safe plugins of a level are loaded concurrently
+        Map<String, Throwable> failures = PluginInitializer.initialize(new ArrayList<>(preparedPlugins.keySet()), INIT_PARALLELISM, metadata -> {
+            System.out.printf("[#] Loading plugin '%s' (ID: %s, Version: %s)...%n", metadata.getName(), metadata.getId(), metadata.getVersion());
+            LoadedPlugin loadedPlugin = preparedPlugins.get(metadata);
+            loadPlugin(metadata, loadedPlugin.classLoader(), loadedPlugin.instances());
+        });
 
-            // Applying patches
-            PatchUtils.applyPluginPatches(metadata, classLoader);
+        for (LoadedPlugin loadedPlugin : preparedPlugins.values()) {
+            loadedPlugins.put(loadedPlugin.metadata().getId(), loadedPlugin);
+        }
 
-            // Loading the plugin
-            System.out.printf("[#] Loading plugin '%s' (ID: %s, Version: %s)...%n", metadata.getName(), metadata.getId(), metadata.getVersion());
-            loadPlugin(metadata, classLoader);
+        if (!failures.isEmpty()) {
+            IllegalStateException exception = new IllegalStateException("[!] Failed to initialize the plugins: " + failures.keySet());
+            failures.values().forEach(exception::addSuppressed);
+            throw exception;
         }
 
         // Displaying information about loaded plugins
         printLoadedPluginsInfo();
     }
 
+    /**
+     * Reloads a plugin from its Jar file without restarting the game.
+     * <p>
+     * The plugin must declare {@code reloadable: true} in its metadata, and no other loaded plugin may depend on it.
+     * The listeners, commands, services, Lua exposures and patches of the current version are removed after
+     * {@link Plugin#onUnload()}, its {@link PluginClassLoader} is closed, and the new version is loaded with a new class loader.
+     * If the new version fails to load, whatever it has registered is removed as well and the plugin stays unloaded.
+     *
+     * @param pluginId ID of the plugin to reload
+     * @return a future completed with {@code true} when the class loader of the previous version has been garbage collected,
+     * or with {@code false} if it is still reachable after {@code avrix.plugins.unloadCheckTimeout} milliseconds, i.e. its classes leak
+     * @throws IllegalArgumentException if the plugin is not loaded
+     * @throws IllegalStateException    if the plugin cannot be reloaded
+     * @throws Exception                if the new version fails to load
+     */
+    public static synchronized CompletableFuture<Boolean> reloadPlugin(String pluginId) throws Exception {
+        LoadedPlugin loadedPlugin = loadedPlugins.get(pluginId);
+        if (loadedPlugin == null) {
+            throw new IllegalArgumentException("[!] Plugin '" + pluginId + "' is not loaded.");
+        }
+        if (!loadedPlugin.metadata().isReloadable()) {
+            throw new IllegalStateException("[!] Plugin '" + pluginId + "' is not reloadable, it must declare 'reloadable: true' in its metadata.");
+        }
+        for (LoadedPlugin other : loadedPlugins.values()) {
+            Map<String, String> dependencies = other.metadata().getDependencies();
+            if (other != loadedPlugin && dependencies != null && dependencies.containsKey(pluginId)) {
+                throw new IllegalStateException("[!] Plugin '" + pluginId + "' cannot be reloaded, plugin '" + other.metadata().getId() + "' depends on it.");
+            }
+        }
+
+        // Reading and checking the new version before anything is unloaded
+        File pluginFile = loadedPlugin.metadata().getPluginFile();
+        Metadata metadata = Metadata.createFromJar(pluginFile, Constants.PLUGINS_METADATA_NAME);
+        if (metadata == null || !pluginId.equals(metadata.getId())) {
+            throw new IllegalStateException("[!] The Jar '" + pluginFile.getName() + "' no longer contains plugin '" + pluginId + "'.");
+        }
+        if (!metadata.isReloadable()) {
+            throw new IllegalStateException("[!] The new version of plugin '" + pluginId + "' is not reloadable.");
+        }
+        if (metadata.getEnvironment() != loadedPlugin.metadata().getEnvironment()) {
+            throw new IllegalStateException("[!] The new version of plugin '" + pluginId + "' has another environment.");
+        }
+
+        List<Metadata> updatedList = new ArrayList<>(pluginsList);
+        updatedList.replaceAll(plugin -> plugin == loadedPlugin.metadata() ? metadata : plugin);
+        Metadata.sortMetadata(updatedList);
+        Metadata.checkReloadableDependencies(updatedList);
+
+        System.out.printf("[#] Reloading plugin '%s' (ID: %s, Version: %s -> %s)...%n",
+                metadata.getName(), pluginId, loadedPlugin.metadata().getVersion(), metadata.getVersion());
+
+        WeakReference<ClassLoader> previousLoader = unloadPlugin(loadedPlugin);
+        pluginsList.clear();
+        pluginsList.addAll(updatedList);
+
+        LoadedPlugin reloadedPlugin = null;
+        try {
+            reloadedPlugin = preparePlugin(metadata);
+            PatchUtils.applyQueuedPatches();
+            loadPlugin(metadata, reloadedPlugin.classLoader(), reloadedPlugin.instances());
+        } catch (Exception | LinkageError e) {
+            if (reloadedPlugin != null) {
+                unloadPlugin(reloadedPlugin);
+            }
+            pluginsList.remove(metadata);
+            System.out.printf("[!] Failed to load the new version of plugin '%s', the plugin stays unloaded: %s%n", pluginId, e);
+            throw e;
+        }
+
+        loadedPlugins.put(pluginId, reloadedPlugin);
+        System.out.printf("[#] Plugin '%s' reloaded%n", pluginId);
+
+        return checkUnloaded(pluginId, previousLoader);
+    }
+
+    /**
+     * Creates the class loader of the plugin and queues its patches.
+     *
+     * @param metadata The {@link Metadata} of the plugin.
+     * @return the prepared plugin, whose entry points are not initialized yet
+     * @throws Exception if the Jar cannot be added to the class path or a patch cannot be created
+     */
+    private static LoadedPlugin preparePlugin(Metadata metadata) throws Exception {
+        File pluginFile = metadata.getPluginFile();
+
+        // Creating a URL for the plugin
+        URL pluginUrl = pluginFile.toURI().toURL();
+
+        // Adding jar file to classpath, the classes of a reloadable plugin are loaded only by its own loader, so they can be unloaded
+        if (!metadata.isReloadable()) {
+            Agent.addClassPath(pluginFile);
+        }
+
+        PluginClassLoader classLoader = new PluginClassLoader(metadata.getId(), new URL[]{pluginUrl}, ClassLoader.getSystemClassLoader());
+
+        // Extending ClassPoll with a new ClassLoader
+        LoaderClassPath classPath = new LoaderClassPath(classLoader);
+        ClassPool.getDefault().appendClassPath(classPath);
+
+        // Queuing patches
+        PatchUtils.applyPluginPatches(metadata, classLoader);
+
+        return new LoadedPlugin(metadata, classLoader, classPath, new ArrayList<>());
+    }
+
+    /**
+     * Unloads the plugin: calls {@link Plugin#onUnload()}, removes everything registered by the plugin
+     * and closes its class loader.
+     *
+     * @param loadedPlugin the loaded plugin
+     * @return a weak reference to the class loader of the plugin, to check that it is garbage collected
+     * @throws IOException if the class loader cannot be closed
+     */
+    private static WeakReference<ClassLoader> unloadPlugin(LoadedPlugin loadedPlugin) throws IOException {
+        String pluginId = loadedPlugin.metadata().getId();
+
+        for (Plugin instance : loadedPlugin.instances()) {
+            try {
+                instance.onUnload();
+            } catch (Exception e) {
+                System.out.printf("[!] Plugin '%s' failed to unload: %s%n", pluginId, e);
+            }
+        }
+
+        System.out.printf("[#] Unloaded plugin '%s' (listeners: %d, commands: %d, services: %d, Lua exposures: %d, patches: %d)%n",
+                pluginId,
+                EventManager.removeListeners(pluginId),
+                CommandsManager.removeCommands(pluginId),
+                ServiceManager.unregisterAll(pluginId),
+                LuaExposer.removeAll(pluginId),
+                PatchUtils.removePatches(pluginId));
+
+        ClassPool.getDefault().removeClassPath(loadedPlugin.classPath());
+        evictCachedClasses(ClassPool.getDefault(), loadedPlugin.classLoader());
+        loadedPlugins.remove(pluginId, loadedPlugin);
+        loadedPlugin.instances().clear();
+        loadedPlugin.classLoader().close();
+
+        return new WeakReference<>(loadedPlugin.classLoader());
+    }
+
+    /**
+     * Detaches the classes of the plugin cached by the {@link ClassPool}, which are not evicted with its class path.
+     * Otherwise, the patches of the next version of the plugin would be compiled against the classes of the previous one.
+     * The class path of the plugin must be removed from the pool first.
+     *
+     * @param classPool   the class pool
+     * @param classLoader the class loader of the unloaded plugin
+     * @return the number of detached classes
+     */
+    static int evictCachedClasses(ClassPool classPool, PluginClassLoader classLoader) {
+        int evicted = 0;
+
+        for (String className : classLoader.getIndexedClassNames()) {
+            CtClass ctClass = classPool.getOrNull(className);
+            if (ctClass != null) {
+                ctClass.detach();
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Watches in the background for the class loader of an unloaded plugin to be garbage collected.
+     * The weak reference is observed passively through a {@link ReferenceQueue}, the collection happens whenever the
+     * garbage collector next runs. Garbage collections are requested only with {@code -Davrix.plugins.unloadCheckForceGc=true}.
+     * If the class loader is still reachable after {@link #UNLOAD_CHECK_TIMEOUT_MS}, it is reported as leaking.
+     *
+     * @param pluginId    ID of the unloaded plugin
+     * @param classLoader weak reference to the class loader of the unloaded plugin
+     * @return a future completed with {@code true} if the class loader has been garbage collected, {@code false} otherwise
+     */
+    static CompletableFuture<Boolean> checkUnloaded(String pluginId, WeakReference<ClassLoader> classLoader) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        ClassLoader referent = classLoader.get();
+        if (referent == null) {
+            System.out.printf("[#] The previous version of plugin '%s' has been unloaded%n", pluginId);
+            result.complete(true);
+            return result;
+        }
+
+        UnloadReference reference = new UnloadReference(pluginId, referent, result);
+        pendingUnloads.add(reference);
+        startUnloadWatcher();
+
+        CompletableFuture.delayedExecutor(UNLOAD_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (pendingUnloads.remove(reference)) {
+                System.out.printf("[!] The previous version of plugin '%s' is still reachable after %d seconds, its classes leak metaspace. " +
+                        "Its threads and the objects it passed to the game or other plugins must be released in onUnload()%n", pluginId, UNLOAD_CHECK_TIMEOUT_MS / 1000);
+                result.complete(false);
+            }
+        });
+
+        if (UNLOAD_CHECK_FORCE_GC) {
+            Thread thread = new Thread(() -> {
+                for (int attempt = 0; attempt < UNLOAD_CHECK_ATTEMPTS && !result.isDone(); attempt++) {
+                    System.gc();
+
+                    try {
+                        Thread.sleep(UNLOAD_CHECK_INTERVAL_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "avrix-unload-gc-" + pluginId);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        return result;
+    }
+
+    /**
+     * Starts the thread reporting the class loaders of unloaded plugins as they are garbage collected, if it is not running yet.
+     */
+    private static synchronized void startUnloadWatcher() {
+        if (unloadWatcher != null) return;
+
+        unloadWatcher = new Thread(() -> {
+            while (true) {
+                try {
+                    UnloadReference reference = (UnloadReference) unloadQueue.remove();
+                    if (pendingUnloads.remove(reference)) {
+                        System.out.printf("[#] The previous version of plugin '%s' has been unloaded%n", reference.pluginId);
+                        reference.result.complete(true);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, "avrix-unload-watcher");
+        unloadWatcher.setDaemon(true);
+        unloadWatcher.start();
+    }
+
     /**
      * Loads and initializes plugin entry points.
      *
      * @param metadata    The {@link Metadata} of the plugin.
      * @param classLoader The {@link PluginClassLoader} to use for loading the plugin classes.
+     * @param instances   The list to which the created entry point instances are added.
      * @throws ClassNotFoundException    If a specified class cannot be found.
      * @throws NoSuchMethodException     If the constructor with Metadata parameter is not found.
      * @throws InvocationTargetException If the underlying constructor throws an exception.
      * @throws InstantiationException    If the class that declares the underlying constructor represents an abstract class.
      * @throws IllegalAccessException    If the constructor is inaccessible.
      */
-    private static void loadPlugin(Metadata metadata, ClassLoader classLoader) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+    private static void loadPlugin(Metadata metadata, ClassLoader classLoader, List<Plugin> instances) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
         if (metadata.getEntryPoints() == null || metadata.getEntryPoints().isEmpty()) {
             return;
         }
 
         for (String entryPoint : metadata.getEntryPoints()) {
-            Class<?> pluginClass = Class.forName(entryPoint, true, classLoader);
-            Plugin pluginInstance = (Plugin) pluginClass.getDeclaredConstructor(Metadata.class).newInstance(metadata);
-            pluginInstance.onInitialize();
+            try (StartupTracer.Span ignored = StartupTracer.begin("plugin", metadata.getId() + " " + entryPoint).arg("plugin", metadata.getId())) {
+                Class<?> pluginClass = Class.forName(entryPoint, true, classLoader);
+                Plugin pluginInstance = (Plugin) pluginClass.getDeclaredConstructor(Metadata.class).newInstance(metadata);
+                instances.add(pluginInstance);
+                pluginInstance.onInitialize();
+            }
         }
     }
 
@@ -1,6 +1,7 @@
 package com.avrix.plugin;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -34,6 +35,28 @@ public class ServiceManager {
         services.remove(serviceInterface);
     }
 
+    /**
+     * Removes all services of the plugin, e.g. before the plugin is reloaded.
+     * A service belongs to the plugin if its interface or its implementation is a class of the plugin,
+     * as determined by {@link PluginClassLoader#getPluginId(Class)}.
+     *
+     * @param pluginId ID of the plugin whose services should be removed
+     * @return the number of removed services
+     */
+    public static synchronized int unregisterAll(String pluginId) {
+        int removed = 0;
+        Iterator<Map.Entry<Class<?>, Object>> iterator = services.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Class<?>, Object> entry = iterator.next();
+            if (pluginId.equals(PluginClassLoader.getPluginId(entry.getKey()))
+                    || pluginId.equals(PluginClassLoader.getPluginId(entry.getValue().getClass()))) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
     /**
      * Returns the registered service by its interface.
      *
@@ -0,0 +1,97 @@
+package com.avrix.utils;
+
+import com.avrix.enums.IndexedClassType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Index of the patches, event listeners and commands of Avrix or a plugin, written at build time by
+ * {@code com.avrix.processor.ClassIndexProcessor}. Reading the index replaces scanning the jar and loading its classes.
+ */
+public final class ClassIndex {
+    /**
+     * Path of the index in the jar file
+     */
+    public static final String INDEX_PATH = "META-INF/avrix/index.list";
+
+    private final Map<IndexedClassType, List<String>> classNames = new EnumMap<>(IndexedClassType.class); // Class names by type
+
+    /**
+     * Private constructor, the index is created by {@link #read(File)} or {@link #parse(Reader)}.
+     */
+    private ClassIndex() {
+        for (IndexedClassType type : IndexedClassType.values()) {
+            classNames.put(type, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Reads the index of a jar file or a directory with compiled classes.
+     *
+     * @param codeSource the jar file or the classes directory
+     * @return the index, or {@code null} if the code source has no index
+     * @throws IOException if the index cannot be read
+     */
+    public static ClassIndex read(File codeSource) throws IOException {
+        if (codeSource.isDirectory()) {
+            File indexFile = new File(codeSource, INDEX_PATH);
+            if (!indexFile.isFile()) return null;
+
+            try (Reader reader = new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8)) {
+                return parse(reader);
+            }
+        }
+
+        try (JarFile jarFile = new JarFile(codeSource)) {
+            ZipEntry entry = jarFile.getEntry(INDEX_PATH);
+            if (entry == null) return null;
+
+            try (Reader reader = new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                return parse(reader);
+            }
+        }
+    }
+
+    /**
+     * Parses the index, one class per line in the form {@code <type> <binary class name>}.
+     * Empty lines, lines starting with '#' and lines with unknown types are skipped.
+     *
+     * @param reader the reader of the index
+     * @return the index
+     * @throws IOException if the index cannot be read
+     */
+    public static ClassIndex parse(Reader reader) throws IOException {
+        ClassIndex index = new ClassIndex();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            int separator = line.indexOf(' ');
+            if (separator < 0) continue;
+
+            IndexedClassType type = IndexedClassType.fromString(line.substring(0, separator));
+            if (type != null) {
+                index.classNames.get(type).add(line.substring(separator + 1).trim());
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Getting the names of the indexed classes of the given type.
+     *
+     * @param type the type of the classes
+     * @return the binary names of the classes, in the order of the index
+     */
+    public List<String> getClassNames(IndexedClassType type) {
+        return Collections.unmodifiableList(classNames.get(type));
+    }
+}
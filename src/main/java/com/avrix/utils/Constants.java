@@ -13,6 +13,11 @@ public class Constants {
      */
     public static final String CACHE_DIR_NAME = "avrix/cache";
 
+    /**
+     * Name of the directory with runtime metrics
+     */
+    public static final String METRICS_DIR_NAME = "avrix/metrics";
+
     /**
      * Folder name for plugins
      */
@@ -0,0 +1,281 @@
+package com.avrix.utils;
+
+import com.avrix.agent.ClassTransformer;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventRegistry;
+import javassist.ClassPool;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Persistent cache of classes modified by {@link ClassTransformer}s, stored in the {@code avrix/cache/classes} directory.
+ * <p>
+ * Each modified class has one entry, keyed by a hash of the class bytes before the patches, the bytes of all patch classes
+ * of the class in their order (including their nested classes) with their {@link ClassTransformer#getFingerprint()},
+ * the Avrix version and whether {@link EventHooks} calls are linked, so an unchanged restart installs the cached bytecode
+ * without compiling the patches with Javassist.
+ * Patches embed event identifiers from the {@link EventRegistry} into the game code, so each entry also records
+ * the registered event names, and it is used only if the registry assigns the same identifiers to them.
+ * <p>
+ * The cache can be disabled with the {@code avrix.patches.cache=false} system property.
+ */
+public final class PatchCache {
+    /**
+     * Whether the cache is used
+     */
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("avrix.patches.cache", "true"));
+
+    /**
+     * Directory of the cache entries
+     */
+    private static final Path CACHE_PATH = Paths.get(Constants.CACHE_DIR_NAME, "classes");
+
+    /**
+     * Cache entry format version, written at the start of each entry
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static int hits; // Number of patched classes installed from the cache
+    private static int misses; // Number of patched classes compiled and stored in the cache
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PatchCache() {
+    }
+
+    /**
+     * Computes the cache key of a single patch from the current bytes of the target class.
+     * Must be called before the patch is applied.
+     *
+     * @param patch the patch
+     * @return the cache key, or {@code null} if the cache is disabled or the key cannot be computed
+     */
+    public static String getKey(ClassTransformer patch) {
+        if (!ENABLED) return null;
+
+        try {
+            URL classUrl = ClassPool.getDefault().find(patch.getClassName());
+            if (classUrl == null) return null;
+
+            try (InputStream input = classUrl.openStream()) {
+                return getKey(List.of(patch), input.readAllBytes());
+            }
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to compute the cache key of patch '%s'. Reason: %s%n", patch.getClass().getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Computes the cache key of the patches of one class from the given bytes of the class.
+     *
+     * @param patches    the patches of the class in the order in which they are applied
+     * @param classBytes the bytes of the class before the patches
+     * @return the cache key, or {@code null} if the cache is disabled or the key cannot be computed
+     */
+    public static String getKey(List<ClassTransformer> patches, byte[] classBytes) {
+        if (!ENABLED || classBytes == null || patches.isEmpty()) return null;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(classBytes);
+
+            for (ClassTransformer patch : patches) {
+                for (byte[] patchBytes : getPatchBytes(patch.getClass())) {
+                    digest.update(patchBytes);
+                }
+                digest.update(patch.getFingerprint().getBytes(StandardCharsets.UTF_8));
+            }
+
+            digest.update(String.valueOf(Constants.AVRIX_VERSION).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) (EventHooks.LINK_HOOKS ? 1 : 0));
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.out.printf("[!] Failed to compute the cache key of the patches of class '%s'. Reason: %s%n", patches.get(0).getClassName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads the cached bytecode of the patched class, registering the event names the patches used.
+     *
+     * @param className the name of the patched class
+     * @param key       the cache key computed by {@link #getKey(List, byte[])}
+     * @return the modified bytecode, or {@code null} if there is no valid cache entry
+     */
+    public static synchronized byte[] load(String className, String key) {
+        if (key == null) return null;
+
+        Path entryPath = getEntryPath(className);
+        if (!Files.isRegularFile(entryPath)) return null;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+            if (input.readInt() != FORMAT_VERSION || !input.readUTF().equals(key)) return null;
+
+            List<String> eventNames = new ArrayList<>();
+            int eventsCount = input.readInt();
+            for (int i = 0; i < eventsCount; i++) {
+                eventNames.add(input.readUTF());
+            }
+
+            byte[] bytecode = new byte[input.readInt()];
+            input.readFully(bytecode);
+
+            if (!restoreEvents(eventNames)) return null;
+
+            hits++;
+            return bytecode;
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to read the cached class '%s'. Reason: %s%n", className, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the bytecode of the patched class in the cache.
+     *
+     * @param className the name of the patched class
+     * @param key       the cache key computed by {@link #getKey(List, byte[])} before the patches were applied
+     * @param bytecode  the modified bytecode
+     */
+    public static synchronized void store(String className, String key, byte[] bytecode) {
+        if (key == null || bytecode == null) return;
+
+        Path entryPath = getEntryPath(className);
+
+        try {
+            Files.createDirectories(CACHE_PATH);
+            Path tempPath = Files.createTempFile(CACHE_PATH, "entry", ".tmp");
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(key);
+
+                int eventsCount = EventRegistry.size();
+                output.writeInt(eventsCount);
+                for (int eventId = 0; eventId < eventsCount; eventId++) {
+                    output.writeUTF(EventRegistry.getName(eventId));
+                }
+
+                output.writeInt(bytecode.length);
+                output.write(bytecode);
+            }
+
+            Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            misses++;
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to cache the class '%s'. Reason: %s%n", className, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of patched classes installed from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of patched classes that were compiled and stored in the cache.
+     *
+     * @return the number of cache misses
+     */
+    public static synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Checks that the event names have the same identifiers as when the entry was stored, registering the missing ones.
+     *
+     * @param eventNames the registered event names in the order of their identifiers
+     * @return true if all names have the recorded identifiers
+     */
+    private static boolean restoreEvents(List<String> eventNames) {
+        for (int eventId = 0; eventId < eventNames.size(); eventId++) {
+            String eventName = eventNames.get(eventId);
+
+            if (eventId < EventRegistry.size()) {
+                if (!EventRegistry.getName(eventId).equalsIgnoreCase(eventName)) return false;
+            } else if (EventRegistry.getId(eventName) != eventId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the bytes of the patch class and its nested and anonymous classes.
+     *
+     * @param patchClass the patch class
+     * @return the class files of the patch
+     * @throws IOException if the patch class file cannot be read
+     */
+    private static List<byte[]> getPatchBytes(Class<?> patchClass) throws IOException {
+        Set<String> classNames = new LinkedHashSet<>();
+        classNames.add(patchClass.getName());
+        for (Class<?> nestedClass : patchClass.getDeclaredClasses()) {
+            classNames.add(nestedClass.getName());
+        }
+
+        ClassLoader classLoader = patchClass.getClassLoader();
+        List<byte[]> result = new ArrayList<>();
+
+        for (String className : classNames) {
+            byte[] bytes = readClass(classLoader, className);
+            if (bytes == null) {
+                throw new FileNotFoundException("Class file of '" + className + "' not found");
+            }
+            result.add(bytes);
+        }
+
+        // Anonymous classes (e.g. ExprEditor implementations) are numbered sequentially
+        for (int index = 1; ; index++) {
+            byte[] bytes = readClass(classLoader, patchClass.getName() + "$" + index);
+            if (bytes == null) break;
+            result.add(bytes);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a class file from the class loader.
+     *
+     * @param classLoader the class loader
+     * @param className   the binary name of the class
+     * @return the class file bytes, or {@code null} if the class file is not found
+     * @throws IOException if the class file cannot be read
+     */
+    private static byte[] readClass(ClassLoader classLoader, String className) throws IOException {
+        try (InputStream input = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            return input == null ? null : input.readAllBytes();
+        }
+    }
+
+    /**
+     * Returns the path of the cache entry of the patched class.
+     *
+     * @param className the name of the patched class
+     * @return the path of the entry file
+     */
+    private static Path getEntryPath(String className) {
+        return CACHE_PATH.resolve(className + ".bin");
+    }
+}
@@ -1,26 +1,63 @@
 package com.avrix.utils;
 
 import com.avrix.Launcher;
+import com.avrix.agent.AgentManager;
+import com.avrix.agent.ClassModifier;
 import com.avrix.agent.ClassTransformer;
+import com.avrix.agent.ProbeTransformer;
+import com.avrix.enums.IndexedClassType;
 import com.avrix.plugin.Metadata;
+import javassist.ByteArrayClassPath;
+import javassist.ClassPool;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.Enumeration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 /**
  * Manager for making modifications to game files.
+ * <p>
+ * The default patches and the plugin patches are queued and applied together by {@link #applyQueuedPatches()},
+ * so all patches of a class, from Avrix and from any plugins, are applied to one {@link javassist.CtClass}
+ * in the order of the plugin dependencies and installed as a single modified class.
+ * Patches of different owners modifying the same method, constructor or field are reported at startup.
+ * <p>
+ * Different classes are compiled concurrently on a {@link ForkJoinPool}, each with its own {@link ClassPool}.
+ * The compiled classes are then installed in the order of their first patch, so the result does not depend on scheduling.
+ * The number of compiling threads is set by the {@code avrix.patches.parallelism} system property
+ * (the number of processors by default, {@code 1} compiles all classes on the calling thread).
+ * <p>
+ * The original bytecode of each patched class is retained together with its patches, so patches can be disabled
+ * and enabled again at runtime with {@link #setPatchesEnabled(String, boolean)}: the enabled patches are applied again
+ * to the original class and the class is retransformed, or reverted if no patch is left.
  */
 public class PatchUtils {
     /**
-     * Applies a list of patches to classes specified by their fully qualified names.
+     * Number of threads compiling patches
+     */
+    private static final int PARALLELISM = Integer.getInteger("avrix.patches.parallelism", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Owner identifier of the default patches, the identifier of Avrix in the list of plugins
+     */
+    public static final String DEFAULT_PATCHES_OWNER = "avrix-loader";
+
+    private static final List<QueuedPatch> queuedPatches = new ArrayList<>(); // Patches waiting to be applied
+    private static final Map<String, AppliedClass> appliedClasses = new LinkedHashMap<>(); // Installed patches by class name
+
+    /**
+     * Queues the patches of the plugin, they are applied by {@link #applyQueuedPatches()}.
      *
      * @param metadata    Plugin {@link Metadata}
      * @param classLoader The {@link ClassLoader} to use for loading the patch classes.
@@ -31,68 +68,512 @@ public class PatchUtils {
      * @throws IllegalAccessException    If the constructor is inaccessible.
      */
     public static void applyPluginPatches(Metadata metadata, ClassLoader classLoader) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        checkUndeclaredPatches(metadata);
+
         if (metadata.getPatchList() == null || metadata.getPatchList().isEmpty()) return;
 
-        System.out.printf("[#] Applying patches from the '%s' (ID: %s, Version: %s)...%n", metadata.getName(), metadata.getId(), metadata.getVersion());
+        System.out.printf("[#] Collecting patches from the '%s' (ID: %s, Version: %s)...%n", metadata.getName(), metadata.getId(), metadata.getVersion());
 
+        List<ClassTransformer> patches = new ArrayList<>();
         for (String classPath : metadata.getPatchList()) {
             Class<?> patchClass = Class.forName(classPath, true, classLoader);
-            ClassTransformer patchInstance = (ClassTransformer) patchClass.getDeclaredConstructor().newInstance();
+            patches.add((ClassTransformer) patchClass.getDeclaredConstructor().newInstance());
+        }
+
+        queuePatches(metadata.getId(), patches);
+    }
+
+    /**
+     * Warns about patches found in the {@link ClassIndex} of the plugin that are not listed in its metadata,
+     * such patches are not applied.
+     *
+     * @param metadata Plugin {@link Metadata}
+     */
+    private static void checkUndeclaredPatches(Metadata metadata) {
+        if (metadata.getPluginFile() == null) return;
+
+        try {
+            ClassIndex classIndex = ClassIndex.read(metadata.getPluginFile());
+            if (classIndex == null) return;
+
+            List<String> patchList = metadata.getPatchList() != null ? metadata.getPatchList() : List.of();
+            for (String className : classIndex.getClassNames(IndexedClassType.PATCH)) {
+                if (!patchList.contains(className)) {
+                    System.out.printf("[?] Patch '%s' of plugin '%s' is not listed in %s and will not be applied%n",
+                            className, metadata.getId(), Constants.PLUGINS_METADATA_NAME);
+                }
+            }
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to read the class index of plugin '%s'. Reason: %s%n", metadata.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the patches, they are applied by {@link #applyQueuedPatches()}.
+     *
+     * @param ownerId the identifier of the plugin that owns the patches
+     * @param patches the patches in the order in which they are applied
+     */
+    public static synchronized void queuePatches(String ownerId, List<ClassTransformer> patches) {
+        for (ClassTransformer patch : patches) {
+            queuedPatches.add(new QueuedPatch(ownerId, patch));
+        }
+    }
+
+    /**
+     * Applies all queued patches, merging the patches of each class into a single modification.
+     *
+     * @throws RuntimeException if a patch fails, the patch of the first class in the queue order is reported
+     */
+    public static void applyQueuedPatches() {
+        List<QueuedPatch> patches;
+        synchronized (PatchUtils.class) {
+            patches = new ArrayList<>(queuedPatches);
+            queuedPatches.clear();
+        }
+
+        if (patches.isEmpty()) return;
+
+        int hits = PatchCache.getHits();
+        int misses = PatchCache.getMisses();
+
+        mergeAndApply(patches);
+
+        System.out.printf("[#] Patches applied (patches: %d, from cache: %d, compiled: %d)%n",
+                patches.size(), PatchCache.getHits() - hits, PatchCache.getMisses() - misses);
+    }
+
+    /**
+     * Applies the patches right away, merging the patches of each class into a single modification.
+     *
+     * @param patches the patches in the order in which they are applied
+     * @throws RuntimeException if a patch fails, the patch of the first class in the order of the patches is reported
+     */
+    public static void applyPatches(List<ClassTransformer> patches) {
+        applyPatches(null, patches);
+    }
+
+    /**
+     * Applies the patches of the owner right away, merging the patches of each class into a single modification.
+     *
+     * @param ownerId the identifier of the plugin that owns the patches, or {@code null} if they have no owner
+     * @param patches the patches in the order in which they are applied
+     * @throws RuntimeException if a patch fails, the patch of the first class in the order of the patches is reported
+     */
+    public static void applyPatches(String ownerId, List<ClassTransformer> patches) {
+        List<QueuedPatch> ownedPatches = new ArrayList<>();
+        for (ClassTransformer patch : patches) {
+            ownedPatches.add(new QueuedPatch(ownerId, patch));
+        }
+        mergeAndApply(ownedPatches);
+    }
+
+    /**
+     * Applies the patch right away, installing the modified class from the {@link PatchCache} if the patch
+     * and the target class have not changed since the last launch, and compiling the patch otherwise.
+     *
+     * @param patch the patch to apply
+     */
+    public static void applyPatch(ClassTransformer patch) {
+        applyPatches(List.of(patch));
+    }
+
+    /**
+     * Getting the installed patches.
+     *
+     * @return the installed patches, grouped by class in the order in which they were applied
+     */
+    public static synchronized List<PatchInfo> getAppliedPatches() {
+        List<PatchInfo> result = new ArrayList<>();
+        appliedClasses.forEach((className, appliedClass) -> {
+            for (QueuedPatch patch : appliedClass.patches) {
+                result.add(new PatchInfo(className, patch.transformer().getClass().getName(), patch.ownerId(),
+                        !appliedClass.disabledPatches.contains(patch)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Disables or enables installed patches at runtime. The enabled patches of each affected class are applied again
+     * to its original bytecode and the class is retransformed, a class without enabled patches is reverted to the original.
+     * If a class cannot be patched again, its patches keep their previous state.
+     *
+     * @param name    the name of the patch class, or the name of the patched class to change all of its patches
+     * @param enabled true to apply the patches, false to revert them
+     * @return the number of patches whose state has changed
+     */
+    public static synchronized int setPatchesEnabled(String name, boolean enabled) {
+        int changed = 0;
+
+        for (Map.Entry<String, AppliedClass> entry : appliedClasses.entrySet()) {
+            String className = entry.getKey();
+            AppliedClass appliedClass = entry.getValue();
+
+            Set<QueuedPatch> previousDisabled = new HashSet<>(appliedClass.disabledPatches);
+            for (QueuedPatch patch : appliedClass.patches) {
+                if (className.equals(name) || patch.transformer().getClass().getName().equals(name)) {
+                    if (enabled) {
+                        appliedClass.disabledPatches.remove(patch);
+                    } else {
+                        appliedClass.disabledPatches.add(patch);
+                    }
+                }
+            }
+
+            if (appliedClass.disabledPatches.equals(previousDisabled)) continue;
+
+            if (reapplyClass(className, appliedClass)) {
+                changed += Math.abs(appliedClass.disabledPatches.size() - previousDisabled.size());
+            } else {
+                appliedClass.disabledPatches.clear();
+                appliedClass.disabledPatches.addAll(previousDisabled);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Removes the installed patches of the plugin at runtime, e.g. before the plugin is reloaded.
+     * The remaining patches of each affected class are applied again to its original bytecode,
+     * a class without remaining patches is reverted to the original.
+     *
+     * @param ownerId the identifier of the plugin that owns the patches
+     * @return the number of removed patches
+     */
+    public static synchronized int removePatches(String ownerId) {
+        int removed = 0;
+
+        Iterator<Map.Entry<String, AppliedClass>> iterator = appliedClasses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, AppliedClass> entry = iterator.next();
+            AppliedClass appliedClass = entry.getValue();
+
+            List<QueuedPatch> ownedPatches = new ArrayList<>();
+            for (QueuedPatch patch : appliedClass.patches) {
+                if (Objects.equals(patch.ownerId(), ownerId)) {
+                    ownedPatches.add(patch);
+                }
+            }
+            if (ownedPatches.isEmpty()) continue;
+
+            appliedClass.patches.removeAll(ownedPatches);
+            ownedPatches.forEach(appliedClass.disabledPatches::remove);
+            removed += ownedPatches.size();
+
+            // The patches of the plugin can no longer be kept, so a class that cannot be patched again is reverted
+            if (!reapplyClass(entry.getKey(), appliedClass)) {
+                AgentManager.revertClass(entry.getKey());
+                appliedClass.disabledPatches.addAll(appliedClass.patches);
+                System.out.printf("[!] Class '%s' reverted to the original, its other patches are disabled%n", entry.getKey());
+            }
+
+            if (appliedClass.patches.isEmpty()) {
+                iterator.remove();
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Applies the enabled patches of the class again to its original bytecode and installs the result.
+     *
+     * @param className    the name of the class
+     * @param appliedClass the patches of the class
+     * @return true if the class has been installed or reverted
+     */
+    private static boolean reapplyClass(String className, AppliedClass appliedClass) {
+        List<QueuedPatch> enabledPatches = appliedClass.getEnabledPatches();
+
+        if (!enabledPatches.isEmpty()) {
+            for (QueuedPatch patch : enabledPatches) {
+                patch.transformer().getModifierBuilder().reset();
+            }
+
+            MergedClass mergedClass = compileClass(className, enabledPatches, appliedClass.originalBytes);
+            if (mergedClass.error() != null) {
+                System.err.printf("[!] Failed to apply patch '%s' (plugin: %s) again. Reason: %s%n",
+                        mergedClass.failedPatch().transformer().getClass().getName(), mergedClass.failedPatch().getOwner(), mergedClass.error().getMessage());
+                return false;
+            }
+
+            if (mergedClass.bytecode() != null) {
+                AgentManager.transformClass(className, mergedClass.bytecode());
+                System.out.printf("[#] Class '%s' patched again with %d of %d patches%n", className, enabledPatches.size(), appliedClass.patches.size());
+                return true;
+            }
+        }
+
+        AgentManager.revertClass(className);
+        System.out.printf("[#] Class '%s' reverted to the original%n", className);
+        return true;
+    }
+
+    /**
+     * Records the installed patches of the class, so they can be disabled and enabled at runtime.
+     * The bytes of the class are retained only for the first patches of the class, later patches are applied again to them.
+     *
+     * @param className    the name of the class
+     * @param classBytes   the bytes of the class before the patches
+     * @param classPatches the installed patches
+     */
+    private static synchronized void addAppliedPatches(String className, byte[] classBytes, List<QueuedPatch> classPatches) {
+        appliedClasses.computeIfAbsent(className, name -> new AppliedClass(classBytes)).patches.addAll(classPatches);
+    }
 
-            patchInstance.modifyClass();
-            patchInstance.applyModifications();
+    /**
+     * Compiles the patches grouped by class, concurrently if possible, and installs the modified classes in a single batch.
+     * <p>
+     * The compile tasks share the default {@link ClassPool}. This is safe as long as each task modifies only its own class,
+     * which is the class of all patches of the group: the other classes are only read, and Javassist synchronizes the
+     * shared state behind those reads (the class cache in {@code ClassPool.get0}, the lazily read class files of
+     * {@code CtClassType}, where the first read wins, its member cache, and the compiler's cache of unresolved names).
+     * Patches must therefore not modify classes other than their target class.
+     *
+     * @param patches the patches in the order in which they are applied
+     */
+    private static void mergeAndApply(List<QueuedPatch> patches) {
+        Map<String, List<QueuedPatch>> patchesByClass = new LinkedHashMap<>();
+        for (QueuedPatch patch : patches) {
+            patchesByClass.computeIfAbsent(patch.transformer().getClassName(), className -> new ArrayList<>()).add(patch);
+        }
+
+        long startTime = System.nanoTime();
+        Map<String, MergedClass> mergedClasses = new ConcurrentHashMap<>();
+
+        if (PARALLELISM <= 1 || patchesByClass.size() <= 1) {
+            patchesByClass.forEach((className, classPatches) -> mergedClasses.put(className, compileClass(className, classPatches, null)));
+        } else {
+            // Each task modifies only the class of its group, the shared classes are only read (see above)
+            ForkJoinPool pool = new ForkJoinPool(Math.min(PARALLELISM, patchesByClass.size()));
+            try {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                patchesByClass.forEach((className, classPatches) ->
+                        tasks.add(pool.submit(() -> mergedClasses.put(className, compileClass(className, classPatches, null)))));
+                tasks.forEach(ForkJoinTask::join);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        if (patchesByClass.size() > 1) {
+            System.out.printf("[#] Compiled %d patches of %d classes in %.1f ms%n", patches.size(), patchesByClass.size(), (System.nanoTime() - startTime) / 1_000_000.0);
+        }
+
+        // All modified classes are retransformed in a single pass
+        AgentManager.beginBatch();
+        try (StartupTracer.Span ignored = StartupTracer.begin("patch", "installPatches").arg("classes", patchesByClass.size())) {
+            for (String className : patchesByClass.keySet()) {
+                MergedClass mergedClass = mergedClasses.get(className);
+
+                for (String conflict : mergedClass.conflicts()) {
+                    System.out.println(conflict);
+                }
+
+                if (mergedClass.error() != null) {
+                    QueuedPatch failedPatch = mergedClass.failedPatch();
+                    System.err.printf("[!] Failed to apply patch '%s' (plugin: %s). Reason: %s%n",
+                            failedPatch.transformer().getClass().getName(), failedPatch.getOwner(), mergedClass.error().getMessage());
+                    throw mergedClass.error() instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(mergedClass.error());
+                }
+
+                if (mergedClass.bytecode() == null) continue;
+
+                AgentManager.transformClass(className, mergedClass.bytecode());
+                addAppliedPatches(className, mergedClass.classBytes(), patchesByClass.get(className));
+
+                if (!mergedClass.cached()) {
+                    PatchCache.store(className, mergedClass.cacheKey(), mergedClass.bytecode());
+                }
+            }
+        } finally {
+            AgentManager.commitBatch();
         }
     }
 
     /**
-     * Applying default patches to game files.
-     * Searches for patches in the {@link com.avrix.patches} package as descendants of {@link ClassTransformer},
-     * calls class modification methods and applies them at runtime.
+     * Applies all patches of one class in their order to a single {@link javassist.CtClass} and compiles it once,
+     * taking the modified class from the {@link PatchCache} when possible.
+     *
+     * @param className    the name of the class
+     * @param classPatches the patches of the class in the order in which they are applied
+     * @param classBytes   the bytes of the class to patch, or {@code null} to patch the current class
+     * @return the modified class
+     */
+    private static MergedClass compileClass(String className, List<QueuedPatch> classPatches, byte[] classBytes) {
+        QueuedPatch currentPatch = classPatches.get(0);
+
+        try (StartupTracer.Span classSpan = StartupTracer.begin("patch", className).arg("patches", classPatches.size())) {
+            if (classBytes == null) {
+                classBytes = readClass(className);
+            }
+
+            List<ClassTransformer> transformers = new ArrayList<>();
+            for (QueuedPatch patch : classPatches) {
+                transformers.add(patch.transformer());
+            }
+
+            String cacheKey = PatchCache.getKey(transformers, classBytes);
+            byte[] cachedClass = PatchCache.load(className, cacheKey);
+            if (cachedClass != null) {
+                classSpan.arg("cached", true);
+                return new MergedClass(cachedClass, classBytes, cacheKey, true, List.of(), null, null);
+            }
+
+            ClassPool classPool = createClassPool(className, classBytes);
+            ClassModifier.ClassModifierBuilder previousBuilder = null;
+
+            for (QueuedPatch patch : classPatches) {
+                currentPatch = patch;
+
+                ClassModifier.ClassModifierBuilder builder = patch.transformer().getModifierBuilder().setClassPool(classPool);
+                if (previousBuilder != null) {
+                    builder.continueFrom(previousBuilder);
+                }
+
+                try (StartupTracer.Span ignored = StartupTracer.begin("patch", patch.transformer().getClass().getName()).arg("plugin", patch.getOwner())) {
+                    patch.transformer().modifyClass();
+                }
+                previousBuilder = builder;
+            }
+
+            // Nothing to install if no patch has modified the class, e.g. when all configured probes were skipped
+            if (!currentPatch.transformer().getModifierBuilder().isModified()) {
+                return new MergedClass(null, classBytes, null, false, findConflicts(className, classPatches), null, null);
+            }
+
+            byte[] bytecode;
+            try (StartupTracer.Span ignored = StartupTracer.begin("patch", "compile " + className)) {
+                bytecode = currentPatch.transformer().compileModifications();
+            }
+            return new MergedClass(bytecode, classBytes, cacheKey, false, findConflicts(className, classPatches), null, null);
+        } catch (Throwable e) {
+            return new MergedClass(null, null, null, false, List.of(), currentPatch, e);
+        }
+    }
+
+    /**
+     * Finds the members of the class modified by patches of different owners.
+     *
+     * @param className    the name of the class
+     * @param classPatches the applied patches of the class
+     * @return the messages describing the conflicts
+     */
+    private static List<String> findConflicts(String className, List<QueuedPatch> classPatches) {
+        List<String> conflicts = new ArrayList<>();
+
+        for (int i = 0; i < classPatches.size(); i++) {
+            QueuedPatch first = classPatches.get(i);
+
+            for (int j = i + 1; j < classPatches.size(); j++) {
+                QueuedPatch second = classPatches.get(j);
+                if (Objects.equals(first.ownerId(), second.ownerId())) continue;
+
+                for (String member : first.transformer().getModifierBuilder().getModifiedMembers()) {
+                    if (second.transformer().getModifierBuilder().getModifiedMembers().contains(member)) {
+                        conflicts.add(String.format("[!] Conflicting patches of class '%s': '%s' is modified by '%s' (plugin: %s) and '%s' (plugin: %s)",
+                                className, member,
+                                first.transformer().getClass().getName(), first.getOwner(),
+                                second.transformer().getClass().getName(), second.getOwner()));
+                    }
+                }
+            }
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Creates a class pool, in which the class is defined by the given bytes and other classes are taken from the default pool.
+     *
+     * @param className  the name of the class
+     * @param classBytes the bytes of the class, or {@code null} to take the class from the default pool as well
+     * @return the class pool
+     */
+    private static ClassPool createClassPool(String className, byte[] classBytes) {
+        if (classBytes == null) return ClassPool.getDefault();
+
+        ClassPool classPool = new ClassPool(ClassPool.getDefault());
+        classPool.childFirstLookup = true;
+        classPool.insertClassPath(new ByteArrayClassPath(className, classBytes));
+        return classPool;
+    }
+
+    /**
+     * Reads the current bytes of the class from the default class pool, including the modifications installed so far.
+     *
+     * @param className the name of the class
+     * @return the bytes of the class, or {@code null} if the class is not found
+     * @throws IOException if the class file cannot be read
+     */
+    private static byte[] readClass(String className) throws IOException {
+        URL classUrl = ClassPool.getDefault().find(className);
+        if (classUrl == null) return null;
+
+        try (InputStream input = classUrl.openStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * Queuing default patches to game files.
+     * Reads the patches of the {@link com.avrix.patches} package from the {@link ClassIndex} written at build time,
+     * or searches the jar for descendants of {@link ClassTransformer} if there is no index, and queues them,
+     * they are applied together with the plugin patches by {@link #applyQueuedPatches()}.
      *
      * @throws IOException        if an I/O error occurs when reading the JAR file.
      * @throws URISyntaxException if a string could not be parsed as a URI reference.
      */
     public static void applyDefaultPatches() throws IOException, URISyntaxException {
-        System.out.println("[#] Applying default patches...");
+        System.out.println("[#] Collecting default patches...");
 
         File jarFile = new File(Launcher.class.getProtectionDomain().getCodeSource().getLocation().toURI());
         URL jarUrl = jarFile.toURI().toURL();
 
         try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jarUrl}, Launcher.class.getClassLoader())) {
-            JarURLConnection jarConnection = (JarURLConnection) new URL("jar:file:" + jarFile + "!/").openConnection();
-            JarFile jar = jarConnection.getJarFile();
-            Enumeration<JarEntry> entries = jar.entries();
-
-            while (entries.hasMoreElements()) {
-                JarEntry entry = entries.nextElement();
-                if (entry.getName().endsWith(".class") && entry.getName().startsWith("com/avrix/patches/")) {
-                    String className = entry.getName().replace("/", ".").replace(".class", "");
-
-                    try {
-                        Class<?> clazz = classLoader.loadClass(className);
-                        if (ClassTransformer.class.isAssignableFrom(clazz)) {
-                            ClassTransformer patchInstance = (ClassTransformer) clazz.getDeclaredConstructor().newInstance();
-                            patchInstance.modifyClass();
-                            patchInstance.applyModifications();
-                        }
-                    } catch (ClassNotFoundException e) {
-                        System.err.println("[!] Class not found: " + className);
-                        throw e;
-                    } catch (InstantiationException e) {
-                        System.err.println("[!] Failed to instantiate patcher class: " + className);
-                        throw e;
-                    } catch (IllegalAccessException e) {
-                        System.err.println("[!] Illegal access when instantiating patcher class: " + className);
-                        throw e;
-                    } catch (NoSuchMethodException e) {
-                        System.err.println("[!] No default constructor found for patcher class: " + className);
-                        throw e;
-                    } catch (InvocationTargetException e) {
-                        System.err.println("[!] Error occurred while invoking constructor for class: '" + className + "', cause: " + e.getCause());
-                        throw e;
+            List<ClassTransformer> patches = new ArrayList<>();
+
+            ClassIndex classIndex = ClassIndex.read(jarFile);
+            List<String> classNames;
+            if (classIndex != null) {
+                classNames = classIndex.getClassNames(IndexedClassType.PATCH);
+            } else {
+                System.out.printf("[?] Class index not found in '%s', scanning the jar for patches...%n", jarFile.getName());
+                classNames = findPatchClassNames(jarFile);
+            }
+
+            for (String className : classNames) {
+                if (!className.startsWith("com.avrix.patches.")) continue;
+
+                try {
+                    Class<?> clazz = classLoader.loadClass(className);
+                    if (ClassTransformer.class.isAssignableFrom(clazz)) {
+                        patches.add((ClassTransformer) clazz.getDeclaredConstructor().newInstance());
                     }
+                } catch (ClassNotFoundException e) {
+                    System.err.println("[!] Class not found: " + className);
+                    throw e;
+                } catch (InstantiationException e) {
+                    System.err.println("[!] Failed to instantiate patcher class: " + className);
+                    throw e;
+                } catch (IllegalAccessException e) {
+                    System.err.println("[!] Illegal access when instantiating patcher class: " + className);
+                    throw e;
+                } catch (NoSuchMethodException e) {
+                    System.err.println("[!] No default constructor found for patcher class: " + className);
+                    throw e;
+                } catch (InvocationTargetException e) {
+                    System.err.println("[!] Error occurred while invoking constructor for class: '" + className + "', cause: " + e.getCause());
+                    throw e;
                 }
             }
+
+            // Probes configured with the 'avrix.probes' system property
+            patches.addAll(ProbeTransformer.getConfiguredProbes());
+
+            queuePatches(DEFAULT_PATCHES_OWNER, patches);
         } catch (IOException e) {
             System.err.println("[!] IO exception occurred while accessing the JAR file: " + e.getMessage());
             throw e;
@@ -101,4 +582,100 @@ public class PatchUtils {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds the names of the classes in the {@link com.avrix.patches} package of the jar file.
+     *
+     * @param jarFile the jar file
+     * @return the binary names of the classes
+     * @throws IOException if an I/O error occurs when reading the JAR file.
+     */
+    private static List<String> findPatchClassNames(File jarFile) throws IOException {
+        List<String> classNames = new ArrayList<>();
+
+        JarURLConnection jarConnection = (JarURLConnection) new URL("jar:file:" + jarFile + "!/").openConnection();
+        JarFile jar = jarConnection.getJarFile();
+        Enumeration<JarEntry> entries = jar.entries();
+
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            if (entry.getName().endsWith(".class") && entry.getName().startsWith("com/avrix/patches/")) {
+                classNames.add(entry.getName().replace("/", ".").replace(".class", ""));
+            }
+        }
+
+        return classNames;
+    }
+
+    /**
+     * Patch waiting to be applied.
+     *
+     * @param ownerId     the identifier of the plugin that owns the patch, or {@code null} if unknown
+     * @param transformer the patch
+     */
+    private record QueuedPatch(String ownerId, ClassTransformer transformer) {
+        /**
+         * Getting the owner of the patch for messages.
+         *
+         * @return the identifier of the owner, or '?' if unknown
+         */
+        String getOwner() {
+            return ownerId != null ? ownerId : "?";
+        }
+    }
+
+    /**
+     * Result of merging the patches of a class.
+     *
+     * @param bytecode    the modified class, or {@code null} if a patch failed or the class has not been modified
+     * @param classBytes  the bytes of the class before the patches, or {@code null} if a patch failed
+     * @param cacheKey    the {@link PatchCache} key of the patches
+     * @param cached      whether the modified class was taken from the cache
+     * @param conflicts   the messages about members modified by patches of different owners
+     * @param failedPatch the failed patch, or {@code null} if the patches were compiled
+     * @param error       the error of the failed patch, or {@code null} if the patches were compiled
+     */
+    private record MergedClass(byte[] bytecode, byte[] classBytes, String cacheKey, boolean cached, List<String> conflicts,
+                               QueuedPatch failedPatch, Throwable error) {
+    }
+
+    /**
+     * Information about an installed patch.
+     *
+     * @param className the name of the patched class
+     * @param patchName the name of the patch class
+     * @param ownerId   the identifier of the plugin that owns the patch, or {@code null} if unknown
+     * @param enabled   whether the patch is currently applied
+     */
+    public record PatchInfo(String className, String patchName, String ownerId, boolean enabled) {
+    }
+
+    /**
+     * Patched class with its original bytecode and its patches, enabled or not.
+     */
+    private static final class AppliedClass {
+        private final byte[] originalBytes; // Bytes of the class before the first patch
+        private final List<QueuedPatch> patches = new ArrayList<>(); // Patches in the order in which they are applied
+        private final Set<QueuedPatch> disabledPatches = new HashSet<>(); // Patches that are currently not applied
+
+        /**
+         * Constructor for creating an {@link AppliedClass} object.
+         *
+         * @param originalBytes the bytes of the class before the first patch
+         */
+        private AppliedClass(byte[] originalBytes) {
+            this.originalBytes = originalBytes;
+        }
+
+        /**
+         * Getting the patches that are currently applied.
+         *
+         * @return the enabled patches in the order in which they are applied
+         */
+        private List<QueuedPatch> getEnabledPatches() {
+            List<QueuedPatch> enabledPatches = new ArrayList<>(patches);
+            enabledPatches.removeAll(disabledPatches);
+            return enabledPatches;
+        }
+    }
+}
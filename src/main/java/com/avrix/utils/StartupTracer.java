@@ -0,0 +1,237 @@
+package com.avrix.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tracer of the startup timeline: the launcher phases, the patches and the initialization of each plugin.
+ * <p>
+ * Each traced step is a {@link Span} with its wall and CPU time, opened with {@link #begin(String, String)}
+ * in a try-with-resources statement. When the startup is complete, {@link #finish(Path)} writes the steps
+ * in the Chrome trace event format (open with {@code chrome://tracing} or Perfetto) and prints the slowest steps.
+ * <p>
+ * The tracer is configured with the system properties {@code avrix.startup.trace} (enabled by default)
+ * and {@code avrix.startup.traceTop} (number of steps in the summary, 15 by default).
+ */
+public final class StartupTracer {
+    /**
+     * Whether the startup is traced
+     */
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("avrix.startup.trace", "true"));
+
+    /**
+     * Number of the slowest steps printed in the summary
+     */
+    private static final int SUMMARY_LIMIT = Integer.getInteger("avrix.startup.traceTop", 15);
+
+    /**
+     * Span returned when the tracing is disabled or finished
+     */
+    private static final Span NOOP_SPAN = new Span(null, null);
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean(); // Source of the thread CPU time
+    private static final long originNanos = System.nanoTime(); // Time of the tracer initialization
+    private static final long originUptimeMicros = ManagementFactory.getRuntimeMXBean().getUptime() * 1000; // JVM uptime at the tracer initialization
+    private static final Queue<Span> spans = new ConcurrentLinkedQueue<>(); // Completed spans
+    private static volatile boolean finished; // Whether the trace has been written
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StartupTracer() {
+    }
+
+    /**
+     * Starts a traced step on the current thread. The step ends when the span is closed, on the same thread.
+     *
+     * @param category the category of the step, e.g. 'phase', 'patch' or 'plugin'
+     * @param name     the name of the step
+     * @return the span of the step
+     */
+    public static Span begin(String category, String name) {
+        if (!ENABLED || finished) return NOOP_SPAN;
+        return new Span(category, name);
+    }
+
+    /**
+     * Writes the trace file and prints the slowest steps. Spans closed after this call are not recorded.
+     *
+     * @param file the file to which the trace is written
+     */
+    public static void finish(Path file) {
+        if (!ENABLED || finished) return;
+        finished = true;
+
+        List<Span> completed = new ArrayList<>(spans);
+        spans.clear();
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, toTraceJson(completed).toString());
+        } catch (IOException e) {
+            System.out.printf("[!] Failed to write the startup trace to '%s'. Reason: %s%n", file, e.getMessage());
+        }
+
+        System.out.print(getSummary(completed));
+    }
+
+    /**
+     * Converts the spans to the Chrome trace event format.
+     *
+     * @param completed the completed spans
+     * @return the trace object
+     */
+    private static JSONObject toTraceJson(List<Span> completed) {
+        JSONArray events = new JSONArray();
+        Map<Long, String> threadNames = new TreeMap<>();
+
+        for (Span span : completed) {
+            threadNames.put(span.threadId, span.threadName);
+
+            JSONObject args = new JSONObject(span.args);
+            args.put("cpuMs", span.getCpuNanos() / 1_000_000.0);
+
+            events.put(new JSONObject()
+                    .put("name", span.name)
+                    .put("cat", span.category)
+                    .put("ph", "X")
+                    .put("ts", originUptimeMicros + (span.startNanos - originNanos) / 1000)
+                    .put("dur", span.getWallNanos() / 1000)
+                    .put("pid", 1)
+                    .put("tid", span.threadId)
+                    .put("args", args));
+        }
+
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            events.put(new JSONObject()
+                    .put("name", "thread_name")
+                    .put("ph", "M")
+                    .put("pid", 1)
+                    .put("tid", thread.getKey())
+                    .put("args", new JSONObject().put("name", thread.getValue())));
+        }
+
+        return new JSONObject()
+                .put("traceEvents", events)
+                .put("displayTimeUnit", "ms");
+    }
+
+    /**
+     * Creates the summary of the slowest steps.
+     *
+     * @param completed the completed spans
+     * @return the summary text
+     */
+    private static String getSummary(List<Span> completed) {
+        List<Span> slowest = new ArrayList<>(completed);
+        slowest.sort(Comparator.comparingLong(Span::getWallNanos).reversed());
+
+        StringBuilder sb = new StringBuilder(String.format("[#] Startup completed %.1f s after the JVM start, slowest steps:%n",
+                ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0));
+
+        for (Span span : slowest.subList(0, Math.min(SUMMARY_LIMIT, slowest.size()))) {
+            sb.append(String.format("    - [%s] %s: wall %.1f ms, cpu %.1f ms%n",
+                    span.category, span.name, span.getWallNanos() / 1_000_000.0, span.getCpuNanos() / 1_000_000.0));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU time in nanoseconds, or -1 if it is not supported
+     */
+    private static long getThreadCpuTime() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * A traced step of the startup.
+     */
+    public static final class Span implements AutoCloseable {
+        private final String category; // Category of the step
+        private final String name; // Name of the step
+        private final Map<String, Object> args = new LinkedHashMap<>(); // Additional information about the step
+        private final long threadId; // Identifier of the thread running the step
+        private final String threadName; // Name of the thread running the step
+        private final long startNanos; // Wall time at the start
+        private final long startCpuNanos; // Thread CPU time at the start
+        private long endNanos; // Wall time at the end
+        private long endCpuNanos; // Thread CPU time at the end
+
+        /**
+         * Constructor for creating a {@link Span} object, starting the step.
+         *
+         * @param category the category of the step, {@code null} for the span that is not recorded
+         * @param name     the name of the step
+         */
+        private Span(String category, String name) {
+            Thread thread = Thread.currentThread();
+
+            this.category = category;
+            this.name = name;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.startCpuNanos = category != null ? getThreadCpuTime() : -1;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds information about the step, shown in the trace viewer.
+         *
+         * @param key   the name of the value
+         * @param value the value
+         * @return this span
+         */
+        public Span arg(String key, Object value) {
+            if (category != null) {
+                args.put(key, value);
+            }
+            return this;
+        }
+
+        /**
+         * Returns the wall time of the step.
+         *
+         * @return the wall time in nanoseconds
+         */
+        public long getWallNanos() {
+            return endNanos - startNanos;
+        }
+
+        /**
+         * Returns the CPU time of the thread during the step.
+         *
+         * @return the CPU time in nanoseconds, or 0 if it is not supported
+         */
+        public long getCpuNanos() {
+            return startCpuNanos >= 0 && endCpuNanos >= 0 ? endCpuNanos - startCpuNanos : 0;
+        }
+
+        /**
+         * Ends the step and records it.
+         */
+        @Override
+        public void close() {
+            if (category == null || endNanos != 0) return;
+
+            endNanos = System.nanoTime();
+            endCpuNanos = getThreadCpuTime();
+
+            if (!finished) {
+                spans.add(this);
+            }
+        }
+    }
+}
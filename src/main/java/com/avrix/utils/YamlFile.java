@@ -21,6 +21,11 @@ import java.util.stream.Collectors;
  * This class represents a YAML file and provides methods to read, write, and manipulate its contents.
  */
 public class YamlFile {
+    /**
+     * Parser of each thread, files are parsed concurrently (e.g. plugin metadata) and {@link Yaml} is not thread-safe
+     */
+    private static final ThreadLocal<Yaml> yamlParser = ThreadLocal.withInitial(Yaml::new);
+
     private Map<String, Object> yamlData = new LinkedHashMap<>(); // Deserialized YAML file content as a dictionary
     private Path filePath; // Path to the YAML file
     private String fileName; // YAML file name
@@ -41,8 +46,7 @@ public class YamlFile {
         }
 
         try (InputStream inputStream = jarUrl.openStream()) {
-            Yaml yaml = new Yaml();
-            Map<String, Object> loadData = yaml.load(inputStream);
+            Map<String, Object> loadData = yamlParser.get().load(inputStream);
             if (loadData != null) {
                 this.yamlData = loadData;
             }
@@ -62,8 +66,7 @@ public class YamlFile {
      */
     public YamlFile(InputStream inputStream, Path filePath, String fileName) {
         try (inputStream) {
-            Yaml yaml = new Yaml();
-            Map<String, Object> loadData = yaml.load(inputStream);
+            Map<String, Object> loadData = yamlParser.get().load(inputStream);
             if (loadData != null) {
                 this.yamlData = loadData;
             }
@@ -0,0 +1,96 @@
+package com.avrix.agent;
+
+import javassist.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link AgentManager} class.
+ */
+public class AgentManagerTest {
+    /**
+     * Name of the class patched when it is defined. The class is generated, so nothing loads it before the test.
+     */
+    private static final String DEFINE_TARGET_NAME = "com.avrix.agent.GeneratedDefineTarget";
+
+    /**
+     * Tests that a class that is not loaded yet is installed patched when it is defined, and reverted afterward.
+     *
+     * @throws Exception if the class cannot be generated, compiled, loaded or invoked
+     */
+    @Test
+    public void testDefineTimePatching() throws Exception {
+        AgentLoader.loadAgent();
+
+        CtClass target = new ClassPool(true).makeClass(DEFINE_TARGET_NAME);
+        target.addMethod(CtNewMethod.make("public static int getValue() { return 1; }", target));
+        byte[] originalBytecode = target.toBytecode();
+
+        ClassPool classPool = new ClassPool(true);
+        classPool.insertClassPath(new ByteArrayClassPath(DEFINE_TARGET_NAME, originalBytecode));
+        byte[] bytecode = new ClassModifier.ClassModifierBuilder(DEFINE_TARGET_NAME)
+                .setClassPool(classPool)
+                .modifyMethod("getValue", (ctClass, ctMethod) -> {
+                    try {
+                        ctMethod.setBody("{ return 2; }");
+                    } catch (CannotCompileException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .build()
+                .compile();
+
+        AgentManager.transformClass(DEFINE_TARGET_NAME, bytecode);
+        assertTrue(Arrays.stream(Agent.instrumentation.getAllLoadedClasses()).noneMatch(clazz -> clazz.getName().equals(DEFINE_TARGET_NAME)));
+
+        try {
+            // The original class is defined only now, the agent transformer installs the modified class instead
+            ClassLoader classLoader = new GeneratedClassLoader(AgentManagerTest.class.getClassLoader(), DEFINE_TARGET_NAME, originalBytecode);
+            Method getValue = classLoader.loadClass(DEFINE_TARGET_NAME).getMethod("getValue");
+            assertEquals(2, getValue.invoke(null));
+
+            assertTrue(AgentManager.revertClass(DEFINE_TARGET_NAME));
+            assertEquals(1, getValue.invoke(null));
+        } finally {
+            AgentManager.revertClass(DEFINE_TARGET_NAME);
+        }
+    }
+
+    /**
+     * Class loader defining a single generated class
+     */
+    private static class GeneratedClassLoader extends ClassLoader {
+        private final String className; // Name of the generated class
+        private final byte[] bytecode; // Bytecode of the generated class
+
+        /**
+         * Constructor for creating a {@link GeneratedClassLoader} object.
+         *
+         * @param parent    the parent class loader
+         * @param className the name of the generated class
+         * @param bytecode  the bytecode of the generated class
+         */
+        GeneratedClassLoader(ClassLoader parent, String className, byte[] bytecode) {
+            super(parent);
+            this.className = className;
+            this.bytecode = bytecode;
+        }
+
+        /**
+         * Defines the generated class.
+         *
+         * @param name the name of the class
+         * @return the defined class
+         * @throws ClassNotFoundException if the class is not the generated class
+         */
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!className.equals(name)) throw new ClassNotFoundException(name);
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.avrix.agent;
+
+import com.avrix.events.Event;
+import com.avrix.events.EventHooks;
+import com.avrix.events.EventManager;
+import com.avrix.events.EventRegistry;
+import javassist.*;
+import javassist.bytecode.*;
+import javassist.expr.ExprEditor;
+import javassist.expr.MethodCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link EventHookLinker} class.
+ */
+public class EventHookLinkerTest {
+    /**
+     * Descriptor of the hook method with one argument
+     */
+    private static final String HOOK_DESCRIPTOR = "(Ljava/lang/Object;I)V";
+
+    /**
+     * Clearing all listeners after each test
+     */
+    @AfterEach
+    public void tearDown() {
+        EventManager.clearAllListeners();
+    }
+
+    /**
+     * Tests that hook calls with identifiers pushed by 'iconst', 'bipush', 'sipush' and 'ldc', and a hook inside a try block,
+     * are linked in a class that already has lambda bootstrap methods, and that the linked class passes the verifier,
+     * does nothing without listeners and raises the events once listeners are added.
+     *
+     * @throws Exception if the class cannot be compiled, loaded or invoked
+     */
+    @Test
+    public void testLink() throws Exception {
+        // The pushed identifiers must be registered events, whatever instruction pushes them
+        for (int i = 0; EventRegistry.size() < 4; i++) {
+            EventRegistry.getId("OnHookLinkerTest" + i);
+        }
+        int tryEventId = EventRegistry.getId("OnHookLinkerTryTest");
+
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(HookTarget.class.getClassLoader()));
+
+        byte[] bytecode = new ClassModifier.ClassModifierBuilder(HookTarget.class.getName())
+                .setClassPool(classPool)
+                .modifyMethod("iconstHook", (ctClass, ctMethod) -> setHookBody(ctMethod, Opcode.ICONST_0, 0))
+                .modifyMethod("bipushHook", (ctClass, ctMethod) -> setHookBody(ctMethod, Opcode.BIPUSH, 1))
+                .modifyMethod("sipushHook", (ctClass, ctMethod) -> setHookBody(ctMethod, Opcode.SIPUSH, 2))
+                .modifyMethod("ldcHook", (ctClass, ctMethod) -> setHookBody(ctMethod, Opcode.LDC, 3))
+                .modifyMethod("tryHook", (ctClass, ctMethod) -> {
+                    try {
+                        ctMethod.instrument(new ExprEditor() {
+                            @Override
+                            public void edit(MethodCall call) throws CannotCompileException {
+                                if (call.getMethodName().equals("placeholder")) {
+                                    call.replace(EventHooks.class.getName() + ".hook($1, " + tryEventId + ");");
+                                }
+                            }
+                        });
+                    } catch (CannotCompileException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .build()
+                .compile();
+
+        assertEquals(0, countHookCalls(bytecode), "Not all hook calls were linked");
+
+        // Defined by a separate loader, so the linked class is verified when it is linked
+        Class<?> linkedClass = new LinkedClassLoader(HookTarget.class.getClassLoader()).define(HookTarget.class.getName(), bytecode);
+        String[] methodNames = {"iconstHook", "bipushHook", "sipushHook", "ldcHook"};
+        int[] eventIds = {0, 1, 2, 3};
+
+        for (String methodName : methodNames) {
+            linkedClass.getMethod(methodName, Object.class).invoke(null, "ignored");
+        }
+        assertEquals(true, linkedClass.getMethod("tryHook", Object.class).invoke(null, "ignored"));
+
+        List<HookListener> listeners = new ArrayList<>();
+        for (int eventId : eventIds) {
+            listeners.add(new HookListener(EventRegistry.getName(eventId)));
+        }
+        listeners.add(new HookListener(EventRegistry.getName(tryEventId)));
+        for (HookListener listener : listeners) {
+            assertTrue(listener.received.isEmpty());
+            EventManager.addListener(listener);
+        }
+
+        for (int i = 0; i < methodNames.length; i++) {
+            linkedClass.getMethod(methodNames[i], Object.class).invoke(null, methodNames[i]);
+            assertEquals(List.of(methodNames[i]), listeners.get(i).received);
+        }
+        assertEquals(true, linkedClass.getMethod("tryHook", Object.class).invoke(null, "tryHook"));
+        assertEquals(List.of("tryHook"), listeners.get(methodNames.length).received);
+
+        // The bootstrap methods of the lambdas are kept
+        Method lambdaValue = linkedClass.getMethod("lambdaValue", Object.class);
+        assertEquals("lambda", lambdaValue.invoke(null, "lambda"));
+    }
+
+    /**
+     * Replaces the body of the method by a hook call, pushing the event identifier with the specified instruction.
+     *
+     * @param ctMethod   the method taking one argument
+     * @param pushOpcode 'iconst_0', 'bipush', 'sipush' or 'ldc'
+     * @param eventId    the identifier of the event
+     */
+    private static void setHookBody(CtMethod ctMethod, int pushOpcode, int eventId) {
+        MethodInfo methodInfo = ctMethod.getMethodInfo();
+        ConstPool constPool = methodInfo.getConstPool();
+        Bytecode code = new Bytecode(constPool, 2, 1);
+
+        code.addAload(0);
+        switch (pushOpcode) {
+            case Opcode.ICONST_0 -> code.addOpcode(Opcode.ICONST_0 + eventId);
+            case Opcode.BIPUSH -> {
+                code.addOpcode(Opcode.BIPUSH);
+                code.add(eventId);
+            }
+            case Opcode.SIPUSH -> {
+                code.addOpcode(Opcode.SIPUSH);
+                code.addIndex(eventId);
+            }
+            default -> code.addLdc(constPool.addIntegerInfo(eventId));
+        }
+        code.addInvokestatic(EventHooks.class.getName(), EventHooks.HOOK_METHOD_NAME, HOOK_DESCRIPTOR);
+        code.addOpcode(Opcode.RETURN);
+
+        methodInfo.setCodeAttribute(code.toCodeAttribute());
+    }
+
+    /**
+     * Counts the calls of the hook methods left in the class.
+     *
+     * @param bytecode the bytecode of the class
+     * @return the number of 'invokestatic' instructions calling a hook method
+     * @throws IOException  if the class cannot be read
+     * @throws BadBytecode if the code of a method cannot be read
+     */
+    private static int countHookCalls(byte[] bytecode) throws IOException, BadBytecode {
+        ClassFile classFile = new ClassFile(new DataInputStream(new ByteArrayInputStream(bytecode)));
+        ConstPool constPool = classFile.getConstPool();
+        int count = 0;
+
+        for (MethodInfo methodInfo : classFile.getMethods()) {
+            CodeAttribute codeAttribute = methodInfo.getCodeAttribute();
+            if (codeAttribute == null) continue;
+
+            CodeIterator iterator = codeAttribute.iterator();
+            while (iterator.hasNext()) {
+                int index = iterator.next();
+                if (iterator.byteAt(index) == Opcode.INVOKESTATIC
+                        && EventHooks.class.getName().equals(constPool.getMethodrefClassName(iterator.u16bitAt(index + 1)))) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Class whose hooks are linked
+     */
+    public static class HookTarget {
+        /**
+         * Replaced by a hook pushing the identifier with 'iconst'
+         *
+         * @param arg the argument of the event
+         */
+        public static void iconstHook(Object arg) {
+        }
+
+        /**
+         * Replaced by a hook pushing the identifier with 'bipush'
+         *
+         * @param arg the argument of the event
+         */
+        public static void bipushHook(Object arg) {
+        }
+
+        /**
+         * Replaced by a hook pushing the identifier with 'sipush'
+         *
+         * @param arg the argument of the event
+         */
+        public static void sipushHook(Object arg) {
+        }
+
+        /**
+         * Replaced by a hook pushing the identifier with 'ldc'
+         *
+         * @param arg the argument of the event
+         */
+        public static void ldcHook(Object arg) {
+        }
+
+        /**
+         * Calls the placeholder, replaced by a hook, inside a try block
+         *
+         * @param arg the argument of the event
+         * @return true unless the call throws
+         */
+        public static boolean tryHook(Object arg) {
+            try {
+                placeholder(arg);
+                return true;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the argument through a lambda, so the class has a bootstrap method before linking
+         *
+         * @param arg the argument
+         * @return the argument
+         */
+        public static Object lambdaValue(Object arg) {
+            Supplier<Object> supplier = () -> arg;
+            return supplier.get();
+        }
+
+        /**
+         * Call replaced by a hook
+         *
+         * @param arg the argument
+         */
+        private static void placeholder(Object arg) {
+        }
+    }
+
+    /**
+     * Listener recording the arguments of an event
+     */
+    public static class HookListener extends Event {
+        private final String eventName; // Name of the event
+        private final List<Object> received = new ArrayList<>(); // Received arguments
+
+        /**
+         * Constructor for creating a {@link HookListener} object.
+         *
+         * @param eventName the name of the event
+         */
+        public HookListener(String eventName) {
+            this.eventName = eventName;
+        }
+
+        /**
+         * Getting the event name
+         *
+         * @return name of the event being implemented
+         */
+        @Override
+        public String getEventName() {
+            return eventName;
+        }
+
+        /**
+         * Called Event Handling Method
+         *
+         * @param arg the argument of the event
+         */
+        public void handleEvent(Object arg) {
+            received.add(arg);
+        }
+    }
+
+    /**
+     * Class loader defining the linked class
+     */
+    private static class LinkedClassLoader extends ClassLoader {
+        /**
+         * Constructor for creating a {@link LinkedClassLoader} object.
+         *
+         * @param parent the parent class loader
+         */
+        LinkedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        /**
+         * Defines the class from its bytecode.
+         *
+         * @param name     the name of the class
+         * @param bytecode the bytecode of the class
+         * @return the defined class
+         */
+        Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.avrix.agent;
+
+import javassist.ClassPool;
+import javassist.LoaderClassPath;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ProbeTransformer} and {@link MethodProbes} classes.
+ */
+public class ProbeTransformerTest {
+    /**
+     * Tests that configured probes are grouped by class and invalid entries are skipped.
+     */
+    @Test
+    public void testParse() {
+        List<ProbeTransformer> probes = ProbeTransformer.parse(
+                " zombie.iso.IsoCell#update; zombie.network.ServerMap#preupdate;invalid;zombie.iso.IsoCell#render(int, int);");
+
+        assertEquals(2, probes.size());
+        assertEquals("zombie.iso.IsoCell", probes.get(0).getClassName());
+        assertEquals(List.of("update", "render(int, int)"), probes.get(0).getMethods());
+        assertEquals("zombie.network.ServerMap", probes.get(1).getClassName());
+        assertEquals(List.of("preupdate"), probes.get(1).getMethods());
+        assertNotEquals(probes.get(0).getFingerprint(), probes.get(1).getFingerprint());
+    }
+
+    /**
+     * Tests that probe timings are recorded only when enabled.
+     */
+    @Test
+    public void testRecord() {
+        String probeName = "com.avrix.agent.ProbeTransformerTest.testRecord()";
+
+        MethodProbes.record(probeName, System.nanoTime());
+        assertEquals(1, MethodProbes.getStats(probeName).getCount());
+
+        MethodProbes.setEnabled(false);
+        MethodProbes.record(probeName, System.nanoTime());
+        MethodProbes.setEnabled(true);
+        assertEquals(1, MethodProbes.getStats(probeName).getCount());
+
+        assertTrue(MethodProbes.getReport(5).contains(probeName));
+
+        MethodProbes.reset();
+        assertEquals(0, MethodProbes.getStats(probeName).getCount());
+    }
+
+    /**
+     * Tests that a probed method passes the bytecode verifier and records both normal and exceptional exits,
+     * while the exception still propagates to the caller.
+     *
+     * @throws Exception if the probed class cannot be compiled or loaded
+     */
+    @Test
+    public void testProbedMethod() throws Exception {
+        String probeName = ProbeTarget.class.getName() + ".compute(int)";
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(ProbeTarget.class.getClassLoader()));
+
+        byte[] bytecode = new ClassModifier.ClassModifierBuilder(ProbeTarget.class.getName())
+                .setClassPool(classPool)
+                .addProbe("compute")
+                .build()
+                .compile();
+
+        // Defined by a separate loader, so the probed class is verified when it is linked
+        Class<?> probedClass = new ProbedClassLoader(ProbeTarget.class.getClassLoader()).define(ProbeTarget.class.getName(), bytecode);
+        Method compute = probedClass.getMethod("compute", int.class);
+
+        assertEquals(2, compute.invoke(null, 1));
+        InvocationTargetException exception = assertThrows(InvocationTargetException.class, () -> compute.invoke(null, -1));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+
+        assertEquals(2, MethodProbes.getStats(probeName).getCount());
+        MethodProbes.reset();
+    }
+
+    /**
+     * Class whose method is probed
+     */
+    public static class ProbeTarget {
+        /**
+         * Doubles a positive value
+         *
+         * @param value the value
+         * @return the doubled value
+         * @throws IllegalArgumentException if the value is negative
+         */
+        public static int compute(int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value: " + value);
+            }
+            return value * 2;
+        }
+    }
+
+    /**
+     * Class loader defining the probed class
+     */
+    private static class ProbedClassLoader extends ClassLoader {
+        /**
+         * Constructor for creating a {@link ProbedClassLoader} object.
+         *
+         * @param parent the parent class loader
+         */
+        ProbedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        /**
+         * Defines the class from its bytecode.
+         *
+         * @param name     the name of the class
+         * @param bytecode the bytecode of the class
+         * @return the defined class
+         */
+        Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
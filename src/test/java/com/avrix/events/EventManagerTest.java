@@ -1,12 +1,24 @@
 package com.avrix.events;
 
 import com.avrix.enums.Priority;
+import com.avrix.plugin.PluginClassLoader;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,6 +89,26 @@ public class EventManagerTest {
         assertTrue(EventManager.getAllListeners().isEmpty());
     }
 
+    /**
+     * Tests that the listeners of a plugin are removed in bulk and the listeners of other plugins are kept.
+     *
+     * @throws IOException if the class loader of the test plugin cannot be closed
+     */
+    @Test
+    public void testRemoveListeners() throws IOException {
+        URL location = TestEventImpl.class.getProtectionDomain().getCodeSource().getLocation();
+
+        try (PluginClassLoader ignored = new PluginClassLoader("test-plugin", new URL[]{location}, getClass().getClassLoader())) {
+            EventManager.addListener(new TestEventImpl());
+
+            assertEquals(0, EventManager.removeListeners("other-plugin"));
+            assertTrue(EventManager.hasListeners("OnTestEvent"));
+
+            assertEquals(1, EventManager.removeListeners("test-plugin"));
+            assertFalse(EventManager.hasListeners("OnTestEvent"));
+        }
+    }
+
     /**
      * Tests event invocation using the {@link EventManager#invokeEvent(String, Object...)} method.
      */
@@ -161,4 +193,525 @@ public class EventManagerTest {
         assertEquals(exceptionTextFirst, lines[1].trim());
         assertEquals(exceptionTextSecond, lines[2].trim());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests event invocation on a listener declared as an anonymous class.
+     */
+    @Test
+    public void testAnonymousListener() {
+        EventManager.addListener(new TestEvent() {
+            @Override
+            public void handleEvent(String testString, Integer testInteger) {
+                System.out.printf("[#] Anonymous test event! String: %s, Integer: %s%n", testString, testInteger);
+            }
+
+            @Override
+            public void handleEvent() {
+                System.out.println("[#] Anonymous test event!");
+            }
+        });
+
+        EventManager.invokeEvent("OnTestEvent");
+        EventManager.invokeEvent("OnTestEvent", "Example text", 1337);
+
+        String[] lines = outContent.toString().split("\\r?\\n");
+
+        assertEquals("[#] Anonymous test event!", lines[0].trim());
+        assertEquals("[#] Anonymous test event! String: Example text, Integer: 1337", lines[1].trim());
+    }
+
+    /**
+     * Tests that listeners are kept sorted by priority and, within the same priority, by registration order.
+     */
+    @Test
+    public void testListenersOrder() {
+        TestEventImpl first = new TestEventImpl();
+        TestEventImpl second = new TestEventImpl();
+        TestEventHighPriorityImpl highest = new TestEventHighPriorityImpl();
+
+        EventManager.addListener(first);
+        EventManager.addListener(second);
+        EventManager.addListener(highest, Priority.HIGHEST);
+
+        List<EventManager.EventListener> listeners = EventManager.getListenersForEvent("OnTestEvent");
+
+        assertEquals(3, listeners.size());
+        assertSame(highest, listeners.get(0).handler());
+        assertSame(first, listeners.get(1).handler());
+        assertSame(second, listeners.get(2).handler());
+        assertThrows(UnsupportedOperationException.class, () -> listeners.remove(0));
+    }
+
+    /**
+     * Tests the {@link EventManager#hasListeners(String)} method.
+     */
+    @Test
+    public void testHasListeners() {
+        assertFalse(EventManager.hasListeners("OnTestEvent"));
+        assertFalse(EventManager.hasListeners(null));
+
+        EventManager.addListener(new TestEventImpl());
+
+        assertTrue(EventManager.hasListeners("OnTestEvent"));
+        assertFalse(EventManager.hasListeners("OnTestEventException"));
+
+        EventManager.clearListenersForEvent("OnTestEvent");
+
+        assertFalse(EventManager.hasListeners("OnTestEvent"));
+    }
+
+    /**
+     * Tests that event names are interned case-insensitively and events can be raised by identifier.
+     */
+    @Test
+    public void testEventIds() {
+        int eventId = EventRegistry.getId("OnTestEvent");
+
+        assertEquals(eventId, EventRegistry.getId("onTestEvent"));
+        assertEquals(eventId, EventRegistry.getId("ONTESTEVENT"));
+        assertNotEquals(eventId, EventRegistry.getId("OnTestEventException"));
+        assertEquals("OnTestEvent", EventRegistry.getName(eventId));
+
+        TestEventImpl listener = new TestEventImpl();
+        EventManager.addListener(listener);
+
+        assertEquals(eventId, listener.getEventId());
+        assertTrue(EventManager.hasListeners(eventId));
+
+        EventManager.invokeEvent(eventId);
+        EventManager.invokeEvent("onTestEvent", "Example text", 1337);
+
+        String[] lines = outContent.toString().split("\\r?\\n");
+
+        assertEquals("[#] Test event!", lines[0].trim());
+        assertEquals("[#] Test event! String: Example text, Integer: 1337", lines[1].trim());
+    }
+
+    /**
+     * Tests that {@link AsyncListener} listeners are called off the raising thread, in order of their ordering key.
+     *
+     * @throws InterruptedException if the waiting for the calls is interrupted
+     */
+    @Test
+    public void testAsyncListener() throws InterruptedException {
+        TestAsyncEventImpl listener = new TestAsyncEventImpl(100);
+        EventManager.addListener(listener);
+
+        for (int i = 0; i < 50; i++) {
+            EventManager.invokeEvent("OnTestEvent", "first", i);
+            EventManager.invokeEvent("OnTestEvent", "second", i);
+        }
+
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, AsyncEventExecutor.getDroppedCalls());
+
+        List<String> first = listener.calls.stream().filter(call -> call.startsWith("first:")).toList();
+        List<String> second = listener.calls.stream().filter(call -> call.startsWith("second:")).toList();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("first:" + i, first.get(i));
+            assertEquals("second:" + i, second.get(i));
+        }
+
+        assertFalse(listener.threads.contains(Thread.currentThread()));
+    }
+
+    /**
+     * Tests that the arguments passed to asynchronous listeners are detached from the originals.
+     */
+    @Test
+    public void testAsyncSnapshot() {
+        ByteBuffer buffer = ByteBuffer.allocate(8).putInt(1337).putInt(42).flip();
+        buffer.getInt();
+
+        Object[] args = new Object[]{buffer, "text"};
+        Object[] snapshot = AsyncEventExecutor.snapshot(args);
+
+        assertNotSame(args, snapshot);
+        assertSame(args[1], snapshot[1]);
+
+        ByteBuffer copy = (ByteBuffer) snapshot[0];
+        buffer.putInt(4, 0);
+
+        assertEquals(4, copy.remaining());
+        assertEquals(42, copy.getInt());
+    }
+
+    /**
+     * Tests that dispatch metrics are recorded per event and per listener.
+     */
+    @Test
+    public void testMetrics() {
+        TestEventImpl listener = new TestEventImpl();
+        EventManager.addListener(listener);
+
+        EventStats eventStats = EventMetrics.getEventStats(listener.getEventId());
+        long eventCalls = eventStats.getCount();
+
+        for (int i = 0; i < 10; i++) {
+            EventManager.invokeEvent("OnTestEvent");
+        }
+
+        EventStats listenerStats = EventManager.getListenersForEvent("OnTestEvent").get(0).stats();
+
+        assertEquals(10, listenerStats.getCount());
+        assertEquals(eventCalls + 10, eventStats.getCount());
+        assertTrue(listenerStats.getTotalNanos() > 0);
+        assertTrue(listenerStats.getPercentileNanos(99) > 0);
+        assertTrue(EventMetrics.getReport(10).contains(TestEventImpl.class.getName()));
+    }
+
+    /**
+     * Tests that the watchdog samples a listener that keeps exceeding the event budget and leaves exempt listeners alone.
+     */
+    @Test
+    public void testWatchdog() {
+        int[] slowCalls = new int[1];
+        int[] exemptCalls = new int[1];
+        String[] throttled = new String[1];
+
+        EventManager.addListener(new TestEvent() {
+            @Override
+            public void handleEvent(String testString, Integer testInteger) {
+            }
+
+            @Override
+            public void handleEvent() {
+                slowCalls[0]++;
+                sleep();
+            }
+        });
+        EventManager.addListener(new TestEvent() {
+            @Override
+            public void handleEvent(String testString, Integer testInteger) {
+            }
+
+            @Override
+            public void handleEvent() {
+                exemptCalls[0]++;
+                sleep();
+            }
+        }, Priority.HIGHEST);
+        EventManager.addListener(new OnListenerThrottledEvent() {
+            @Override
+            public void handleEvent(String eventName, String pluginId, String listenerClass, String action) {
+                throttled[0] = eventName + ":" + action;
+            }
+        });
+
+        EventWatchdog.setBudget("OnTestEvent", 100);
+        try {
+            for (int i = 0; i < 30; i++) {
+                EventManager.invokeEvent("OnTestEvent");
+            }
+        } finally {
+            EventWatchdog.setBudget("OnTestEvent", 0);
+        }
+
+        assertEquals(12, slowCalls[0]);
+        assertEquals(30, exemptCalls[0]);
+        assertEquals("OnTestEvent:SAMPLE", throttled[0]);
+        assertTrue(EventWatchdog.getReport().contains("SAMPLE"));
+
+        EventWatchdog.restore();
+        EventManager.invokeEvent("OnTestEvent");
+
+        assertEquals(13, slowCalls[0]);
+    }
+
+    /**
+     * Tests that the watchdog does not account the calls of asynchronous listeners, which it cannot throttle.
+     *
+     * @throws InterruptedException if the waiting for the calls is interrupted
+     */
+    @Test
+    public void testWatchdogSkipsAsyncListeners() throws InterruptedException {
+        SlowAsyncEventImpl listener = new SlowAsyncEventImpl(30);
+        String[] throttled = new String[1];
+
+        EventManager.addListener(listener);
+        EventManager.addListener(new OnListenerThrottledEvent() {
+            @Override
+            public void handleEvent(String eventName, String pluginId, String listenerClass, String action) {
+                throttled[0] = eventName + ":" + action;
+            }
+        });
+
+        EventWatchdog.setBudget("OnTestEvent", 100);
+        try {
+            for (int i = 0; i < 30; i++) {
+                EventManager.invokeEvent("OnTestEvent");
+            }
+            assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            EventWatchdog.setBudget("OnTestEvent", 0);
+        }
+
+        assertNull(throttled[0]);
+        assertNull(EventManager.getListenersForEvent("OnTestEvent").get(0).watchdog().getAction());
+    }
+
+    /**
+     * Tests that a primitive-specialized event reaches both primitive and boxed listeners.
+     */
+    @Test
+    public void testPrimitiveEvent() {
+        double[] primitiveTicks = new double[1];
+        Double[] boxedTicks = new Double[1];
+
+        EventManager.addListener(new OnTickPrimitiveEvent() {
+            @Override
+            public void handleEvent(double numberTicks) {
+                primitiveTicks[0] += numberTicks;
+            }
+        });
+        EventManager.addListener(new OnTickEvent() {
+            @Override
+            public void handleEvent(Double numberTicks) {
+                boxedTicks[0] = numberTicks;
+            }
+        });
+
+        OnTickPrimitiveEvent.raise(2.0);
+
+        assertEquals(2.0, primitiveTicks[0]);
+        assertEquals(2.0, boxedTicks[0]);
+
+        EventManager.invokeEvent("OnTick", 3.0);
+
+        assertEquals(5.0, primitiveTicks[0]);
+        assertEquals(3.0, boxedTicks[0]);
+        assertEquals(2, EventManager.getListenersForEvent("OnTick").get(0).stats().getCount());
+
+        // The boxed route passes the original object to the listeners that take it boxed
+        Double luaTicks = 4.0;
+        OnTickPrimitiveEvent.raiseBoxed(luaTicks);
+
+        assertEquals(9.0, primitiveTicks[0]);
+        assertSame(luaTicks, boxedTicks[0]);
+    }
+
+    /**
+     * Tests that a batched listener receives all entities collected during a tick in one call.
+     */
+    @Test
+    public void testBatchEvent() {
+        List<List<String>> batches = new ArrayList<>();
+
+        EventManager.addListener(new BatchEvent<String>() {
+            @Override
+            public String getEventName() {
+                return "OnTestEventBatch";
+            }
+
+            @Override
+            public String getSourceEventName() {
+                return "OnTestEvent";
+            }
+
+            @Override
+            public void handleEvent(List<String> batch) {
+                batches.add(List.copyOf(batch));
+            }
+        });
+
+        EventManager.invokeEvent("OnTestEvent", "first");
+        EventManager.invokeEvent("OnTestEvent", "second");
+        EventManager.invokeEvent("OnTestEvent", "third");
+
+        assertTrue(batches.isEmpty());
+
+        OnTickPrimitiveEvent.raise(1.0);
+        OnTickPrimitiveEvent.raise(1.0);
+
+        assertEquals(List.of(List.of("first", "second", "third")), batches);
+
+        EventManager.invokeEvent("OnTestEvent", "fourth");
+        EventBatcher.flush();
+
+        assertEquals(List.of("fourth"), batches.get(1));
+    }
+
+    /**
+     * Tests that the collector and the flush listener are detached when the batched event loses its last listener,
+     * and attached again with the next one.
+     */
+    @Test
+    public void testBatchEventDetach() {
+        List<List<String>> batches = new ArrayList<>();
+        BatchEvent<String> listener = new BatchEvent<>() {
+            @Override
+            public String getEventName() {
+                return "OnTestEventBatch";
+            }
+
+            @Override
+            public String getSourceEventName() {
+                return "OnTestEvent";
+            }
+
+            @Override
+            public void handleEvent(List<String> batch) {
+                batches.add(List.copyOf(batch));
+            }
+        };
+
+        EventManager.addListener(listener);
+        EventManager.invokeEvent("OnTestEvent", "dropped");
+        assertTrue(EventManager.hasListeners("OnTestEvent"));
+        assertTrue(EventManager.hasListeners("OnTick"));
+
+        EventManager.clearListenersForEvent("OnTestEventBatch");
+        assertFalse(EventManager.hasListeners("OnTestEvent"));
+        assertFalse(EventManager.hasListeners("OnTick"));
+
+        EventManager.addListener(listener);
+        EventManager.invokeEvent("OnTestEvent", "collected");
+        OnTickPrimitiveEvent.raise(1.0);
+
+        assertEquals(List.of(List.of("collected")), batches);
+    }
+
+    /**
+     * Tests that the internal listeners of the {@link EventBatcher} are not throttled by the watchdog,
+     * even though a slow batch listener runs inside the flush.
+     */
+    @Test
+    public void testBatchEventWatchdog() {
+        int[] delivered = new int[1];
+        String[] throttled = new String[1];
+
+        EventManager.addListener(new BatchEvent<String>() {
+            @Override
+            public String getEventName() {
+                return "OnTestEventBatch";
+            }
+
+            @Override
+            public String getSourceEventName() {
+                return "OnTestEvent";
+            }
+
+            @Override
+            public void handleEvent(List<String> batch) {
+                delivered[0] += batch.size();
+                sleep();
+            }
+        });
+        EventManager.addListener(new OnListenerThrottledEvent() {
+            @Override
+            public void handleEvent(String eventName, String pluginId, String listenerClass, String action) {
+                throttled[0] = eventName + ":" + action;
+            }
+        });
+
+        EventWatchdog.setBudget("OnTick", 100);
+        try {
+            for (int i = 0; i < 30; i++) {
+                EventManager.invokeEvent("OnTestEvent", "entity");
+                OnTickPrimitiveEvent.raise(1.0);
+            }
+        } finally {
+            EventWatchdog.setBudget("OnTick", 0);
+        }
+
+        assertEquals(30, delivered[0]);
+        assertNull(throttled[0]);
+    }
+
+    /**
+     * Tests that a hook call site does nothing without listeners and is relinked when listeners are added and cleared.
+     *
+     * @throws Throwable if the call site cannot be invoked
+     */
+    @Test
+    public void testHookCallSite() throws Throwable {
+        int eventId = EventRegistry.getId("OnTestEvent");
+        MethodHandle hook = EventHooks.bootstrap(MethodHandles.lookup(), EventHooks.HOOK_METHOD_NAME,
+                MethodType.methodType(void.class, Object.class, Object.class), eventId).dynamicInvoker();
+
+        hook.invoke("first", 1);
+        assertEquals("", outContent.toString());
+
+        EventManager.addListener(new TestEventImpl());
+        hook.invoke("second", 2);
+        assertTrue(outContent.toString().contains("String: second, Integer: 2"));
+
+        EventManager.clearAllListeners();
+        outContent.reset();
+        hook.invoke("third", 3);
+        assertEquals("", outContent.toString());
+    }
+
+    /**
+     * Tests that the call sites of a hook are held weakly, so sites that are no longer reachable are dropped.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the garbage collector
+     */
+    @Test
+    public void testHookCallSitePruned() throws InterruptedException {
+        int eventId = EventRegistry.getId("OnHookPruneTest");
+        MethodType type = MethodType.methodType(void.class, Object.class);
+
+        CallSite liveCallSite = EventHooks.bootstrap(MethodHandles.lookup(), EventHooks.HOOK_METHOD_NAME, type, eventId);
+        EventHooks.bootstrap(MethodHandles.lookup(), EventHooks.HOOK_METHOD_NAME, type, eventId);
+
+        for (int i = 0; i < 20 && EventHooks.getCallSiteCount(eventId) > 1; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        assertEquals(1, EventHooks.getCallSiteCount(eventId));
+        assertNotNull(liveCallSite.getTarget());
+    }
+
+    /**
+     * Sleeps long enough to exceed the test budget.
+     */
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asynchronous listener exceeding the test budget
+     */
+    @AsyncListener
+    public static class SlowAsyncEventImpl extends TestEvent {
+        /**
+         * Latch released after each call
+         */
+        public final CountDownLatch latch;
+
+        /**
+         * Creates a listener that expects the specified number of calls.
+         *
+         * @param expectedCalls number of expected calls
+         */
+        public SlowAsyncEventImpl(int expectedCalls) {
+            this.latch = new CountDownLatch(expectedCalls);
+        }
+
+        /**
+         * Called Event Handling Method
+         *
+         * @param testString  Test argument
+         * @param testInteger Test argument
+         */
+        @Override
+        public void handleEvent(String testString, Integer testInteger) {
+        }
+
+        /**
+         * Called Event Handling Method
+         */
+        @Override
+        public void handleEvent() {
+            sleep();
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.avrix.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Implementing an asynchronous test event, ordered by the string argument
+ */
+@AsyncListener(orderingArgument = 0)
+public class TestAsyncEventImpl extends TestEvent {
+    /**
+     * Received calls in the form 'string:integer'
+     */
+    public final List<String> calls = new CopyOnWriteArrayList<>();
+
+    /**
+     * Threads on which the calls were executed
+     */
+    public final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    /**
+     * Latch released after each call
+     */
+    public final CountDownLatch latch;
+
+    /**
+     * Creates a listener that expects the specified number of calls.
+     *
+     * @param expectedCalls number of expected calls
+     */
+    public TestAsyncEventImpl(int expectedCalls) {
+        this.latch = new CountDownLatch(expectedCalls);
+    }
+
+    /**
+     * Called Event Handling Method
+     *
+     * @param testString  Test argument
+     * @param testInteger Test argument
+     */
+    @Override
+    public void handleEvent(String testString, Integer testInteger) {
+        calls.add(testString + ":" + testInteger);
+        threads.add(Thread.currentThread());
+        latch.countDown();
+    }
+
+    /**
+     * Called Event Handling Method
+     */
+    @Override
+    public void handleEvent() {
+        handleEvent(null, null);
+    }
+}
@@ -0,0 +1,133 @@
+package com.avrix.plugin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MetadataIndex} class.
+ */
+public class MetadataIndexTest {
+    @TempDir
+    Path tempDir; // Folder of the index and the plugin jars
+
+    /**
+     * Tests that the metadata of a jar is taken from a saved index only while the jar is unchanged.
+     *
+     * @throws IOException if the test files cannot be written
+     */
+    @Test
+    public void testUnchangedJar() throws IOException {
+        Path indexPath = tempDir.resolve("plugins.json");
+        File jarFile = tempDir.resolve("plugin.jar").toFile();
+        Files.write(jarFile.toPath(), new byte[]{1, 2, 3});
+
+        MetadataIndex index = MetadataIndex.load(indexPath);
+        assertNull(index.get(jarFile));
+        index.put(jarFile, createMetadata("P1", Map.of("P2", ">=1.0.0")));
+        index.save();
+
+        Metadata metadata = MetadataIndex.load(indexPath).get(jarFile);
+        assertNotNull(metadata);
+        assertEquals("P1", metadata.getId());
+        assertEquals(List.of("com.example.Main"), metadata.getEntryPoints());
+        assertEquals(Map.of("P2", ">=1.0.0"), metadata.getDependencies());
+        assertEquals(jarFile, metadata.getPluginFile());
+
+        // The same content with another modification time is still taken from the index
+        assertTrue(jarFile.setLastModified(jarFile.lastModified() - 10_000));
+        assertNotNull(MetadataIndex.load(indexPath).get(jarFile));
+
+        // Changed content of the same size is read again
+        Files.write(jarFile.toPath(), new byte[]{3, 2, 1});
+        MetadataIndex changedIndex = MetadataIndex.load(indexPath);
+        assertNull(changedIndex.get(jarFile));
+        assertEquals(1, changedIndex.getMisses());
+    }
+
+    /**
+     * Tests that a jar hashed by {@link MetadataIndex#prepare(File)} while it was read is recorded with the same hash,
+     * so it is still taken from the index with another modification time.
+     *
+     * @throws IOException if the test files cannot be written
+     */
+    @Test
+    public void testPreparedHash() throws IOException {
+        Path indexPath = tempDir.resolve("plugins.json");
+        File jarFile = tempDir.resolve("plugin.jar").toFile();
+        Files.write(jarFile.toPath(), new byte[]{1, 2, 3});
+
+        MetadataIndex index = MetadataIndex.load(indexPath);
+        index.prepare(jarFile);
+        index.put(jarFile, createMetadata("P1", Map.of()));
+        index.save();
+
+        assertTrue(jarFile.setLastModified(jarFile.lastModified() - 10_000));
+        assertNotNull(MetadataIndex.load(indexPath).get(jarFile));
+
+        Files.write(jarFile.toPath(), new byte[]{3, 2, 1});
+        assertNull(MetadataIndex.load(indexPath).get(jarFile));
+    }
+
+    /**
+     * Tests that the recorded sort order is reused only for the same plugins and dependencies.
+     */
+    @Test
+    public void testSortOrder() {
+        Path indexPath = tempDir.resolve("plugins.json");
+
+        List<Metadata> metadataList = new ArrayList<>();
+        metadataList.add(createMetadata("P1", Map.of("P2", "1.0.0")));
+        metadataList.add(createMetadata("P2", Map.of()));
+
+        MetadataIndex index = MetadataIndex.load(indexPath);
+        assertEquals(List.of("P2", "P1"), getIds(index.sortMetadata(metadataList)));
+        index.save();
+
+        assertEquals(List.of("P2", "P1"), getIds(MetadataIndex.load(indexPath).sortMetadata(metadataList)));
+
+        List<Metadata> changedList = new ArrayList<>();
+        changedList.add(createMetadata("P1", Map.of()));
+        changedList.add(createMetadata("P2", Map.of("P1", "1.0.0")));
+        assertEquals(List.of("P1", "P2"), getIds(MetadataIndex.load(indexPath).sortMetadata(changedList)));
+    }
+
+    /**
+     * Creates the metadata of a test plugin.
+     *
+     * @param id           the identifier of the plugin
+     * @param dependencies the dependencies of the plugin
+     * @return the metadata of the plugin
+     */
+    private static Metadata createMetadata(String id, Map<String, String> dependencies) {
+        return new Metadata.MetadataBuilder()
+                .id(id)
+                .name("Plugin " + id)
+                .version("1.0.0")
+                .author("Author")
+                .license("MIT")
+                .environment("both")
+                .entryPointsList(List.of("com.example.Main"))
+                .dependencies(dependencies)
+                .build();
+    }
+
+    /**
+     * Getting the identifiers of the plugins.
+     *
+     * @param metadataList the plugins
+     * @return the identifiers in the order of the plugins
+     */
+    private static List<String> getIds(List<Metadata> metadataList) {
+        return metadataList.stream().map(Metadata::getId).toList();
+    }
+}
@@ -5,13 +5,20 @@ import com.avrix.utils.YamlFile;
 import com.avrix.utils.YamlFileTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +28,9 @@ import static org.junit.jupiter.api.Assertions.*;
 public class MetadataTest {
     private List<Metadata> metadataList;
 
+    @TempDir
+    Path tempDir; // Folder of the plugin jars
+
     /**
      * Sets up the test environment by initializing a list of Metadata objects with dependencies.
      */
@@ -152,6 +162,82 @@ public class MetadataTest {
         });
     }
 
+    /**
+     * Tests that a plugin that is not reloadable cannot depend on a reloadable plugin.
+     */
+    @Test
+    public void testCheckReloadableDependencies() {
+        Metadata library = createPlugin("Library", true, Map.of());
+        Metadata reloadableDependent = createPlugin("ReloadableDependent", true, Map.of("Library", "1.0.0"));
+        Metadata fixedDependent = createPlugin("FixedDependent", false, Map.of("Library", "1.0.0"));
+
+        assertDoesNotThrow(() -> Metadata.checkReloadableDependencies(List.of(library, reloadableDependent)));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> Metadata.checkReloadableDependencies(List.of(library, reloadableDependent, fixedDependent)));
+        assertTrue(exception.getMessage().contains("'FixedDependent'"));
+    }
+
+    /**
+     * Creates the metadata of a test plugin.
+     *
+     * @param id           the identifier of the plugin
+     * @param reloadable   whether the plugin is reloadable
+     * @param dependencies the dependencies of the plugin
+     * @return the metadata of the plugin
+     */
+    private static Metadata createPlugin(String id, boolean reloadable, Map<String, String> dependencies) {
+        return new Metadata.MetadataBuilder()
+                .id(id)
+                .name("Plugin " + id)
+                .version("1.0.0")
+                .author("Author")
+                .license("MIT")
+                .environment("both")
+                .entryPointsList(new ArrayList<>())
+                .dependencies(dependencies)
+                .reloadable(reloadable)
+                .build();
+    }
+
+    /**
+     * Tests that metadata read concurrently from several jars keeps the order of the jars,
+     * with {@code null} for the jars without metadata, and that only the jars with metadata are passed to the callback.
+     *
+     * @throws IOException if the test jars cannot be written
+     */
+    @Test
+    public void testCreateFromJars() throws IOException {
+        List<File> jarFiles = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Path jarPath = tempDir.resolve("plugin" + i + ".jar");
+            try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jarPath))) {
+                // Every third jar has no metadata
+                output.putNextEntry(new JarEntry(i % 3 == 2 ? "other.yml" : "plugin.yml"));
+                output.write(("name: Plugin P" + i + "\nid: P" + i + "\nauthor: Author\nversion: 1.0.0\nlicense: MIT\n" +
+                        "environment: both\nentrypoints:\n  - com.example.Main\n").getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+            jarFiles.add(jarPath.toFile());
+        }
+
+        Set<File> readFiles = ConcurrentHashMap.newKeySet();
+        List<Metadata> result = Metadata.createFromJars(jarFiles, "plugin.yml", 4, readFiles::add);
+
+        assertEquals(jarFiles.size(), result.size());
+        for (int i = 0; i < jarFiles.size(); i++) {
+            if (i % 3 == 2) {
+                assertNull(result.get(i));
+                assertFalse(readFiles.contains(jarFiles.get(i)));
+            } else {
+                assertEquals("P" + i, result.get(i).getId());
+                assertEquals(jarFiles.get(i), result.get(i).getPluginFile());
+                assertTrue(readFiles.contains(jarFiles.get(i)));
+            }
+        }
+        assertEquals(8, readFiles.size());
+    }
+
     /**
      * Test of creating metadata from a YAML file
      */
@@ -0,0 +1,230 @@
+package com.avrix.plugin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for the {@link PluginClassLoader} class.
+ */
+public class PluginClassLoaderTest {
+    @TempDir
+    Path tempDir; // Folder of the plugin jars
+
+    /**
+     * Tests that a class is resolved from the plugin whose Jar contains its package, and that missing classes are not found.
+     *
+     * @throws Exception if the test jars cannot be created
+     */
+    @Test
+    public void testIndexedLookup() throws Exception {
+        try (PluginClassLoader loader = createLoader("index-test-plugin", FirstSample.class);
+             PluginClassLoader otherLoader = createLoader("index-test-other", OtherSample.class)) {
+            Class<?> sampleClass = PluginClassLoader.getClassByName(FirstSample.class.getName());
+
+            assertNotNull(sampleClass);
+            assertSame(loader, sampleClass.getClassLoader());
+            assertEquals("index-test-plugin", PluginClassLoader.getPluginId(sampleClass));
+            assertSame(sampleClass, otherLoader.findClass(FirstSample.class.getName()));
+
+            String missingName = FirstSample.class.getPackageName() + ".MissingClass";
+            assertNull(PluginClassLoader.getClassByName(missingName));
+            assertNull(PluginClassLoader.getClassByName(missingName));
+            assertThrows(ClassNotFoundException.class, () -> otherLoader.findClass(missingName));
+        }
+    }
+
+    /**
+     * Tests that the classes of a closed loader are no longer resolved.
+     *
+     * @throws Exception if the test jar cannot be created
+     */
+    @Test
+    public void testClose() throws Exception {
+        PluginClassLoader loader = createLoader("close-test-plugin", ClosedSample.class);
+        Class<?> sampleClass = PluginClassLoader.getClassByName(ClosedSample.class.getName());
+        assertSame(loader, sampleClass.getClassLoader());
+
+        loader.close();
+
+        assertNull(PluginClassLoader.getClassByName(ClosedSample.class.getName()));
+    }
+
+    /**
+     * Tests that a class loaded from the plugin Jar by another class loader, like the system one, is attributed to the plugin
+     * even if the plugin was loaded through a symbolic link to the Jar.
+     *
+     * @throws Exception if the test jar or the link cannot be created
+     */
+    @Test
+    public void testPluginIdByCanonicalLocation() throws Exception {
+        Path jarPath = writeJar("location-test-plugin", LocationSample.class);
+        Path linkPath = tempDir.resolve("link");
+        try {
+            Files.createSymbolicLink(linkPath, tempDir);
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "Symbolic links are not supported: " + e.getMessage());
+        }
+
+        URL linkedUrl = linkPath.resolve(jarPath.getFileName()).toUri().toURL();
+        try (PluginClassLoader loader = new PluginClassLoader("location-test-plugin", new URL[]{linkedUrl}, ClassLoader.getSystemClassLoader());
+             URLClassLoader otherLoader = new URLClassLoader(new URL[]{jarPath.toRealPath().toUri().toURL()}, null)) {
+            Class<?> sampleClass = otherLoader.loadClass(LocationSample.class.getName());
+
+            assertNotSame(loader, sampleClass.getClassLoader());
+            assertEquals("location-test-plugin", PluginClassLoader.getPluginId(sampleClass));
+        }
+    }
+
+    /**
+     * Tests that a class requested by several threads at the same time is defined once.
+     *
+     * @throws Exception if the test jar cannot be created or a thread fails
+     */
+    @Test
+    public void testConcurrentLookup() throws Exception {
+        try (PluginClassLoader loader = createLoader("concurrent-test-plugin", SecondSample.class)) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Class<?>>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> PluginClassLoader.getClassByName(SecondSample.class.getName())));
+                }
+
+                Class<?> sampleClass = futures.get(0).get();
+                assertSame(loader, sampleClass.getClassLoader());
+                for (Future<Class<?>> future : futures) {
+                    assertSame(sampleClass, future.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Tests that a class looked up while its plugin loader is being created is found once the loader exists,
+     * and that the remembered names of missing classes are bounded.
+     *
+     * @throws Exception if the test jar cannot be created or the lookup thread fails
+     */
+    @Test
+    public void testMissingClasses() throws Exception {
+        String name = MissingSample.class.getName();
+        assertNull(PluginClassLoader.getClassByName(name));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean created = new AtomicBoolean();
+        try {
+            Future<?> lookups = executor.submit(() -> {
+                while (!created.get()) {
+                    PluginClassLoader.getClassByName(name);
+                }
+            });
+
+            try (PluginClassLoader loader = createLoader("missing-test-plugin", MissingSample.class)) {
+                created.set(true);
+                lookups.get();
+
+                Class<?> sampleClass = PluginClassLoader.getClassByName(name);
+                assertNotNull(sampleClass);
+                assertSame(loader, sampleClass.getClassLoader());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < PluginClassLoader.MISSING_CLASSES_LIMIT + 10; i++) {
+            assertNull(PluginClassLoader.getClassByName(MissingSample.class.getPackageName() + ".Missing" + i));
+        }
+        assertTrue(PluginClassLoader.getMissingClassCount() <= PluginClassLoader.MISSING_CLASSES_LIMIT);
+    }
+
+    /**
+     * Creates a plugin class loader for a Jar containing a copy of the class.
+     *
+     * @param pluginId the identifier of the plugin
+     * @param clazz    the class copied into the Jar
+     * @return the class loader of the plugin
+     * @throws IOException if the jar cannot be written
+     */
+    private PluginClassLoader createLoader(String pluginId, Class<?> clazz) throws IOException {
+        Path jarPath = writeJar(pluginId, clazz);
+        return new PluginClassLoader(pluginId, new URL[]{jarPath.toUri().toURL()}, ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * Writes a plugin Jar containing a copy of the class.
+     *
+     * @param pluginId the identifier of the plugin
+     * @param clazz    the class copied into the Jar
+     * @return the path of the Jar
+     * @throws IOException if the jar cannot be written
+     */
+    private Path writeJar(String pluginId, Class<?> clazz) throws IOException {
+        Path jarPath = tempDir.resolve(pluginId + ".jar");
+        String entryName = clazz.getName().replace('.', '/') + ".class";
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jarPath));
+             InputStream input = clazz.getClassLoader().getResourceAsStream(entryName)) {
+            output.putNextEntry(new JarEntry(entryName));
+            input.transferTo(output);
+            output.closeEntry();
+        }
+
+        return jarPath;
+    }
+
+    /**
+     * Class copied into the first test plugin
+     */
+    public static class FirstSample {
+    }
+
+    /**
+     * Class copied into the second test plugin
+     */
+    public static class SecondSample {
+    }
+
+    /**
+     * Class copied into the plugin that is closed
+     */
+    public static class ClosedSample {
+    }
+
+    /**
+     * Class copied into the plugin loaded through a symbolic link
+     */
+    public static class LocationSample {
+    }
+
+    /**
+     * Class copied into the plugin that resolves classes of the first test plugin
+     */
+    public static class OtherSample {
+    }
+
+    /**
+     * Class copied into the plugin created while the class is being looked up
+     */
+    public static class MissingSample {
+    }
+}
@@ -0,0 +1,118 @@
+package com.avrix.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link PluginInitializer} class.
+ */
+public class PluginInitializerTest {
+    /**
+     * Tests that the plugins are split into levels after their dependencies.
+     */
+    @Test
+    public void testGetLevels() {
+        List<Metadata> sortedPlugins = List.of(
+                createMetadata("P1", Map.of("pz-core", "1.0.0")),
+                createMetadata("P2", Map.of()),
+                createMetadata("P3", Map.of("P1", "1.0.0")),
+                createMetadata("P4", Map.of("P2", "1.0.0", "P3", "1.0.0")));
+
+        List<List<Metadata>> levels = PluginInitializer.getLevels(sortedPlugins);
+
+        assertEquals(3, levels.size());
+        assertEquals(List.of("P1", "P2"), getIds(levels.get(0)));
+        assertEquals(List.of("P3"), getIds(levels.get(1)));
+        assertEquals(List.of("P4"), getIds(levels.get(2)));
+    }
+
+    /**
+     * Tests that every plugin is initialized after its dependencies have finished,
+     * and that the thread-safe plugins of a level are initialized at the same time.
+     */
+    @Test
+    public void testDependenciesFinishFirst() {
+        List<Metadata> sortedPlugins = List.of(
+                createMetadata("P1", Map.of()),
+                createMetadata("P2", Map.of()),
+                createMetadata("P3", Map.of("P1", "1.0.0")),
+                createMetadata("P4", Map.of("P2", "1.0.0", "P3", "1.0.0")));
+        Set<String> finished = ConcurrentHashMap.newKeySet();
+        CyclicBarrier firstLevel = new CyclicBarrier(2);
+
+        Map<String, Throwable> failures = PluginInitializer.initialize(sortedPlugins, 4, metadata -> {
+            for (String dependencyId : metadata.getDependencies().keySet()) {
+                assertTrue(finished.contains(dependencyId), metadata.getId() + " started before " + dependencyId);
+            }
+
+            // P1 and P2 can only pass the barrier if they are initialized concurrently
+            if (metadata.getDependencies().isEmpty()) {
+                firstLevel.await(5, TimeUnit.SECONDS);
+            }
+            Thread.sleep(20);
+            finished.add(metadata.getId());
+        });
+
+        assertTrue(failures.isEmpty(), "Failures: " + failures);
+        assertEquals(Set.of("P1", "P2", "P3", "P4"), finished);
+    }
+
+    /**
+     * Tests that a failure is attributed to its plugin and that its dependents are not initialized.
+     */
+    @Test
+    public void testFailureAttribution() {
+        List<Metadata> sortedPlugins = List.of(
+                createMetadata("P1", Map.of()),
+                createMetadata("P2", Map.of()),
+                createMetadata("P3", Map.of("P1", "1.0.0")),
+                createMetadata("P4", Map.of("P2", "1.0.0")));
+        Set<String> initialized = ConcurrentHashMap.newKeySet();
+
+        Map<String, Throwable> failures = PluginInitializer.initialize(sortedPlugins, 4, metadata -> {
+            if (metadata.getId().equals("P1")) throw new IllegalArgumentException("P1 failed");
+            initialized.add(metadata.getId());
+        });
+
+        assertEquals(List.of("P1", "P3"), new ArrayList<>(failures.keySet()));
+        assertEquals("P1 failed", failures.get("P1").getMessage());
+        assertEquals(Set.of("P2", "P4"), initialized);
+    }
+
+    /**
+     * Creates the metadata of a thread-safe test plugin.
+     *
+     * @param id           the identifier of the plugin
+     * @param dependencies the dependencies of the plugin
+     * @return the metadata of the plugin
+     */
+    private static Metadata createMetadata(String id, Map<String, String> dependencies) {
+        return new Metadata.MetadataBuilder()
+                .id(id)
+                .name("Plugin " + id)
+                .version("1.0.0")
+                .author("Author")
+                .license("MIT")
+                .environment("both")
+                .entryPointsList(List.of())
+                .dependencies(dependencies)
+                .threadSafe(true)
+                .build();
+    }
+
+    /**
+     * Getting the identifiers of the plugins.
+     *
+     * @param metadataList the plugins
+     * @return the identifiers in the order of the plugins
+     */
+    private static List<String> getIds(List<Metadata> metadataList) {
+        return metadataList.stream().map(Metadata::getId).toList();
+    }
+}
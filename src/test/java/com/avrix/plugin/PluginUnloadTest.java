@@ -0,0 +1,275 @@
+package com.avrix.plugin;
+
+import com.avrix.commands.*;
+import com.avrix.enums.AccessLevel;
+import com.avrix.enums.CommandScope;
+import com.avrix.events.Event;
+import com.avrix.events.EventManager;
+import com.avrix.events.TestEvent;
+import com.avrix.lua.LuaExposer;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.EnumMemberValue;
+import javassist.bytecode.annotation.MemberValue;
+import javassist.bytecode.annotation.StringMemberValue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for removing everything registered by a plugin and unloading its {@link PluginClassLoader}.
+ */
+public class PluginUnloadTest {
+    /**
+     * ID of the test plugin
+     */
+    private static final String PLUGIN_ID = "unload-test-plugin";
+
+    /**
+     * Name of the command generated into the test plugin
+     */
+    private static final String COMMAND_CLASS_NAME = "com.avrix.plugin.UnloadTestCommand";
+
+    @TempDir
+    Path tempDir; // Folder of the plugin jar
+
+    /**
+     * Tests that the listeners, commands, services and Lua exposures of a plugin are removed by its ID,
+     * and that its class loader can be garbage collected once it is closed.
+     *
+     * @throws Exception if the test jar cannot be created or the plugin classes cannot be instantiated
+     */
+    @Test
+    public void testUnloadPlugin() throws Exception {
+        WeakReference<ClassLoader> loaderReference = loadAndUnloadPlugin();
+
+        for (int i = 0; i < 20 && loaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        assertNull(loaderReference.get(), "The class loader of the unloaded plugin is still reachable");
+    }
+
+    /**
+     * Tests that the classes of an unloaded plugin cached by a class pool are evicted with its class path.
+     *
+     * @throws Exception if the test jar cannot be created or the class cannot be compiled
+     */
+    @Test
+    public void testEvictCachedClasses() throws Exception {
+        PluginClassLoader loader = createLoader(Map.of(COMMAND_CLASS_NAME, createCommandClass()));
+        ClassPool classPool = new ClassPool(true);
+        LoaderClassPath classPath = new LoaderClassPath(loader);
+        classPool.appendClassPath(classPath);
+
+        assertNotNull(classPool.get(COMMAND_CLASS_NAME));
+
+        classPool.removeClassPath(classPath);
+        assertNotNull(classPool.getOrNull(COMMAND_CLASS_NAME), "The class is expected to stay cached without the eviction");
+
+        assertEquals(1, PluginManager.evictCachedClasses(classPool, loader));
+        assertNull(classPool.getOrNull(COMMAND_CLASS_NAME));
+
+        loader.close();
+    }
+
+    /**
+     * Tests that the collection of an unloaded class loader is observed without the check requesting garbage collections.
+     *
+     * @throws Exception if the check does not complete
+     */
+    @Test
+    public void testCheckUnloaded() throws Exception {
+        CompletableFuture<Boolean> unloaded = PluginManager.checkUnloaded(PLUGIN_ID, new WeakReference<>(new ClassLoader() {
+        }));
+
+        for (int i = 0; i < 20 && !unloaded.isDone(); i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        assertTrue(unloaded.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Registers the classes of the test plugin, removes them by the plugin ID and closes its class loader.
+     * Kept apart from the test, so no local variable keeps the classes of the plugin reachable.
+     *
+     * @return a weak reference to the class loader of the plugin
+     * @throws Exception if the test jar cannot be created or the plugin classes cannot be instantiated
+     */
+    private WeakReference<ClassLoader> loadAndUnloadPlugin() throws Exception {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put(UnloadListener.class.getName(), readClass(UnloadListener.class));
+        classes.put(UnloadService.class.getName(), readClass(UnloadService.class));
+        classes.put(COMMAND_CLASS_NAME, createCommandClass());
+
+        PluginClassLoader loader = createLoader(classes);
+        Class<?> listenerClass = PluginClassLoader.getClassByName(UnloadListener.class.getName());
+        Class<?> serviceClass = PluginClassLoader.getClassByName(UnloadService.class.getName());
+        Class<?> commandClass = PluginClassLoader.getClassByName(COMMAND_CLASS_NAME);
+        assertSame(loader, listenerClass.getClassLoader());
+        assertSame(loader, serviceClass.getClassLoader());
+        assertSame(loader, commandClass.getClassLoader());
+
+        EventManager.addListener((Event) listenerClass.getConstructor().newInstance());
+        CommandsManager.addCommand((Command) commandClass.getConstructor().newInstance());
+        ServiceManager.register(Runnable.class, (Runnable) serviceClass.getConstructor().newInstance());
+        LuaExposer.addExposedClass(listenerClass);
+        LuaExposer.addExposedGlobalObject(ServiceManager.getService(Runnable.class));
+
+        // Invoking the listener caches its invoker, which must be evicted with the listener
+        EventManager.invokeEvent("OnTestEvent");
+
+        assertEquals(0, EventManager.removeListeners("other-plugin"));
+        assertEquals(1, EventManager.removeListeners(PLUGIN_ID));
+        assertEquals(1, CommandsManager.removeCommands(PLUGIN_ID));
+        assertEquals(1, ServiceManager.unregisterAll(PLUGIN_ID));
+        assertEquals(2, LuaExposer.removeAll(PLUGIN_ID));
+
+        assertFalse(EventManager.hasListeners("OnTestEvent"));
+        assertFalse(CommandsManager.getRegisteredCommands().containsKey("unloadtest"));
+        assertNull(ServiceManager.getService(Runnable.class));
+
+        loader.close();
+        assertNull(PluginClassLoader.getClassByName(UnloadListener.class.getName()));
+
+        return new WeakReference<>(loader);
+    }
+
+    /**
+     * Creates a plugin class loader for a Jar containing the classes.
+     *
+     * @param classes the bytes of the classes by their names
+     * @return the class loader of the plugin
+     * @throws IOException if the jar cannot be written
+     */
+    private PluginClassLoader createLoader(Map<String, byte[]> classes) throws IOException {
+        Path jarPath = tempDir.resolve(PLUGIN_ID + ".jar");
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jarPath))) {
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                output.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                output.write(entry.getValue());
+                output.closeEntry();
+            }
+        }
+
+        return new PluginClassLoader(PLUGIN_ID, new URL[]{jarPath.toUri().toURL()}, PluginUnloadTest.class.getClassLoader());
+    }
+
+    /**
+     * Reads the class file of the class.
+     *
+     * @param clazz the class
+     * @return the bytes of the class file
+     * @throws IOException if the class file cannot be read
+     */
+    private static byte[] readClass(Class<?> clazz) throws IOException {
+        try (InputStream input = clazz.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * Generates the command of the test plugin. The command is generated, because the signature of
+     * {@link Command#onInvoke} refers to game classes that are not available to the tests, it is never invoked.
+     *
+     * @return the bytes of the command class
+     * @throws Exception if the class cannot be generated
+     */
+    private static byte[] createCommandClass() throws Exception {
+        ClassPool pool = ClassPool.getDefault();
+        CtClass command = pool.makeClass(COMMAND_CLASS_NAME, pool.get(Command.class.getName()));
+        command.addConstructor(CtNewConstructor.defaultConstructor(command));
+
+        ConstPool constPool = command.getClassFile().getConstPool();
+        AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(createAnnotation(CommandName.class, new StringMemberValue("unloadtest", constPool), constPool));
+        attribute.addAnnotation(createAnnotation(CommandDescription.class, new StringMemberValue("Test command", constPool), constPool));
+
+        EnumMemberValue accessLevel = new EnumMemberValue(constPool);
+        accessLevel.setType(AccessLevel.class.getName());
+        accessLevel.setValue(AccessLevel.ADMIN.name());
+        attribute.addAnnotation(createAnnotation(CommandAccessLevel.class, accessLevel, constPool));
+
+        EnumMemberValue scope = new EnumMemberValue(constPool);
+        scope.setType(CommandScope.class.getName());
+        scope.setValue(CommandScope.BOTH.name());
+        attribute.addAnnotation(createAnnotation(CommandExecutionScope.class, scope, constPool));
+
+        command.getClassFile().addAttribute(attribute);
+
+        byte[] bytecode = command.toBytecode();
+        command.detach();
+        return bytecode;
+    }
+
+    /**
+     * Creates an annotation with a single value.
+     *
+     * @param annotationClass the class of the annotation
+     * @param value           the value of the annotation
+     * @param constPool       the constant pool of the annotated class
+     * @return the annotation
+     */
+    private static Annotation createAnnotation(Class<?> annotationClass, MemberValue value, ConstPool constPool) {
+        Annotation annotation = new Annotation(annotationClass.getName(), constPool);
+        annotation.addMemberValue("value", value);
+        return annotation;
+    }
+
+    /**
+     * Listener copied into the test plugin
+     */
+    public static class UnloadListener extends TestEvent {
+        /**
+         * Called Event Handling Method
+         *
+         * @param testString  Test argument
+         * @param testInteger Test argument
+         */
+        @Override
+        public void handleEvent(String testString, Integer testInteger) {
+        }
+
+        /**
+         * Called Event Handling Method
+         */
+        @Override
+        public void handleEvent() {
+        }
+    }
+
+    /**
+     * Service copied into the test plugin
+     */
+    public static class UnloadService implements Runnable {
+        /**
+         * Runs the service
+         */
+        @Override
+        public void run() {
+        }
+    }
+}
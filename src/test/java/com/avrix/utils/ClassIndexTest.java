@@ -0,0 +1,37 @@
+package com.avrix.utils;
+
+import com.avrix.enums.IndexedClassType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link ClassIndex} class.
+ */
+public class ClassIndexTest {
+    /**
+     * Tests parsing of the index written by the class index processor.
+     *
+     * @throws IOException if the index cannot be read
+     */
+    @Test
+    public void testParse() throws IOException {
+        ClassIndex index = ClassIndex.parse(new StringReader("""
+                # Avrix class index, generated at build time
+                patch com.avrix.patches.PatchGameServer
+                patch com.avrix.patches.PatchZLogger
+                listener com.avrix.example.OnServerInitHandler
+                command com.avrix.example.TestCommand
+
+                unknown com.avrix.example.Main
+                """));
+
+        assertEquals(List.of("com.avrix.patches.PatchGameServer", "com.avrix.patches.PatchZLogger"), index.getClassNames(IndexedClassType.PATCH));
+        assertEquals(List.of("com.avrix.example.OnServerInitHandler"), index.getClassNames(IndexedClassType.LISTENER));
+        assertEquals(List.of("com.avrix.example.TestCommand"), index.getClassNames(IndexedClassType.COMMAND));
+    }
+}
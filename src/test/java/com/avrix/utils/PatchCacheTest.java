@@ -0,0 +1,88 @@
+package com.avrix.utils;
+
+import com.avrix.agent.ClassTransformer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link PatchCache} class.
+ */
+public class PatchCacheTest {
+    /**
+     * Tests that a stored class is loaded back only with the same key.
+     */
+    @Test
+    public void testStoreAndLoad() {
+        ClassTransformer patch = new TestPatch();
+        String key = PatchCache.getKey(patch);
+
+        assertNotNull(key);
+        assertEquals(key, PatchCache.getKey(patch));
+        assertNotEquals(key, PatchCache.getKey(new OtherTestPatch()));
+
+        byte[] bytecode = {1, 2, 3};
+        PatchCache.store(patch.getClassName(), key, bytecode);
+
+        assertArrayEquals(bytecode, PatchCache.load(patch.getClassName(), key));
+        assertNull(PatchCache.load(patch.getClassName(), key + "0"));
+        assertNull(PatchCache.load(patch.getClassName(), null));
+    }
+
+    /**
+     * Tests that the key of merged patches depends on the order of the patches.
+     */
+    @Test
+    public void testMergedPatchesKey() {
+        ClassTransformer first = new TestPatch();
+        ClassTransformer second = new OtherTestPatch();
+        byte[] classBytes = {4, 5, 6};
+
+        String key = PatchCache.getKey(List.of(first, second), classBytes);
+
+        assertNotNull(key);
+        assertNotEquals(key, PatchCache.getKey(List.of(second, first), classBytes));
+        assertNotEquals(key, PatchCache.getKey(List.of(first), classBytes));
+    }
+
+    /**
+     * Test patch of this class
+     */
+    public static class TestPatch extends ClassTransformer {
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         */
+        public TestPatch() {
+            super("com.avrix.utils.PatchCacheTest");
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+        }
+    }
+
+    /**
+     * Another test patch of this class
+     */
+    public static class OtherTestPatch extends ClassTransformer {
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         */
+        public OtherTestPatch() {
+            super("com.avrix.utils.PatchCacheTest");
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            getModifierBuilder();
+        }
+    }
+}
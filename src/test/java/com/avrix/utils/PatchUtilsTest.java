@@ -0,0 +1,403 @@
+package com.avrix.utils;
+
+import com.avrix.agent.AgentLoader;
+import com.avrix.agent.ClassTransformer;
+import javassist.CannotCompileException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link PatchUtils} class.
+ */
+public class PatchUtilsTest {
+    /**
+     * Tests that the patches of a plugin are removed by its ID and the patched class is reverted.
+     */
+    @Test
+    public void testRemovePatches() {
+        AgentLoader.loadAgent();
+        assertEquals(1, PatchTarget.getValue());
+
+        PatchUtils.queuePatches("patch-test-plugin", List.of(new TestPatch()));
+        PatchUtils.applyQueuedPatches();
+        assertEquals(2, PatchTarget.getValue());
+
+        assertEquals(0, PatchUtils.removePatches("other-plugin"));
+        assertEquals(2, PatchTarget.getValue());
+
+        assertEquals(1, PatchUtils.removePatches("patch-test-plugin"));
+        assertEquals(1, PatchTarget.getValue());
+        assertTrue(PatchUtils.getAppliedPatches().stream().noneMatch(patch -> PatchTarget.class.getName().equals(patch.className())));
+    }
+
+    /**
+     * Tests that the patches of a class are reverted and re-applied one by one and together, the class installed
+     * each time containing exactly the enabled patches.
+     */
+    @Test
+    public void testSetPatchesEnabled() {
+        AgentLoader.loadAgent();
+        String className = TogglePatchTarget.class.getName();
+
+        PatchUtils.queuePatches("toggle-test-plugin", List.of(new FirstPatch(), new SecondPatch()));
+        PatchUtils.applyQueuedPatches();
+        assertInstalled(2, 2, true, true);
+
+        try {
+            assertEquals(1, PatchUtils.setPatchesEnabled(FirstPatch.class.getName(), false));
+            assertInstalled(1, 2, false, true);
+
+            assertEquals(0, PatchUtils.setPatchesEnabled(FirstPatch.class.getName(), false));
+            assertEquals(1, PatchUtils.setPatchesEnabled(FirstPatch.class.getName(), true));
+            assertInstalled(2, 2, true, true);
+
+            assertEquals(2, PatchUtils.setPatchesEnabled(className, false));
+            assertInstalled(1, 1, false, false);
+
+            assertEquals(2, PatchUtils.setPatchesEnabled(className, true));
+            assertInstalled(2, 2, true, true);
+        } finally {
+            PatchUtils.removePatches("toggle-test-plugin");
+        }
+
+        assertInstalled(1, 1);
+    }
+
+    /**
+     * Tests that patches of two plugins modifying the same method are merged into the single installed class,
+     * and that the conflict is reported.
+     *
+     * @throws IOException if the cache entry of the class cannot be deleted
+     */
+    @Test
+    public void testConflictingPatches() throws IOException {
+        AgentLoader.loadAgent();
+
+        // The conflicts are found when the patches are compiled, not when the class is taken from the cache
+        Files.deleteIfExists(Paths.get(Constants.CACHE_DIR_NAME, "classes", ConflictPatchTarget.class.getName() + ".bin"));
+
+        PatchUtils.queuePatches("conflict-plugin-a", List.of(new SuffixPatch("first")));
+        PatchUtils.queuePatches("conflict-plugin-b", List.of(new SuffixPatch("second")));
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        try {
+            PatchUtils.applyQueuedPatches();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        try {
+            assertEquals("base+first+second", ConflictPatchTarget.describe());
+            assertTrue(outContent.toString().contains(String.format("[!] Conflicting patches of class '%1$s': '%1$s.describe()' is modified by '%2$s' (plugin: conflict-plugin-a) and '%2$s' (plugin: conflict-plugin-b)",
+                    ConflictPatchTarget.class.getName(), SuffixPatch.class.getName())), outContent.toString());
+        } finally {
+            PatchUtils.removePatches("conflict-plugin-a");
+            PatchUtils.removePatches("conflict-plugin-b");
+        }
+
+        assertEquals("base", ConflictPatchTarget.describe());
+    }
+
+    /**
+     * Tests that the patches of several classes compiled concurrently on the shared class pool are all installed.
+     * The test task sets {@code avrix.patches.parallelism} above 1, so the classes are compiled by a thread pool.
+     *
+     * @throws IOException if the cache entries of the classes cannot be deleted
+     */
+    @Test
+    public void testParallelCompile() throws IOException {
+        assertTrue(Integer.getInteger("avrix.patches.parallelism", Runtime.getRuntime().availableProcessors()) > 1,
+                "The test requires -Davrix.patches.parallelism greater than 1");
+        AgentLoader.loadAgent();
+
+        List<Class<?>> targets = List.of(ParallelTargetA.class, ParallelTargetB.class, ParallelTargetC.class);
+        List<ClassTransformer> patches = new ArrayList<>();
+        for (Class<?> target : targets) {
+            // The patches must be compiled, not taken from the cache
+            Files.deleteIfExists(Paths.get(Constants.CACHE_DIR_NAME, "classes", target.getName() + ".bin"));
+            patches.add(new ParallelPatch(target));
+        }
+
+        PatchUtils.queuePatches("parallel-test-plugin", patches);
+        PatchUtils.applyQueuedPatches();
+
+        try {
+            assertEquals(2, ParallelTargetA.getValue());
+            assertEquals(2, ParallelTargetB.getValue());
+            assertEquals(2, ParallelTargetC.getValue());
+            for (ClassTransformer patch : patches) {
+                assertNotNull(((ParallelPatch) patch).compileThread);
+                assertNotSame(Thread.currentThread(), ((ParallelPatch) patch).compileThread, "The patches were not compiled concurrently");
+            }
+        } finally {
+            PatchUtils.removePatches("parallel-test-plugin");
+        }
+
+        assertEquals(1, ParallelTargetA.getValue());
+    }
+
+    /**
+     * Checks the values returned by the installed {@link TogglePatchTarget} and the state of its patches.
+     *
+     * @param first          expected value of {@link TogglePatchTarget#getFirst()}
+     * @param second         expected value of {@link TogglePatchTarget#getSecond()}
+     * @param enabledPatches expected state of {@link FirstPatch} and {@link SecondPatch}, none if the class has no patches
+     */
+    private static void assertInstalled(int first, int second, boolean... enabledPatches) {
+        assertEquals(first, TogglePatchTarget.getFirst());
+        assertEquals(second, TogglePatchTarget.getSecond());
+
+        List<Boolean> states = PatchUtils.getAppliedPatches().stream()
+                .filter(patch -> TogglePatchTarget.class.getName().equals(patch.className()))
+                .map(PatchUtils.PatchInfo::enabled)
+                .toList();
+        assertEquals(enabledPatches.length, states.size());
+        for (int i = 0; i < enabledPatches.length; i++) {
+            assertEquals(enabledPatches[i], states.get(i));
+        }
+    }
+
+    /**
+     * Class patched by the test
+     */
+    public static class PatchTarget {
+        /**
+         * Returns the value, 1 unless patched
+         *
+         * @return the value
+         */
+        public static int getValue() {
+            return 1;
+        }
+    }
+
+    /**
+     * Test patch returning 2 from {@link PatchTarget#getValue()}
+     */
+    public static class TestPatch extends ClassTransformer {
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         */
+        public TestPatch() {
+            super(PatchTarget.class.getName());
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            getModifierBuilder().modifyMethod("getValue", (ctClass, ctMethod) -> {
+                try {
+                    ctMethod.setBody("{ return 2; }");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Class patched twice by the test
+     */
+    public static class TogglePatchTarget {
+        /**
+         * Returns the first value, 1 unless patched
+         *
+         * @return the first value
+         */
+        public static int getFirst() {
+            return 1;
+        }
+
+        /**
+         * Returns the second value, 1 unless patched
+         *
+         * @return the second value
+         */
+        public static int getSecond() {
+            return 1;
+        }
+    }
+
+    /**
+     * Test patch returning 2 from {@link TogglePatchTarget#getFirst()}
+     */
+    public static class FirstPatch extends ClassTransformer {
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         */
+        public FirstPatch() {
+            super(TogglePatchTarget.class.getName());
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            getModifierBuilder().modifyMethod("getFirst", (ctClass, ctMethod) -> {
+                try {
+                    ctMethod.setBody("{ return 2; }");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Test patch returning 2 from {@link TogglePatchTarget#getSecond()}
+     */
+    public static class SecondPatch extends ClassTransformer {
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         */
+        public SecondPatch() {
+            super(TogglePatchTarget.class.getName());
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            getModifierBuilder().modifyMethod("getSecond", (ctClass, ctMethod) -> {
+                try {
+                    ctMethod.setBody("{ return 2; }");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Class patched by two plugins
+     */
+    public static class ConflictPatchTarget {
+        /**
+         * Describes the patches applied to the class
+         *
+         * @return 'base' followed by the suffixes of the patches
+         */
+        public static String describe() {
+            return "base";
+        }
+    }
+
+    /**
+     * Test patch appending a suffix to the result of {@link ConflictPatchTarget#describe()}
+     */
+    public static class SuffixPatch extends ClassTransformer {
+        private final String suffix; // Appended suffix
+
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         *
+         * @param suffix the appended suffix
+         */
+        public SuffixPatch(String suffix) {
+            super(ConflictPatchTarget.class.getName());
+            this.suffix = suffix;
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            getModifierBuilder().modifyMethod("describe", (ctClass, ctMethod) -> {
+                try {
+                    ctMethod.insertAfter("$_ = $_ + \"+" + suffix + "\";");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * First class patched concurrently
+     */
+    public static class ParallelTargetA {
+        /**
+         * Returns the value, 1 unless patched
+         *
+         * @return the value
+         */
+        public static int getValue() {
+            return 1;
+        }
+    }
+
+    /**
+     * Second class patched concurrently
+     */
+    public static class ParallelTargetB {
+        /**
+         * Returns the value, 1 unless patched
+         *
+         * @return the value
+         */
+        public static int getValue() {
+            return 1;
+        }
+    }
+
+    /**
+     * Third class patched concurrently
+     */
+    public static class ParallelTargetC {
+        /**
+         * Returns the value, 1 unless patched
+         *
+         * @return the value
+         */
+        public static int getValue() {
+            return 1;
+        }
+    }
+
+    /**
+     * Test patch returning 2 from the 'getValue' method of its class and recording the thread compiling it
+     */
+    public static class ParallelPatch extends ClassTransformer {
+        private volatile Thread compileThread; // Thread that applied the patch
+
+        /**
+         * Constructor for creating a {@link ClassTransformer} object.
+         *
+         * @param target the patched class
+         */
+        public ParallelPatch(Class<?> target) {
+            super(target.getName());
+        }
+
+        /**
+         * Method for performing class modification.
+         */
+        @Override
+        public void modifyClass() {
+            compileThread = Thread.currentThread();
+            getModifierBuilder().modifyMethod("getValue", (ctClass, ctMethod) -> {
+                try {
+                    ctMethod.setBody("{ return 2; }");
+                } catch (CannotCompileException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+}
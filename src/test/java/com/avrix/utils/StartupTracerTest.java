@@ -0,0 +1,41 @@
+package com.avrix.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link StartupTracer} class.
+ */
+public class StartupTracerTest {
+    /**
+     * Tests that the traced steps are written in the Chrome trace event format.
+     *
+     * @throws IOException if the trace file cannot be read
+     */
+    @Test
+    public void testTrace() throws IOException {
+        StartupTracer.Span span;
+        try (StartupTracer.Span phase = StartupTracer.begin("phase", "testPhase")) {
+            span = phase;
+            try (StartupTracer.Span ignored = StartupTracer.begin("plugin", "testPlugin").arg("plugin", "test-plugin")) {
+                assertNotNull(ignored);
+            }
+        }
+        assertTrue(span.getWallNanos() > 0);
+
+        Path file = Files.createTempFile("startup-trace", ".json");
+        StartupTracer.finish(file);
+
+        String trace = Files.readString(file);
+        assertTrue(trace.contains("\"traceEvents\""));
+        assertTrue(trace.contains("\"testPhase\""));
+        assertTrue(trace.contains("\"test-plugin\""));
+
+        Files.delete(file);
+    }
+}